@@ -1,2 +1,2 @@
 @mkdir .\bin
-javac -cp ".\src" -encoding UTF-8 -d .\bin .\src\simulation\Simulation.java
+javac --add-modules jdk.incubator.vector -cp ".\src" -encoding UTF-8 -d .\bin .\src\simulation\Simulation.java
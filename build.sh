@@ -1,3 +1,3 @@
 #!/bin/bash
 mkdir ./bin
-javac -cp "./src" -encoding UTF-8 -d ./bin ./src/simulation/Simulation.java
+javac --add-modules jdk.incubator.vector -cp "./src" -encoding UTF-8 -d ./bin ./src/simulation/Simulation.java
@@ -1,3 +1,3 @@
 cd .\src
-javadoc -encoding UTF-8 -sourcepath . -cp "." -d ..\doc\javadoc -version -author *
+javadoc --add-modules jdk.incubator.vector -encoding UTF-8 -sourcepath . -cp "." -d ..\doc\javadoc -version -author *
 cd ..
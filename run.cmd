@@ -1 +1 @@
-java -cp ".\bin" simulation.Simulation %*
+java --add-modules jdk.incubator.vector -cp ".\bin" simulation.Simulation %*
@@ -1,2 +1,2 @@
 #!/bin/bash
-java -cp "./bin" simulation.Simulation $@
+java --add-modules jdk.incubator.vector -cp "./bin" simulation.Simulation $@
@@ -11,6 +11,7 @@ import events.CamelReturnEvent;
 import events.CamelWalkEvent;
 import events.EventManager;
 import path_calculation.PathDescriptor;
+import path_calculation.PathProfile;
 import requests.Request;
 import simulation.Map;
 import simulation.Node;
@@ -20,9 +21,11 @@ import simulation.Warehouse;
 
 /**
  * Represents individual camels
+ * A camel is a handle of an id in the camel registry, where its properties and state are kept,
+ * handles are created on demand and are equal if their ids are
  *
  * @author Jakub Krizanovsky, Stanislav Kafara
- * @version 2 02-12-22
+ * @version 3 18-10-26
  */
 public class Camel {
 	
@@ -30,44 +33,18 @@ public class Camel {
 	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
 	private static final Statistics STATISTICS = Statistics.getInstance();
 	
-	/** Number of camels currently created */
-	private static int instanceCounter = 0;
-	
+	private final CamelRegistry registry;
 	private final int index;
-	private final double generationTime;
-	private final CamelType type;
-	private final double movementSpeed;
-	private final double distance;
-	private final double drinkTime;
-	private final int maxLoad;
-	
-	private Warehouse home;
-	
-	/** Baskets currently carrying */
-	private int currentLoad = 0;
-	/** Index of a node, where camel was last seen (last CamelWalkEvent) */
-	private int locationIndex = -1;
 	
 	/**
-	 * Creates a new camel
-	 * Not used directly - camels are created in CamelFactory
-	 * @param type type of camel to create
-	 * @param movementSpeed movement speed of the camel
-	 * @param distance max distance the camel can travel before needing to drink
-	 * @param anonymous whether or not camel is really being created or just used for calculations
+	 * Creates a handle of a camel
+	 * Not used directly - handles are created by the camel registry
+	 * @param registry registry keeping the camel
+	 * @param index id of the camel in the registry
 	 */
-	public Camel(CamelType type, double movementSpeed, double distance, boolean anonymous) {
-		if (!anonymous) {
-			index = instanceCounter++;
-		} else {
-			index = -1;
-		}
-		this.generationTime = EVENT_MANAGER.getSimulationTime();
-		this.type = type;
-		this.movementSpeed = movementSpeed;
-		this.distance = distance;
-		this.drinkTime = type.getDrinkTime();
-		this.maxLoad = type.getMaxLoad();
+	Camel(CamelRegistry registry, int index) {
+		this.registry = registry;
+		this.index = index;
 	}
 	
 	/**
@@ -75,7 +52,7 @@ public class Camel {
 	 * @return total number of camels generated
 	 */
 	public static int getTotalCamelCount() {
-		return instanceCounter;
+		return CamelFactory.getInstance().getRegistry().size();
 	}
 
 	/**
@@ -90,45 +67,51 @@ public class Camel {
 		//Remaining time for delivery
 		final double deliveryRemainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
 		
-		double time = 0;
-		double distance = this.distance;
-		
-		time += 2 * load * home.getBasketManipulationTime(); // loading and unloading
-		
-		Iterator<Double> it = pathDescriptor.partialDistances.iterator(); 
-		while(it.hasNext()) {
-			if (time > deliveryRemainingTime) {
-				return false;
-			}
-			
-			double partialDistance = it.next();
-			if(this.distance < partialDistance) { //Edge too long, cannot possibly make it
-				return false;
-			}
-				
-			if(distance - partialDistance < 0) { //Has to drink
-				time += drinkTime;
-				distance = this.distance;
-			} 
-			
-			distance -= partialDistance;
-			time += partialDistance/movementSpeed;
+		return canDeliverInTime(getMovementSpeed(), getDistance(), getType().getDrinkTime(), load, getHome().getBasketManipulationTime(),
+				pathDescriptor.getProfile(), deliveryRemainingTime);
+	}
+	
+	/**
+	 * Method to test whether a camel with the given properties can deliver a load through a path in time
+	 * The result depends on the arguments only, so it can be used from several threads,
+	 * each with its own path profile
+	 * @param movementSpeed movement speed of the camel
+	 * @param distance max distance the camel can travel before needing to drink
+	 * @param drinkTime time it takes the camel to drink
+	 * @param load number of baskets
+	 * @param basketManipulationTime time of manipulation with one basket in the home warehouse
+	 * @param profile profile of the path to the oasis
+	 * @param remainingTime time left for the delivery
+	 * @return true if the load can be delivered in time, false otherwise
+	 */
+	public static boolean canDeliverInTime(double movementSpeed, double distance, double drinkTime, int load,
+			double basketManipulationTime, PathProfile profile, double remainingTime) {
+		if(!profile.isTraversable(distance)) { //Edge too long, cannot possibly make it
+			return false;
 		}
 		
-		return time <= deliveryRemainingTime;
+		double time = 2 * load * basketManipulationTime // loading and unloading
+				+ profile.getLength() / movementSpeed
+				+ profile.getDrinkCount(distance) * drinkTime;
+		
+		return time <= remainingTime;
 	}
 	
 	/**
 	 * Departs the camel.
 	 * Calculates the times of events happening and provides them to the manager.
 	 * @param pathDescriptor Descriptor of the path camel will follow.
-	 * @param request Request which is going to be fulfilled (at least partially).
+	 * @param shipment Shipment of the baskets of the requests which are going to be fulfilled (at least partially).
 	 */
-	public void depart(PathDescriptor pathDescriptor, Request request) {
+	public void depart(PathDescriptor pathDescriptor, Shipment shipment) {
 		double time = EVENT_MANAGER.getSimulationTime();
+		double distance = getDistance();
+		double movementSpeed = getMovementSpeed();
+		double drinkTime = getType().getDrinkTime();
+		int currentLoad = getCurrentLoad();
 		double currentDistance = distance;
 		
-		double loadTime = currentLoad * home.getBasketManipulationTime();
+		double loadTime = currentLoad * getHome().getBasketManipulationTime();
 		time += loadTime;
 		double timeDepart = time;
 		
@@ -162,7 +145,7 @@ public class Camel {
 			i = j;
 		}
 		
-		EVENT_MANAGER.addEvent(new CamelDeliverEvent(time, this, request));
+		EVENT_MANAGER.addEvent(new CamelDeliverEvent(time, this, shipment));
 		//has to unload first (per basket)
 		double timeDeliver = time;
 		time += loadTime; // unloaded, now can go home
@@ -195,8 +178,8 @@ public class Camel {
 			
 			i = j;
 		}
-		EVENT_MANAGER.addEvent(new CamelReturnEvent(time, this, request));
-		STATISTICS.addCamelDelivery(this, request, currentLoad, timeDepart, timeDeliver, time, pathDescriptor.path, drinking);
+		EVENT_MANAGER.addEvent(new CamelReturnEvent(time, this, shipment));
+		STATISTICS.addCamelDelivery(this, shipment, timeDepart, timeDeliver, time, pathDescriptor.path, drinking);
 	}
 	
 	/**
@@ -204,6 +187,7 @@ public class Camel {
 	 * @return name of the location
 	 */
 	private String getLocationName() {
+		int locationIndex = getLocationIndex();
 		Node location = MAP.getNodeAtIndex(locationIndex);
 		if(location instanceof Oasis) {
 			return "Oasis #" + MAP.nodeToOasisIndex(locationIndex) + 1;
@@ -233,7 +217,7 @@ public class Camel {
 	 * @return Time of camel generation.
 	 */
 	public double getGenerationTime() {
-		return generationTime;
+		return registry.getGenerationTime(index);
 	}
 	
 	/**
@@ -241,15 +225,16 @@ public class Camel {
 	 * @return camel type
 	 */
 	public CamelType getType() {
-		return type;
+		return registry.getType(index);
 	}
 
 	/**
 	 * Returns camel home warehouse.
-	 * @return Home warehouse.
+	 * @return Home warehouse, null if there is none yet.
 	 */
 	public Warehouse getHome() {
-		return home;
+		int home = registry.getHome(index);
+		return home < 0 ? null : (Warehouse) MAP.getNodeAtIndex(home);
 	}
 
 	/**
@@ -257,8 +242,8 @@ public class Camel {
 	 * @param home Home warehouse.
 	 */
 	public void setHome(Warehouse home) {
-		this.home = home;
-		this.locationIndex = home.getIndex();
+		registry.setHome(index, home.getIndex());
+		registry.setLocation(index, home.getIndex());
 	}
 
 	/**
@@ -266,7 +251,7 @@ public class Camel {
 	 * @return Number of carried baskets.
 	 */
 	public int getCurrentLoad() {
-		return currentLoad;
+		return registry.getLoad(index);
 	}
 
 	/**
@@ -274,7 +259,7 @@ public class Camel {
 	 * @param currentBaskets Number of baskets carried by the camel.
 	 */
 	public void setCurrentLoad(int currentBaskets) {
-		this.currentLoad = currentBaskets;
+		registry.setLoad(index, currentBaskets);
 	}
 
 	/**
@@ -282,7 +267,7 @@ public class Camel {
 	 * @return Max load.
 	 */
 	public int getMaxLoad() {
-		return maxLoad;
+		return getType().getMaxLoad();
 	}
 
 	/**
@@ -290,7 +275,7 @@ public class Camel {
 	 * @return Index of the node where the camel is.
 	 */
 	public int getLocationIndex() {
-		return locationIndex;
+		return registry.getLocation(index);
 	}
 
 	/**
@@ -298,7 +283,7 @@ public class Camel {
 	 * @param locationIndex Index of the node where the camel is.
 	 */
 	public void setLocationIndex(int locationIndex) {
-		this.locationIndex = locationIndex;
+		registry.setLocation(index, locationIndex);
 	}
 
 	/**
@@ -306,7 +291,7 @@ public class Camel {
 	 * @return Distance the camel can cover withou drinking.
 	 */
 	public double getDistance() {
-		return distance;
+		return registry.getDistance(index);
 	}
 
 	/**
@@ -314,7 +299,7 @@ public class Camel {
 	 * @return Movement speed.
 	 */
 	public double getMovementSpeed() {
-		return movementSpeed;
+		return registry.getMovementSpeed(index);
 	}
 	
 	/**
@@ -323,8 +308,8 @@ public class Camel {
 	 */
 	@Override
 	public String toString() {
-		return "Camel [index=" + getIndexPlusOne() + ", type=" + type.getName() + ", home=" + home.getIndexPlusOne()
-				+ ", currentLoad=" + currentLoad + ", lastSeen=" + getLocationName() + "]";
+		return "Camel [index=" + getIndexPlusOne() + ", type=" + getType().getName() + ", home=" + getHome().getIndexPlusOne()
+				+ ", currentLoad=" + getCurrentLoad() + ", lastSeen=" + getLocationName() + "]";
 	}
 	
 	/**
@@ -1,6 +1,16 @@
 package camels;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import events.EventManager;
+import path_calculation.PathDescriptor;
+import path_calculation.PathProfile;
+import requests.Request;
+import simulation.RandomStreams;
+import simulation.Warehouse;
 
 /**
  * Factory, that generates instances of camels on demand
@@ -11,7 +21,13 @@ import java.util.Random;
  */
 public class CamelFactory {
 	
-	private static final Random R = new Random();
+	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
+	
+	/** Maximum number of drawn camels unable to deliver only due to the rounding before giving up */
+	private static final int MAX_DRAW_ATTEMPTS = 16;
+	
+	/** Probability of the distances requiring more drinks low enough to be ignored in the delivery odds */
+	private static final double NEGLIGIBLE_PROBABILITY = 1e-12;
 	
 	/** How close the random characteristics of ideal camels are to the max value, 1 ... max value */
 	private static final double IDEAL_RATIO = 1;
@@ -22,7 +38,12 @@ public class CamelFactory {
 	private double maxCamelDistance = 0;
 	
 	private CamelType[] camelTypes;
-	private Camel[] idealCamels;
+	
+	/** Generated camels */
+	private final CamelRegistry registry = new CamelRegistry();
+	
+	/** Random streams generating the camels by the index of the home warehouse */
+	private final java.util.Map<Integer, SplittableRandom> warehouseRandoms = new ConcurrentHashMap<>();
 	
 	/** The one and only instance of this class (singleton) */
 	private static final CamelFactory INSTANCE = new CamelFactory();
@@ -41,105 +62,265 @@ public class CamelFactory {
 	/**
 
 	 * Used to set the available camel types when they're loaded
+	 * The random streams of the warehouses start over from the current master seed
+	 * The maximums of the ideal camels are computed right away,
+	 * so reading them later has no side effects and is safe from several threads
 	 * @param camelTypes camel types to set
 	 */
 	public void setCamelTypes(CamelType[] camelTypes) {
 		this.camelTypes = camelTypes;
+		warehouseRandoms.clear();
+		
+		maxCamelMovementSpeed = Arrays.stream(camelTypes)
+				.mapToDouble(cT -> IDEAL_RATIO * cT.getMaxMovementSpeed())
+				.max()
+				.orElse(0);
+		maxCamelDistance = getMaxCamelDistance(camelTypes);
+	}
+	
+	/**
+	 * Returns the registry of the generated camels.
+	 * @return Registry of the generated camels.
+	 */
+	public CamelRegistry getRegistry() {
+		return registry;
 	}
 	
 
 	/**
-	 * Returns a randomly generated camel type based on their distributions.
-	 * @return Randomly generated camel type.
+	 * Returns a randomly generated camel able to carry its part of the request through the path in time.
+	 * The camel is drawn from the distributions of the camel types and their properties conditioned on that ability.
+	 * The number of drinks on the path is a step function of the distance the camel can cover without drinking,
+	 * every step with a few enough drinks requires a minimal speed. A step of a type is chosen by the probability
+	 * of the type, of the distance on the step and of the speed high enough for it, the distance is drawn
+	 * from the normal distribution truncated to the step and the speed uniformly from the high enough speeds.
+	 * @param request Request.
+	 * @param pathDescriptor Descriptor of the path the camel follows.
+	 * @param home Warehouse generating the camel.
+	 * @param basketAmount Number of baskets to distribute, the camel carries as many of them as it can.
+	 * @return Randomly generated camel, null if no camel can deliver in time.
 	 */
-	private CamelType getCamelType() {
-		double rng = R.nextDouble();
-		int i = 0;
-		while(rng > camelTypes[i].getProportionalRepresentation()) {
-			rng -= camelTypes[i].getProportionalRepresentation();
-			i++;
+	public Camel getCamel(Request request, PathDescriptor pathDescriptor, Warehouse home, int basketAmount) {
+		PathProfile profile = pathDescriptor.getProfile();
+		double remainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
+		
+		List<Step> steps = new ArrayList<>();
+		double totalWeight = 0;
+		for(CamelType cT : camelTypes) {
+			double walkTime = remainingTime - 2 * Math.min(cT.getMaxLoad(), basketAmount) * home.getBasketManipulationTime();
+			totalWeight += addFeasibleSteps(cT, profile, walkTime, steps);
+		}
+		if(!(totalWeight > 0)) {
+			return null;
 		}
 		
-		return camelTypes[i];
+		SplittableRandom random = warehouseRandoms.computeIfAbsent(home.getIndex(),
+				index -> RandomStreams.getInstance().getStream(RandomStreams.CAMELS, index));
+		for(int attempt = 0; attempt < MAX_DRAW_ATTEMPTS; attempt++) {
+			double rng = random.nextDouble() * totalWeight;
+			int i = 0;
+			while(i < steps.size() - 1 && rng >= steps.get(i).weight) {
+				rng -= steps.get(i).weight;
+				i++;
+			}
+			Step step = steps.get(i);
+			
+			double distance = step.drawDistance(random);
+			double speed = step.minSpeed + random.nextDouble() * (step.type.getMaxMovementSpeed() - step.minSpeed);
+			if(Camel.canDeliverInTime(speed, distance, step.type.getDrinkTime(), Math.min(step.type.getMaxLoad(), basketAmount),
+					home.getBasketManipulationTime(), profile, remainingTime)) {
+				return registry.getCamel(registry.add(step.type, speed, distance, EVENT_MANAGER.getSimulationTime()));
+			}
+		}
+		return null;
 	}
 	
 	/**
-	 * Returns a randomly generated camel based on the distributions of existing camel types
-	 * and their properties.
-	 * @return Randomly generated camel.
+	 * Adds the steps of the drink count of the camel type with a chance to make it in time.
+	 * @param cT Camel type.
+	 * @param profile Profile of the path.
+	 * @param walkTime Time left for the walk without the basket manipulation.
+	 * @param steps Steps to add to.
+	 * @return Sum of the weights of the added steps.
 	 */
-	public Camel getCamel() {
-		CamelType cT = getCamelType();
-		return new Camel(cT, getRandomMovementSpeed(cT), getRandomDistance(cT), false);
+	private static double addFeasibleSteps(CamelType cT, PathProfile profile, double walkTime, List<Step> steps) {
+		double length = profile.getLength();
+		double drinkTimeLeft = walkTime - length / cT.getMaxMovementSpeed();
+		if(!(drinkTimeLeft >= 0)) {
+			return 0;
+		}
+		int maxDrinkCount = profile.getDrinkCount(profile.getLongestEdge());
+		if(cT.getDrinkTime() > 0) {
+			maxDrinkCount = (int) Math.min(maxDrinkCount, Math.floor(drinkTimeLeft / cT.getDrinkTime()));
+		}
+		
+		double addedWeight = 0;
+		double upper = Double.POSITIVE_INFINITY;
+		for(int drinkCount = 0; drinkCount <= maxDrinkCount; drinkCount++) {
+			double lower = profile.getMinimalDistance(drinkCount);
+			double minSpeed = length == 0 ? 0 : length / (walkTime - drinkCount * cT.getDrinkTime());
+			Step step = new Step(cT, lower, upper, Math.max(minSpeed, cT.getMinMovementSpeed()));
+			step.weight = cT.getProportionalRepresentation() * step.getDistanceProbability() * DeliveryOdds.getSpeedProbability(cT, minSpeed);
+			if(step.weight > 0) {
+				steps.add(step);
+				addedWeight += step.weight;
+			}
+			upper = lower;
+		}
+		return addedWeight;
 	}
 	
 	/**
-	 * Returns a randomly generated anonymous (without index) camel
-	 * based on the distributions of existing camel types and their properties.
-	 * @return Randomly generated camel.
+	 * Returns the odds of a randomly generated camel to go through the path in time.
+	 * The drink counts are considered up to the one of the thirstiest camel able to go through the path
+	 * or until the distances requiring more drinks are negligibly probable.
+	 * @param profile Profile of the path.
+	 * @return Odds of a randomly generated camel to go through the path in time.
 	 */
-	public Camel getAnonymousCamel() {
-		CamelType cT = getCamelType();
-		return new Camel(cT, getRandomMovementSpeed(cT), getRandomDistance(cT), true);
+	public DeliveryOdds getDeliveryOdds(PathProfile profile) {
+		int maxDrinkCount = profile.getDrinkCount(profile.getLongestEdge());
+		double[][] drinkCountProbabilities = new double[camelTypes.length][];
+		for(int i = 0; i < camelTypes.length; i++) {
+			CamelType cT = camelTypes[i];
+			double mean = (cT.getMinDistance() + cT.getMaxDistance()) / 2;
+			double deviation = (cT.getMaxDistance() - cT.getMinDistance()) / 4;
+			double[] probabilities = new double[maxDrinkCount + 1];
+			int drinkCount = 0;
+			double upper = Double.POSITIVE_INFINITY;
+			double probabilityBelow = 1;
+			while(drinkCount <= maxDrinkCount && probabilityBelow > NEGLIGIBLE_PROBABILITY) {
+				double lower = profile.getMinimalDistance(drinkCount);
+				probabilities[drinkCount] = NormalDistribution.probability(lower, upper, mean, deviation);
+				probabilityBelow = NormalDistribution.probability(Double.NEGATIVE_INFINITY, lower, mean, deviation);
+				upper = lower;
+				drinkCount++;
+			}
+			drinkCountProbabilities[i] = Arrays.copyOf(probabilities, drinkCount);
+		}
+		return new DeliveryOdds(camelTypes, profile.getLength(), drinkCountProbabilities);
 	}
 	
 	/**
-	 * Returns the ideal camels.
-	 * @return Ideal camels.
+	 * Returns whether an ideal camel of any type can carry a basket through the path in time.
+	 * Depends on the arguments and the camel types only, so it can be used from several threads,
+	 * each with its own path profile.
+	 * @param basketManipulationTime Time of manipulation with one basket in the home warehouse.
+	 * @param profile Profile of the path.
+	 * @param remainingTime Time left for the delivery.
+	 * @return True, if an ideal camel can deliver a basket in time, else false.
 	 */
-	public Camel[] getIdealCamels() {
-		if(idealCamels != null) {
-			return idealCamels;
-		}
-		
-		idealCamels = new Camel[camelTypes.length];
-		for(int i = 0; i < idealCamels.length; i++) {
-			CamelType cT = camelTypes[i];
-			idealCamels[i] = new Camel(cT, IDEAL_RATIO * cT.getMaxMovementSpeed(), IDEAL_RATIO * cT.getMaxDistance(), true);
+	public boolean canIdealCamelDeliverInTime(double basketManipulationTime, PathProfile profile, double remainingTime) {
+		for(CamelType cT : camelTypes) {
+			if(Camel.canDeliverInTime(getIdealMovementSpeed(cT), getIdealDistance(cT), cT.getDrinkTime(), 1,
+					basketManipulationTime, profile, remainingTime)) {
+				return true;
+			}
 		}
-		
-		return idealCamels;
+		return false;
 	}
 	
-	private double getRandomMovementSpeed(CamelType cT) {
-		return cT.getMinMovementSpeed() + R.nextDouble() * (cT.getMaxMovementSpeed() - cT.getMinMovementSpeed());
+	/**
+	 * Returns the camel types.
+	 * @return Camel types.
+	 */
+	public CamelType[] getCamelTypes() {
+		return camelTypes;
 	}
-
-	private double getRandomDistance(CamelType cT) {
-		return (cT.getMinDistance() + cT.getMaxDistance())/2 + R.nextGaussian()*(cT.getMaxDistance() - cT.getMinDistance())/4;
+	
+	/**
+	 * Returns the movement speed of the ideal camel of the camel type.
+	 * @param cT Camel type.
+	 * @return Movement speed of the ideal camel of the type.
+	 */
+	public double getIdealMovementSpeed(CamelType cT) {
+		return IDEAL_RATIO * cT.getMaxMovementSpeed();
 	}
-
+	
+	/**
+	 * Returns the distance the ideal camel of the camel type can cover without drinking.
+	 * @param cT Camel type.
+	 * @return Distance the ideal camel of the type can cover without drinking.
+	 */
+	public double getIdealDistance(CamelType cT) {
+		return IDEAL_RATIO * cT.getMaxDistance();
+	}
+	
 	/**
 	 * Returns the movement speed of the fastest ideal camel.
-	 * @return Movement speed of the fastest ideal camel.
+	 * @return Movement speed of the fastest ideal camel, 0 if there is no camel type.
 	 */
 	public double getMaxCamelMovementSpeed() {
-		if(maxCamelMovementSpeed > 0) {
-			return maxCamelMovementSpeed;
-		}
-			
-		maxCamelMovementSpeed = Arrays.stream(getIdealCamels())
-				.mapToDouble(camel -> camel.getMovementSpeed())
-				.max()
-				.getAsDouble();
-		
 		return maxCamelMovementSpeed;
 	}
 	
+	/**
+	 * Returns the distance the least thirsty ideal camel of the camel types can cover without drinking,
+	 * without setting the camel types of the factory.
+	 * @param camelTypes Camel types.
+	 * @return Distance the least thirsty ideal camel can cover without drinking, 0 if there is no camel type.
+	 */
+	public static double getMaxCamelDistance(CamelType[] camelTypes) {
+		return Arrays.stream(camelTypes)
+				.mapToDouble(cT -> IDEAL_RATIO * cT.getMaxDistance())
+				.max()
+				.orElse(0);
+	}
+	
 	/**
 	 * Returns the distance camel can cover without drinking of the least thirsty ideal camel.
-	 * @return Distance camel can cover without drinking of the least thirsty ideal camel
+	 * @return Distance camel can cover without drinking of the least thirsty ideal camel, 0 if there is no camel type
 	 */
 	public double getMaxCamelDistance() {
-		if(maxCamelDistance > 0) {
-			return maxCamelDistance;
+		return maxCamelDistance;
+	}
+	
+	/**
+	 * Step of the drink count of a camel type, the distances without drinking from lower to upper,
+	 * with the speeds high enough for the drink count.
+	 */
+	private static class Step {
+		
+		private final CamelType type;
+		private final double lower;
+		private final double upper;
+		/** Minimal speed high enough for the drink count */
+		private final double minSpeed;
+		private final double mean;
+		private final double deviation;
+		/** Probability of the type, of the distance on the step and of a high enough speed */
+		private double weight;
+		
+		private Step(CamelType type, double lower, double upper, double minSpeed) {
+			this.type = type;
+			this.lower = lower;
+			this.upper = upper;
+			this.minSpeed = minSpeed;
+			this.mean = (type.getMinDistance() + type.getMaxDistance()) / 2;
+			this.deviation = (type.getMaxDistance() - type.getMinDistance()) / 4;
 		}
 		
-		maxCamelDistance = Arrays.stream(getIdealCamels())
-				.mapToDouble(camel -> camel.getDistance())
-				.max()
-				.getAsDouble();
+		private double getDistanceProbability() {
+			return NormalDistribution.probability(lower, upper, mean, deviation);
+		}
+		
+		private double drawDistance(SplittableRandom random) {
+			if(deviation <= 0) {
+				return mean;
+			}
+			double zLower = (lower - mean) / deviation;
+			double zUpper = (upper - mean) / deviation;
+			double z;
+			if(zLower >= 0) {
+				double qLower = NormalDistribution.upperTail(zLower);
+				double qUpper = NormalDistribution.upperTail(zUpper);
+				z = NormalDistribution.inverseUpperTail(qLower - random.nextDouble() * (qLower - qUpper));
+			} else {
+				double qLower = NormalDistribution.upperTail(-zUpper);
+				double qUpper = NormalDistribution.upperTail(-zLower);
+				z = -NormalDistribution.inverseUpperTail(qLower + random.nextDouble() * (qUpper - qLower));
+			}
+			return Math.min(Math.max(mean + z * deviation, lower), Math.nextDown(upper));
+		}
 		
-		return maxCamelDistance;
 	}
 }
@@ -0,0 +1,200 @@
+package camels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Columnar store of the generated camels.
+ * A camel is an int id, its properties and state are kept in primitive arrays indexed by the id,
+ * so a camel takes a few tens of bytes and no object. {@link Camel} is only a handle of an id.
+ * Owned by the camel factory, the camels are never removed.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class CamelRegistry {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Camel types by their index */
+	private final List<CamelType> types = new ArrayList<>();
+
+	/** Indices of the camel types */
+	private final java.util.Map<CamelType, Integer> typeIndices = new IdentityHashMap<>();
+
+	/** Number of camels */
+	private int size = 0;
+
+	/** Type indices by camel id */
+	private int[] typeIndex = new int[INITIAL_CAPACITY];
+
+	/** Movement speeds by camel id */
+	private double[] movementSpeed = new double[INITIAL_CAPACITY];
+
+	/** Distances the camels can cover without drinking by camel id */
+	private double[] distance = new double[INITIAL_CAPACITY];
+
+	/** Times of generation by camel id */
+	private double[] generationTime = new double[INITIAL_CAPACITY];
+
+	/** Indices of the home warehouses by camel id, -1 if there is none yet */
+	private int[] home = new int[INITIAL_CAPACITY];
+
+	/** Numbers of carried baskets by camel id */
+	private int[] load = new int[INITIAL_CAPACITY];
+
+	/** Indices of the nodes where the camels were last seen by camel id, -1 if there is none yet */
+	private int[] location = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Constructs an empty registry.
+	 */
+	CamelRegistry() {}
+
+	/**
+	 * Adds a camel without home and load.
+	 * @param type Camel type.
+	 * @param movementSpeed Movement speed.
+	 * @param distance Distance the camel can cover without drinking.
+	 * @param generationTime Time of generation.
+	 * @return Id of the camel.
+	 */
+	int add(CamelType type, double movementSpeed, double distance, double generationTime) {
+		if (size == typeIndex.length) {
+			grow();
+		}
+		int id = size++;
+		this.typeIndex[id] = typeIndices.computeIfAbsent(type, t -> {
+			types.add(t);
+			return types.size() - 1;
+		});
+		this.movementSpeed[id] = movementSpeed;
+		this.distance[id] = distance;
+		this.generationTime[id] = generationTime;
+		this.home[id] = -1;
+		this.load[id] = 0;
+		this.location[id] = -1;
+		return id;
+	}
+
+	private void grow() {
+		int capacity = 2 * typeIndex.length;
+		typeIndex = Arrays.copyOf(typeIndex, capacity);
+		movementSpeed = Arrays.copyOf(movementSpeed, capacity);
+		distance = Arrays.copyOf(distance, capacity);
+		generationTime = Arrays.copyOf(generationTime, capacity);
+		home = Arrays.copyOf(home, capacity);
+		load = Arrays.copyOf(load, capacity);
+		location = Arrays.copyOf(location, capacity);
+	}
+
+	/**
+	 * Returns the handle of a camel.
+	 * @param id Id of the camel.
+	 * @return Handle of the camel.
+	 */
+	public Camel getCamel(int id) {
+		return new Camel(this, id);
+	}
+
+	/**
+	 * Returns the number of camels.
+	 * @return Number of camels.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the type of a camel.
+	 * @param id Id of the camel.
+	 * @return Camel type.
+	 */
+	public CamelType getType(int id) {
+		return types.get(typeIndex[id]);
+	}
+
+	/**
+	 * Returns the movement speed of a camel.
+	 * @param id Id of the camel.
+	 * @return Movement speed.
+	 */
+	public double getMovementSpeed(int id) {
+		return movementSpeed[id];
+	}
+
+	/**
+	 * Returns the distance a camel can cover without drinking.
+	 * @param id Id of the camel.
+	 * @return Distance the camel can cover without drinking.
+	 */
+	public double getDistance(int id) {
+		return distance[id];
+	}
+
+	/**
+	 * Returns the time of generation of a camel.
+	 * @param id Id of the camel.
+	 * @return Time of generation.
+	 */
+	public double getGenerationTime(int id) {
+		return generationTime[id];
+	}
+
+	/**
+	 * Returns the index of the home warehouse of a camel.
+	 * @param id Id of the camel.
+	 * @return Index of the home warehouse, -1 if there is none yet.
+	 */
+	public int getHome(int id) {
+		return home[id];
+	}
+
+	/**
+	 * Sets the index of the home warehouse of a camel.
+	 * @param id Id of the camel.
+	 * @param warehouseIndex Index of the home warehouse.
+	 */
+	void setHome(int id, int warehouseIndex) {
+		home[id] = warehouseIndex;
+	}
+
+	/**
+	 * Returns the number of baskets a camel carries.
+	 * @param id Id of the camel.
+	 * @return Number of carried baskets.
+	 */
+	public int getLoad(int id) {
+		return load[id];
+	}
+
+	/**
+	 * Sets the number of baskets a camel carries.
+	 * @param id Id of the camel.
+	 * @param basketCount Number of carried baskets.
+	 */
+	void setLoad(int id, int basketCount) {
+		load[id] = basketCount;
+	}
+
+	/**
+	 * Returns the index of the node where a camel was last seen.
+	 * @param id Id of the camel.
+	 * @return Index of the node, -1 if there is none yet.
+	 */
+	public int getLocation(int id) {
+		return location[id];
+	}
+
+	/**
+	 * Sets the index of the node where a camel was last seen.
+	 * @param id Id of the camel.
+	 * @param nodeIndex Index of the node.
+	 */
+	void setLocation(int id, int nodeIndex) {
+		location[id] = nodeIndex;
+	}
+
+}
@@ -0,0 +1,141 @@
+package camels;
+
+import java.util.Arrays;
+
+/**
+ * Set of camel ids in an open addressing table of ints, no object is allocated per camel.
+ * Removal shifts the following entries back, so no deleted markers slow the lookups down.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class CamelSet {
+
+	/** Id of an empty slot, camel ids are not negative */
+	private static final int EMPTY = -1;
+
+	/** Multiplier of the Fibonacci hashing */
+	private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+	private static final int INITIAL_SLOTS = 4;
+
+	private int[] ids = newTable(INITIAL_SLOTS);
+
+	/** Number of bits of a slot index */
+	private int bits = Integer.numberOfTrailingZeros(INITIAL_SLOTS);
+
+	private int size = 0;
+
+	/**
+	 * Adds a camel.
+	 * @param id Id of the camel.
+	 * @return True, if the camel was not in the set yet, else false.
+	 */
+	public boolean add(int id) {
+		int slot = find(id);
+		if (ids[slot] == id) {
+			return false;
+		}
+		ids[slot] = id;
+		if (++size > ids.length / 2) { // at most half full
+			rehash(2 * ids.length);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a camel.
+	 * @param id Id of the camel.
+	 * @return True, if the camel was in the set, else false.
+	 */
+	public boolean remove(int id) {
+		int slot = find(id);
+		if (ids[slot] != id) {
+			return false;
+		}
+		int mask = ids.length - 1;
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			if (ids[next] == EMPTY) {
+				break;
+			}
+			int home = slotOf(ids[next]);
+			// move the entry back, if its home is not between the freed slot and its slot
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				ids[slot] = ids[next];
+				slot = next;
+			}
+		}
+		ids[slot] = EMPTY;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Returns whether the set contains a camel.
+	 * @param id Id of the camel.
+	 * @return True, if the camel is in the set, else false.
+	 */
+	public boolean contains(int id) {
+		return ids[find(id)] == id;
+	}
+
+	/**
+	 * Returns the number of camels.
+	 * @return Number of camels.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the ids of the camels in ascending order.
+	 * @return Ids of the camels.
+	 */
+	public int[] toArray() {
+		int[] result = new int[size];
+		int count = 0;
+		for (int id : ids) {
+			if (id != EMPTY) {
+				result[count++] = id;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the slot of the camel or the empty slot where it belongs.
+	 */
+	private int find(int id) {
+		int mask = ids.length - 1;
+		int slot = slotOf(id);
+		while (ids[slot] != EMPTY && ids[slot] != id) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int slotOf(int id) {
+		return (id * GOLDEN_RATIO) >>> (32 - bits);
+	}
+
+	private void rehash(int slots) {
+		int[] old = ids;
+		ids = newTable(slots);
+		bits = Integer.numberOfTrailingZeros(slots);
+		for (int id : old) {
+			if (id != EMPTY) {
+				ids[find(id)] = id;
+			}
+		}
+	}
+
+	private static int[] newTable(int slots) {
+		int[] table = new int[slots];
+		Arrays.fill(table, EMPTY);
+		return table;
+	}
+
+}
@@ -0,0 +1,75 @@
+package camels;
+
+/**
+ * Odds of a randomly generated camel to carry its baskets through a path in time.
+ * The distance a camel covers without drinking decides its number of drinks on the path,
+ * the probabilities of every drink count depend only on the path and are computed once,
+ * the speed the camel needs for a drink count depends on the time left and is evaluated on demand.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class DeliveryOdds {
+
+	private final CamelType[] camelTypes;
+
+	/** Length of the path */
+	private final double length;
+
+	/** Probabilities of the drink counts by camel type, a missing drink count cannot go through the path */
+	private final double[][] drinkCountProbabilities;
+
+	/**
+	 * Constructs the odds of a path.
+	 * @param camelTypes Camel types.
+	 * @param length Length of the path.
+	 * @param drinkCountProbabilities Probabilities of the drink counts by camel type.
+	 */
+	DeliveryOdds(CamelType[] camelTypes, double length, double[][] drinkCountProbabilities) {
+		this.camelTypes = camelTypes;
+		this.length = length;
+		this.drinkCountProbabilities = drinkCountProbabilities;
+	}
+
+	/**
+	 * Returns the expected number of baskets a randomly generated camel delivers in time,
+	 * a camel carries as many baskets as it can, one unable to deliver in time carries none.
+	 * @param remainingTime Time left for the delivery.
+	 * @param basketManipulationTime Time of manipulation with one basket.
+	 * @return Expected number of delivered baskets per generated camel.
+	 */
+	public double getExpectedLoad(double remainingTime, double basketManipulationTime) {
+		double expectedLoad = 0;
+		for (int i = 0; i < camelTypes.length; i++) {
+			CamelType cT = camelTypes[i];
+			double walkTime = remainingTime - 2 * cT.getMaxLoad() * basketManipulationTime;
+			double probability = 0;
+			for (int drinkCount = 0; drinkCount < drinkCountProbabilities[i].length; drinkCount++) {
+				double moveTime = walkTime - drinkCount * cT.getDrinkTime();
+				if (moveTime < 0) {
+					break;
+				}
+				probability += drinkCountProbabilities[i][drinkCount]
+						* getSpeedProbability(cT, length == 0 ? 0 : length / moveTime);
+			}
+			expectedLoad += cT.getProportionalRepresentation() * probability * cT.getMaxLoad();
+		}
+		return expectedLoad;
+	}
+
+	/**
+	 * Returns the probability of a camel of the type to be at least as fast as required.
+	 * @param cT Camel type.
+	 * @param requiredSpeed Required speed.
+	 * @return Probability of the speed not lower than the required one.
+	 */
+	static double getSpeedProbability(CamelType cT, double requiredSpeed) {
+		double min = cT.getMinMovementSpeed();
+		double max = cT.getMaxMovementSpeed();
+		if (requiredSpeed > max) {
+			return 0;
+		}
+		return max > min ? (max - Math.max(requiredSpeed, min)) / (max - min) : 1;
+	}
+
+}
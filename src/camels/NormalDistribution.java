@@ -0,0 +1,95 @@
+package camels;
+
+/**
+ * Tail probabilities and quantiles of the standard normal distribution.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class NormalDistribution {
+
+	/** Coefficients of the central region of the quantile approximation */
+	private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+			1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+	private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+			6.680131188771972e+01, -1.328068155288572e+01};
+	/** Coefficients of the tail regions of the quantile approximation */
+	private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+			-2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+	private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+			3.754408661907416e+00};
+	/** Probability where the tail regions begin */
+	private static final double TAIL = 0.02425;
+	/** Quantile returned for the probabilities out of (0, 1) */
+	private static final double MAX_QUANTILE = 40;
+
+	private NormalDistribution() {}
+
+	/**
+	 * Returns the probability of a value greater than z,
+	 * by the Chebyshev approximation of erfc with the relative error below 1.2e-7.
+	 * @param z Value.
+	 * @return Probability of a value greater than z.
+	 */
+	static double upperTail(double z) {
+		double x = Math.abs(z) / Math.sqrt(2);
+		double t = 1 / (1 + 0.5 * x);
+		double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+				+ t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+				+ t * (-0.82215223 + t * 0.17087277)))))))));
+		return z >= 0 ? erfc / 2 : 1 - erfc / 2;
+	}
+
+	/**
+	 * Returns the probability of a normally distributed value in the interval from lower (inclusive) to upper.
+	 * Below the mean the interval is mirrored, so the small tail probabilities are precise on both sides.
+	 * @param lower Beginning of the interval.
+	 * @param upper End of the interval.
+	 * @param mean Mean.
+	 * @param deviation Standard deviation, a value of 0 means the mean only.
+	 * @return Probability of a value in the interval.
+	 */
+	static double probability(double lower, double upper, double mean, double deviation) {
+		if (deviation <= 0) {
+			return lower <= mean && mean < upper ? 1 : 0;
+		}
+		double zLower = (lower - mean) / deviation;
+		double zUpper = (upper - mean) / deviation;
+		if (zLower >= 0) {
+			return upperTail(zLower) - upperTail(zUpper);
+		}
+		return upperTail(-zUpper) - upperTail(-zLower);
+	}
+
+	/**
+	 * Returns the value with the given probability of a greater value,
+	 * by the rational approximation of Acklam with the relative error below 1.2e-9.
+	 * @param q Probability of a greater value.
+	 * @return Value.
+	 */
+	static double inverseUpperTail(double q) {
+		if (q <= 0) {
+			return MAX_QUANTILE;
+		}
+		if (q >= 1) {
+			return -MAX_QUANTILE;
+		}
+		if (q < TAIL) {
+			return -lowerTailQuantile(q);
+		}
+		if (q > 1 - TAIL) {
+			return lowerTailQuantile(1 - q);
+		}
+		double p = 0.5 - q;
+		double r = p * p;
+		return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * p
+				/ (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+	}
+
+	private static double lowerTailQuantile(double p) {
+		double s = Math.sqrt(-2 * Math.log(p));
+		return (((((C[0] * s + C[1]) * s + C[2]) * s + C[3]) * s + C[4]) * s + C[5])
+				/ ((((D[0] * s + D[1]) * s + D[2]) * s + D[3]) * s + 1);
+	}
+
+}
@@ -0,0 +1,141 @@
+package camels;
+
+import java.util.Arrays;
+
+import requests.Request;
+
+/**
+ * Baskets carried by a camel on one trip, split by the requests they are delivered for.
+ * All the requests of a shipment are to the same oasis. A shipment takes more baskets
+ * only until the camel departs, then it is closed.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class Shipment {
+
+	private Request[] requests = new Request[1];
+
+	/** Numbers of baskets of the requests */
+	private int[] loads = new int[1];
+
+	private int requestCount = 0;
+
+	private int totalLoad = 0;
+
+	private boolean open = true;
+
+	/**
+	 * Constructs a shipment of baskets for one request.
+	 * @param request Request.
+	 * @param load Number of baskets for the request.
+	 */
+	public Shipment(Request request, int load) {
+		add(request, load);
+	}
+
+	/**
+	 * Adds baskets for a request, the request must be to the oasis of the shipment.
+	 * @param request Request.
+	 * @param load Number of baskets for the request.
+	 * @throws IllegalStateException if the shipment is closed or the request is to another oasis.
+	 */
+	public void add(Request request, int load) {
+		if(!open) {
+			throw new IllegalStateException("Adding baskets to a shipment already on its way");
+		}
+		if(requestCount > 0 && request.getOasisIndex() != requests[0].getOasisIndex()) {
+			throw new IllegalStateException("Adding baskets for another oasis to a shipment");
+		}
+		totalLoad += load;
+		for(int i = 0; i < requestCount; i++) {
+			if(requests[i] == request) {
+				loads[i] += load;
+				return;
+			}
+		}
+		if(requestCount == requests.length) {
+			requests = Arrays.copyOf(requests, 2 * requestCount);
+			loads = Arrays.copyOf(loads, 2 * requestCount);
+		}
+		requests[requestCount] = request;
+		loads[requestCount] = load;
+		requestCount++;
+	}
+
+	/**
+	 * Closes the shipment, when the camel departs.
+	 */
+	public void close() {
+		open = false;
+	}
+
+	/**
+	 * Returns whether the shipment can take more baskets.
+	 * @return True, if the camel has not departed yet, else false.
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Returns the number of requests the baskets are for.
+	 * @return Number of requests.
+	 */
+	public int getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Returns a request of the shipment.
+	 * @param i Index of the request in the order the baskets were added.
+	 * @return Request.
+	 */
+	public Request getRequest(int i) {
+		return requests[i];
+	}
+
+	/**
+	 * Returns the number of baskets for a request of the shipment.
+	 * @param i Index of the request in the order the baskets were added.
+	 * @return Number of baskets for the request.
+	 */
+	public int getLoad(int i) {
+		return loads[i];
+	}
+
+	/**
+	 * Returns the number of baskets of all the requests.
+	 * @return Number of baskets of the shipment.
+	 */
+	public int getTotalLoad() {
+		return totalLoad;
+	}
+
+	/**
+	 * Returns the request that has to be delivered first.
+	 * @return Request with the earliest time the delivery has to be done by.
+	 */
+	public Request getMostUrgentRequest() {
+		Request mostUrgent = requests[0];
+		for(int i = 1; i < requestCount; i++) {
+			if(getDeadline(requests[i]) < getDeadline(mostUrgent)) {
+				mostUrgent = requests[i];
+			}
+		}
+		return mostUrgent;
+	}
+
+	/**
+	 * Returns the oasis index plus one used for printing.
+	 * @return Index of the oasis of the shipment plus one.
+	 */
+	public int getOasisIndexPlusOne() {
+		return requests[0].getOasisIndexPlusOne();
+	}
+
+	private static double getDeadline(Request request) {
+		return request.getRequestTime() + request.getDeliveryTime();
+	}
+
+}
@@ -7,11 +7,12 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import path_calculation.Path;
 import simulation.Coordinates;
+import simulation.RandomStreams;
 
 /**
  * Library class that is used for generating new random data sets
@@ -21,9 +22,19 @@ import simulation.Coordinates;
  */
 public class DataGenerator {
 	
-	private static final Random R = new Random();
 	private static PrintWriter out;
 	
+	/** Indices of the random streams of the sections, every section draws from its own stream */
+	private static final int WAREHOUSE_SECTION = 0;
+	private static final int OASIS_SECTION = 1;
+	private static final int PATH_SECTION = 2;
+	private static final int CAMEL_TYPE_SECTION = 3;
+	private static final int REQUEST_SECTION = 4;
+	private static final int SECTION_COUNT = 5;
+	
+	/** Number of the data set since the master seed was set, every data set draws from its own streams */
+	private static int dataSet;
+	
 	private static final double MAP_MAX_SIZE = 3000;
 	
 	private static final int MIN_WAREHOUSE_COUNT = 1;
@@ -71,9 +82,11 @@ public class DataGenerator {
 	
 	/**
 	 * Generates simulation data and outputs them to a file
+	 * The same master seed generates the same sequence of data sets, each one different
 	 * @param file file to output the data to
 	 */
 	public static void generateData(File file) {
+		dataSet = RandomStreams.getInstance().nextStreamSet(RandomStreams.DATA_GENERATOR);
 		
 		try {
 			out = new PrintWriter(file);
@@ -83,82 +96,91 @@ public class DataGenerator {
 			return;
 		}
 		
+		SplittableRandom r;
+		
 		//Warehouses
 		out.println("🐪 Pocet skladu S: 🏜");
-		int warehouseCount = getRandomInt(MIN_WAREHOUSE_COUNT, MAX_WAREHOUSE_COUNT);
+		r = getSectionRandom(WAREHOUSE_SECTION);
+		int warehouseCount = getRandomInt(r, MIN_WAREHOUSE_COUNT, MAX_WAREHOUSE_COUNT);
 		out.println(warehouseCount);
 		
-		generateWarehouses(out, warehouseCount);
+		generateWarehouses(r, out, warehouseCount);
 		
 		//Oases
 		out.println("🐪 Pocet oaz O: 🏜");
-		int oasisCount = getRandomInt(MIN_OASIS_COUNT, MAX_OASIS_COUNT);
+		r = getSectionRandom(OASIS_SECTION);
+		int oasisCount = getRandomInt(r, MIN_OASIS_COUNT, MAX_OASIS_COUNT);
 		out.println(oasisCount);
 		
-		generateOases(out, oasisCount);
+		generateOases(r, out, oasisCount);
 		
 		//Paths
 		out.println("🐪 Pocet cest C: 🏜");
 		int combinations = combinationCount(warehouseCount + oasisCount);
-		int pathCount = getRandomInt((int)(combinations*MIN_PATH_RATIO), (int)(combinations*MAX_PATH_RATIO));
+		r = getSectionRandom(PATH_SECTION);
+		int pathCount = getRandomInt(r, (int)(combinations*MIN_PATH_RATIO), (int)(combinations*MAX_PATH_RATIO));
 		out.println(pathCount);
 		
-		generatePaths(pathCount, warehouseCount, oasisCount, out);
+		generatePaths(r, pathCount, warehouseCount, oasisCount, out);
 		
 		//Camels
 		out.println("🐪 Pocet druhu velbloudu D: 🏜");
-		int camelTypeCount = getRandomInt(MIN_CAMEL_TYPE_COUNT, MAX_CAMEL_TYPE_COUNT);
+		r = getSectionRandom(CAMEL_TYPE_SECTION);
+		int camelTypeCount = getRandomInt(r, MIN_CAMEL_TYPE_COUNT, MAX_CAMEL_TYPE_COUNT);
 		out.println(camelTypeCount);
 		
-		generateCamelTypes(camelTypeCount, out);
+		generateCamelTypes(r, camelTypeCount, out);
 		
 		//Requests
 		out.println("🐪 Pocet pozadavku P: 🏜");
-		int requestCount = getRandomInt(MIN_REQUEST_COUNT, MAX_REQUEST_COUNT);
+		r = getSectionRandom(REQUEST_SECTION);
+		int requestCount = getRandomInt(r, MIN_REQUEST_COUNT, MAX_REQUEST_COUNT);
 		out.println(requestCount);
 		
-		generateRequests(requestCount, oasisCount, out);
+		generateRequests(r, requestCount, oasisCount, out);
 		
 		out.close();
 	}
 
 
-	private static void generateWarehouses(PrintWriter out, int warehouseCount) {
+	private static void generateWarehouses(SplittableRandom r, PrintWriter out, int warehouseCount) {
 		out.println("🐪 Definice skladu (souradnice x,y, pocet kosu ks, doba doplneni ts a doba nalozeni tn) 🏜");
 		for(int i = 0; i < warehouseCount; i++) {
-			Coordinates coords = getRandomCoords();
-			int basketCount = getRandomInt(MIN_WAREHOUSE_BASKET_COUNT, MAX_WAREHOUSE_BASKET_COUNT);
-			int basketRefillTime = getRandomInt(MIN_WAREHOUSE_BASKET_REFILL_TIME, MAX_WAREHOUSE_BASKET_REFILL_TIME);
-			int basketManipulationTime = getRandomInt(MIN_WAREHOUSE_BASKET_MANIPULATION_TIME, MAX_WAREHOUSE_BASKET_MANIPULATION_TIME);
+			Coordinates coords = getRandomCoords(r);
+			int basketCount = getRandomInt(r, MIN_WAREHOUSE_BASKET_COUNT, MAX_WAREHOUSE_BASKET_COUNT);
+			int basketRefillTime = getRandomInt(r, MIN_WAREHOUSE_BASKET_REFILL_TIME, MAX_WAREHOUSE_BASKET_REFILL_TIME);
+			int basketManipulationTime = getRandomInt(r, MIN_WAREHOUSE_BASKET_MANIPULATION_TIME, MAX_WAREHOUSE_BASKET_MANIPULATION_TIME);
 			out.println(coords.x + " " + coords.y + " " + basketCount + " " + basketRefillTime + " " + basketManipulationTime);
 		}
 	}
 	
 	/**
 	 * Generetes oases
+	 * @param r random stream of the section
 	 * @param out output file PrintWriter
 	 * @param oasisCount number of oases to generate
 	 */
-	private static void generateOases(PrintWriter out, int oasisCount) {
+	private static void generateOases(SplittableRandom r, PrintWriter out, int oasisCount) {
 		out.println("🐪 Definice oaz (souradnice x,y) 🏜");
 		for(int i = 0; i < oasisCount; i++) {
-			Coordinates coords = getRandomCoords();
+			Coordinates coords = getRandomCoords(r);
 			out.println(coords.x + " " + coords.y);
 		}
 	}
 	
 	/**
 	 * Generate paths
+	 * @param r random stream of the section
 	 * @param pathCount number of paths to generate
 	 * @param warehouseCount number of warehouses
 	 * @param oasisCount number of oases
 	 * @param out output file PrintWriter
 	 */
-	private static void generatePaths(int pathCount, int warehouseCount, int oasisCount, PrintWriter out) {
+	private static void generatePaths(SplittableRandom r, int pathCount, int warehouseCount, int oasisCount, PrintWriter out) {
 		out.println("🐪 Definice cest 🏜");
 		Set<Path> paths = new HashSet<Path>();
 		while(paths.size() < pathCount) {
-			Path path = getRandomPath(warehouseCount + oasisCount);
+			Path path = getRandomPath(r, warehouseCount + oasisCount);
 			if(!paths.contains(path)) {
 				paths.add(path);
 				out.println(path.u + " " + path.v);
@@ -168,31 +190,32 @@ public class DataGenerator {
 	
 	/**
 	 * Generates camel types
+	 * @param r random stream of the section
 	 * @param camelTypeCount number of types to generate
 	 * @param out output file PrintWriter
 	 */
-	private static void generateCamelTypes(int camelTypeCount, PrintWriter out) {
+	private static void generateCamelTypes(SplittableRandom r, int camelTypeCount, PrintWriter out) {
 		out.println("🐪 Definice velblouda (nazev, minimalni rychlost, maximalni rychlost, minimalni vzdalenost, maximalni vzdalenost, doba piti, maximalni zatizeni a procentualni pomer druhu velblouda)  🏜");
 		for(int i = 1; i <= camelTypeCount; i++) {
 			String typeName = "Type" + i;
-			double minSpeed = getRandomDouble(MIN_CAMEL_SPEED, MAX_CAMEL_SPEED);
-			double maxSpeed = getRandomDouble(MIN_CAMEL_SPEED, MAX_CAMEL_SPEED);
+			double minSpeed = getRandomDouble(r, MIN_CAMEL_SPEED, MAX_CAMEL_SPEED);
+			double maxSpeed = getRandomDouble(r, MIN_CAMEL_SPEED, MAX_CAMEL_SPEED);
 			if(minSpeed > maxSpeed) { //Swap them if they're the other way around
 				double temp = minSpeed;
 				minSpeed = maxSpeed;
 				maxSpeed = temp;
 			}
 			
-			double minDistance = getRandomDouble(MIN_CAMEL_DISTANCE, MAX_CAMEL_DISTANCE);
-			double maxDistance = getRandomDouble(MIN_CAMEL_DISTANCE, MAX_CAMEL_DISTANCE);
+			double minDistance = getRandomDouble(r, MIN_CAMEL_DISTANCE, MAX_CAMEL_DISTANCE);
+			double maxDistance = getRandomDouble(r, MIN_CAMEL_DISTANCE, MAX_CAMEL_DISTANCE);
 			if(minDistance > maxDistance) { //Swap them if they're the other way around
 				double temp = minDistance;
 				minDistance = maxDistance;
 				maxDistance = temp;
 			}
 			
-			double drinkTime = getRandomDouble(MIN_CAMEL_DRINK_TIME, MAX_CAMEL_DRINK_TIME);
-			int maxĹoad = getRandomInt(MIN_CAMEL_MAX_LOAD, MAX_CAMEL_MAX_LOAD);
+			double drinkTime = getRandomDouble(r, MIN_CAMEL_DRINK_TIME, MAX_CAMEL_DRINK_TIME);
+			int maxĹoad = getRandomInt(r, MIN_CAMEL_MAX_LOAD, MAX_CAMEL_MAX_LOAD);
 			double perc = 1.0/camelTypeCount;
 			out.println(typeName + " " + minSpeed + " " + maxSpeed + " " + minDistance + " " + maxDistance + " " + drinkTime + " " + maxĹoad + " " + perc);
 		}
@@ -200,40 +223,43 @@ public class DataGenerator {
 	
 	/**
 	 * Generates requests
+	 * @param r random stream of the section
 	 * @param requestCount number of requests to generate
 	 * @param oasisCount number of oases
 	 * @param out output file PrintWriter
 	 */
-	private static void generateRequests(int requestCount, int oasisCount, PrintWriter out) {
+	private static void generateRequests(SplittableRandom r, int requestCount, int oasisCount, PrintWriter out) {
 		out.println("🐪 Definice pozadavku (cas prichodu, index oazy, pocet kosu, cas na doruceni) 🏜");
 		double reqiestTime = 0;
 		for(int i = 0; i < requestCount; i++) {
-			reqiestTime += getRandomDouble(MIN_REQUEST_DELAY, MAX_REQUEST_DELAY);
-			int oasisIndex = getRandomInt(1, oasisCount);
-			int basketCount = getRandomInt(MIN_REQUEST_BASKET_COUNT, MAX_REQUEST_BASKET_COUNT);
-			double deliveryTime = getRandomDouble(MIN_REQUEST_DELIVERY_TIME, MAX_REQUEST_DELIVERY_TIME);
+			reqiestTime += getRandomDouble(r, MIN_REQUEST_DELAY, MAX_REQUEST_DELAY);
+			int oasisIndex = getRandomInt(r, 1, oasisCount);
+			int basketCount = getRandomInt(r, MIN_REQUEST_BASKET_COUNT, MAX_REQUEST_BASKET_COUNT);
+			double deliveryTime = getRandomDouble(r, MIN_REQUEST_DELIVERY_TIME, MAX_REQUEST_DELIVERY_TIME);
 			out.println(reqiestTime + " " + oasisIndex + " " + basketCount + " " + deliveryTime);
 		}
 	}
 	
 	/**
 	 * Generates new coordinates
+	 * @param r random stream
 	 * @return the newly generated coordinates
 	 */
-	private static Coordinates getRandomCoords() {
-		return new Coordinates(R.nextDouble()*MAP_MAX_SIZE - MAP_MAX_SIZE/2, R.nextDouble()*MAP_MAX_SIZE - MAP_MAX_SIZE/2);
+	private static Coordinates getRandomCoords(SplittableRandom r) {
+		return new Coordinates(r.nextDouble()*MAP_MAX_SIZE - MAP_MAX_SIZE/2, r.nextDouble()*MAP_MAX_SIZE - MAP_MAX_SIZE/2);
 	}
 	
 	/**
 	 * Generates random path
+	 * @param r random stream
 	 * @param nodeCount number of nodes
 	 * @return the generated path
 	 */
-	private static Path getRandomPath(int nodeCount) {
-		int u = getRandomInt(1, nodeCount);
-		int v = getRandomInt(1, nodeCount);
+	private static Path getRandomPath(SplittableRandom r, int nodeCount) {
+		int u = getRandomInt(r, 1, nodeCount);
+		int v = getRandomInt(r, 1, nodeCount);
 		if(u == v)  {
-			return getRandomPath(nodeCount);
+			return getRandomPath(r, nodeCount);
 		}
 					
 		Path path = new Path(u, v);
@@ -242,25 +268,36 @@ public class DataGenerator {
 	
 	/**
 	 * Generates random integer between min and max values
+	 * @param r random stream
 	 * @param min minimal value
 	 * @param max maximal value
 	 * @return the generated integer
 	 */
-	private static int getRandomInt(int min, int max) {
-		if(min == max) { //This is here because Random.nextInt() can't take 0 as a parameter
+	private static int getRandomInt(SplittableRandom r, int min, int max) {
+		if(min == max) { //This is here because SplittableRandom.nextInt() can't take 0 as a parameter
 			return min;
 		}
-		return R.nextInt(max - min) + min;
+		return r.nextInt(max - min) + min;
 	}
 	
 	/**
 	 * Generates random double between min and max values
+	 * @param r random stream
 	 * @param min minimal value
 	 * @param max maximal value
 	 * @return the generated double
 	 */
-	private static double getRandomDouble(double min, double max) {
-		return R.nextDouble()*(max - min) + min;
+	private static double getRandomDouble(SplittableRandom r, double min, double max) {
+		return r.nextDouble()*(max - min) + min;
+	}
+	
+	/**
+	 * Returns the random stream of a section of the current data set derived from the master seed
+	 * @param section index of the section
+	 * @return random stream of the section
+	 */
+	private static SplittableRandom getSectionRandom(int section) {
+		return RandomStreams.getInstance().getStream(RandomStreams.DATA_GENERATOR, dataSet * SECTION_COUNT + section);
 	}
 	
 	/**
@@ -0,0 +1,28 @@
+package events;
+
+import camels.Camel;
+import camels.Shipment;
+
+/**
+ * Represents an event with camel and the shipment it carries.
+ * 
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 2 18-10-26
+ */
+public abstract class ACamelShipmentEvent extends ACamelEvent {
+	
+	/** Shipment, baskets carried for the requests. */
+	protected final Shipment shipment;
+
+	/**
+	 * Constructs an abstract event with camel and shipment.
+	 * @param time Time.
+	 * @param priority Priority.
+	 * @param camel Camel.
+	 * @param shipment Shipment.
+	 */
+	public ACamelShipmentEvent(double time, int priority, Camel camel, Shipment shipment) {
+		super(time, priority, camel);
+		this.shipment = shipment;
+	}
+}
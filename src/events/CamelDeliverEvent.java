@@ -1,6 +1,7 @@
 package events;
 
 import camels.Camel;
+import camels.Shipment;
 import requests.Request;
 import simulation.Simulation;
 
@@ -8,9 +9,9 @@ import simulation.Simulation;
  * Represents an event of camel delivering baskets to an oasis.
  * 
  * @author Stanislav Kafara, Jakub Krizanovsky
- * @version 2 02-12-22
+ * @version 3 18-10-26
  */
-public class CamelDeliverEvent extends ACamelRequestEvent {
+public class CamelDeliverEvent extends ACamelShipmentEvent {
 	
 	private static final int PRIORITY = 60;
 
@@ -20,37 +21,43 @@ public class CamelDeliverEvent extends ACamelRequestEvent {
 	 * Constructs an event of camel delivering baskets to an oasis.
 	 * @param time Time of delivery.
 	 * @param camel Camel.
-	 * @param request Request to be delivered (at least partially).
+	 * @param shipment Shipment of the baskets of the requests to be delivered (at least partially).
 	 */
-	public CamelDeliverEvent(double time, Camel camel, Request request) {
-		super(time, PRIORITY, camel, request);
+	public CamelDeliverEvent(double time, Camel camel, Shipment shipment) {
+		super(time, PRIORITY, camel, shipment);
 		
 	}
 
 	/**
-	 * Deliveres the carried baskets.
+	 * Deliveres the carried baskets, the baskets of the requests are unloaded one request after another.
 	 */
 	@Override
 	public void process() {
-		System.out.format(
-				"Cas: %.0f, Velbloud: %d, Oaza: %d, Vylozeno kosu: %d, Vylozeno v: %.0f, Casova rezerva: %.0f%n",
-				time,
-				camel.getIndexPlusOne(),
-				request.getOasisIndexPlusOne(),
-				camel.getCurrentLoad(),
-				time + camel.getCurrentLoad()*camel.getHome().getBasketManipulationTime(),
-				request.getRequestTime() + request.getDeliveryTime() - time
-		);
-		
-		
-		Simulation.basketsDelivered += camel.getCurrentLoad();
-				
-		request.addDeliveredBaskets(camel.getCurrentLoad());
-		camel.setCurrentLoad(0);
-		
-		if(request.getBasketCount() == request.getDeliveredBasketsCount()) {
-			EVENT_MANAGER.addEvent(new RequestFulfilledEvent(time, request));
+		int unloadedCount = 0;
+		for(int i = 0; i < shipment.getRequestCount(); i++) {
+			Request request = shipment.getRequest(i);
+			int load = shipment.getLoad(i);
+			unloadedCount += load;
+			System.out.format(
+					"Cas: %.0f, Velbloud: %d, Oaza: %d, Vylozeno kosu: %d, Vylozeno v: %.0f, Casova rezerva: %.0f%n",
+					time,
+					camel.getIndexPlusOne(),
+					request.getOasisIndexPlusOne(),
+					load,
+					time + unloadedCount*camel.getHome().getBasketManipulationTime(),
+					request.getRequestTime() + request.getDeliveryTime() - time
+			);
+			
+			
+			Simulation.basketsDelivered += load;
+					
+			request.addDeliveredBaskets(load);
+			
+			if(request.getBasketCount() == request.getDeliveredBasketsCount()) {
+				EVENT_MANAGER.addEvent(new RequestFulfilledEvent(time, request));
+			}
 		}
+		camel.setCurrentLoad(0);
 	}
 
 }
@@ -1,41 +1,40 @@
 package events;
 
 import camels.Camel;
+import camels.Shipment;
 import path_calculation.PathDescriptor;
-import requests.Request;
 
 /**
  * Represents an event of camel preparing for departure.
  * 
  * @author Stanislav Kafara, Jakub Krizanovsky
- * @version 2 02-12-22
+ * @version 3 18-10-26
  */
-public class CamelPrepareEvent extends ACamelRequestEvent {
+public class CamelPrepareEvent extends ACamelShipmentEvent {
 	
 	private static final int PRIORITY = 20;
 	
-	private final int basketCount;
 	private final PathDescriptor pathDescriptor;
 
 	/**
 	 * Constructs an event of camel preparing for departure.
 	 * @param time Time of preparing for a departure.
 	 * @param camel Camel.
-	 * @param request Request to fulfill (at least partially).
-	 * @param basketCount Basket count carrying.
+	 * @param shipment Shipment to carry, it can take more baskets until the camel departs.
 	 * @param pathDescriptor Descriptor of the path the camel is going to follow.
 	 */
-	public CamelPrepareEvent(double time, Camel camel, Request request, int basketCount, PathDescriptor pathDescriptor) {
-		super(time, PRIORITY, camel, request);
-		this.basketCount = basketCount;
+	public CamelPrepareEvent(double time, Camel camel, Shipment shipment, PathDescriptor pathDescriptor) {
+		super(time, PRIORITY, camel, shipment);
 		this.pathDescriptor = pathDescriptor;
 	}
 
 	/**
-	 * Departs the camel.
+	 * Closes the shipment and departs the camel.
 	 */
 	@Override
 	public void process() {
+		shipment.close();
+		int basketCount = shipment.getTotalLoad();
 		camel.setCurrentLoad(basketCount);
 		System.out.format(
 				"Cas: %.0f, Velbloud: %d, Sklad: %d, Nalozeno kosu: %d, Odchod v: %.0f%n",
@@ -45,8 +44,10 @@ public class CamelPrepareEvent extends ACamelRequestEvent {
 				basketCount,
 				time + camel.getHome().getBasketManipulationTime()*basketCount
 		);
-		camel.depart(pathDescriptor, request);
-		request.addCamel(camel);
+		camel.depart(pathDescriptor, shipment);
+		for(int i = 0; i < shipment.getRequestCount(); i++) {
+			shipment.getRequest(i).addCamel(camel);
+		}
 	}
 
 }
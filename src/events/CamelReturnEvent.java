@@ -1,6 +1,7 @@
 package events;
 
 import camels.Camel;
+import camels.Shipment;
 import requests.Request;
 import requests.RequestManager;
 import requests.RequestState;
@@ -9,9 +10,9 @@ import requests.RequestState;
  * Represents an event of camel returning to home warehouse.
  * 
  * @author Stanislav Kafara, Jakub Krizanovsky
- * @version 2 02-12-22
+ * @version 3 18-10-26
  */
-public class CamelReturnEvent extends ACamelRequestEvent {
+public class CamelReturnEvent extends ACamelShipmentEvent {
 	
 	private static final int PRIORITY = 50;
 	private static final RequestManager REQUEST_MANAGER = RequestManager.getInstance();	
@@ -20,14 +21,14 @@ public class CamelReturnEvent extends ACamelRequestEvent {
 	 * Constructs an event of camel returning to home warehouse.
 	 * @param time Time of return.
 	 * @param camel Camel.
-	 * @param request Request that was fulfilled (at least partially).
+	 * @param shipment Shipment of the baskets of the requests that were fulfilled (at least partially).
 	 */
-	public CamelReturnEvent(double time, Camel camel, Request request) {
-		super(time, PRIORITY, camel, request);
+	public CamelReturnEvent(double time, Camel camel, Shipment shipment) {
+		super(time, PRIORITY, camel, shipment);
 	}
 
 	/**
-	 * Returns the camel to the home warehouse and checks whether the request was completed
+	 * Returns the camel to the home warehouse and checks whether the requests of the shipment were completed
 	 * and whether the simulation should end successfully.
 	 */
 	@Override
@@ -41,10 +42,13 @@ public class CamelReturnEvent extends ACamelRequestEvent {
 		
 		camel.getHome().returnCamel(camel);
 		
-		request.removeCamel(camel);
-		
-		if(request.getCamels().size() == 0) {
-			REQUEST_MANAGER.changeRequestState(request, RequestState.Completed);
+		for(int i = 0; i < shipment.getRequestCount(); i++) {
+			Request request = shipment.getRequest(i);
+			request.removeCamel(camel);
+			
+			if(request.getCamelCount() == 0) {
+				REQUEST_MANAGER.changeRequestState(request, RequestState.Completed);
+			}
 		}
 		
 		//Test whether simulation should be ended
@@ -0,0 +1,37 @@
+package events;
+
+import requests.RequestManager;
+import simulation.Map;
+
+/**
+ * Represents an event of processing the requests received at the same time together.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class RequestBatchEvent extends AEvent {
+
+	/** Priority, after receiving requests, so all the requests received at the same time are in the batch. */
+	private static final int PRIORITY = 9;
+
+	private static final RequestManager REQUEST_MANAGER = RequestManager.getInstance();
+
+	private static final Map MAP = Map.getInstance();
+
+	/**
+	 * Constructs an event of processing the requests received at the same time.
+	 * @param time Time of receiving the requests.
+	 */
+	public RequestBatchEvent(double time) {
+		super(time, PRIORITY);
+	}
+
+	/**
+	 * Tries to process the requests of the batch.
+	 */
+	@Override
+	public void process() {
+		MAP.processRequests(REQUEST_MANAGER.takeAdmissionBatch());
+	}
+
+}
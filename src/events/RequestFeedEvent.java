@@ -0,0 +1,84 @@
+package events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import requests.Request;
+import requests.RequestFeed;
+import requests.RequestFeed.FeedRecord;
+import requests.RequestManager;
+import simulation.Map;
+
+/**
+ * Represents an event of adding a batch of requests from a feed.
+ * The event repeats every interval until the feed ends.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class RequestFeedEvent extends AEvent {
+
+	/** Priority, before receiving requests, so the fed requests can be received at the same time. */
+	private static final int PRIORITY = 11;
+
+	/** Time the idle simulation waits for the feed in milliseconds. */
+	private static final long IDLE_WAIT_MILLIS = 100;
+
+	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
+
+	private static final RequestManager REQUEST_MANAGER = RequestManager.getInstance();
+
+	private static final Map MAP = Map.getInstance();
+
+	private final RequestFeed feed;
+
+	private final double interval;
+
+	/**
+	 * Constructs an event of adding a batch of requests from a feed.
+	 * @param time Time of adding the batch.
+	 * @param feed Feed of requests.
+	 * @param interval Time between two batches.
+	 */
+	public RequestFeedEvent(double time, RequestFeed feed, double interval) {
+		super(time, PRIORITY);
+		this.feed = feed;
+		this.interval = interval;
+	}
+
+	/**
+	 * Adds the requests read from the feed so far, requests from the past are received now.
+	 * If there is nothing else to simulate, waits for the feed for a while,
+	 * so that the simulation time does not run away from the feed.
+	 * Schedules the next batch or tests the simulation end when the feed has ended.
+	 */
+	@Override
+	public void process() {
+		List<FeedRecord> records = new ArrayList<FeedRecord>();
+		feed.drainTo(records);
+		if(records.isEmpty() && REQUEST_MANAGER.isIdle()) {
+			FeedRecord record = feed.poll(IDLE_WAIT_MILLIS);
+			if(record != null) {
+				records.add(record);
+				feed.drainTo(records);
+			}
+		}
+
+		for(FeedRecord record : records) {
+			if(record.oasisIndex < 0 || record.oasisIndex >= MAP.getOasisCount()
+					|| record.basketCount <= 0 || record.deliveryTime < 0) {
+				System.out.println("Request feed: invalid request skipped: " + (record.oasisIndex + 1) + " " + record.basketCount);
+				continue;
+			}
+			REQUEST_MANAGER.addRequest(new Request(Math.max(record.requestTime, time), record.oasisIndex,
+					record.basketCount, record.deliveryTime));
+		}
+
+		if(feed.isFinished()) {
+			REQUEST_MANAGER.testSimulationEnd();
+		} else {
+			EVENT_MANAGER.addEvent(new RequestFeedEvent(time + interval, feed, interval));
+		}
+	}
+
+}
@@ -1,6 +1,7 @@
 package events;
 
 import requests.Request;
+import requests.RequestManager;
 import simulation.Map;
 
 /**
@@ -13,10 +14,15 @@ public class RequestReceiveEvent extends ARequestEvent {
 	
 	private static final int PRIORITY = 10;
 	
+	/** Whether the requests received at the same time should be processed together */
+	private static boolean batchAdmission = false;
+	
 	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
 	
 	private static final Map MAP = Map.getInstance();
 	
+	private static final RequestManager REQUEST_MANAGER = RequestManager.getInstance();
+	
 	/**
 	 * Constructs an event of receiving a request.
 	 * @param time Time of receiving the request.
@@ -27,15 +33,38 @@ public class RequestReceiveEvent extends ARequestEvent {
 	}
 
 	/**
-	 * Tries to process the request.
+	 * Sets whether the requests received at the same time should be processed together.
+	 * @param batch Whether the requests should be admitted in batches.
+	 */
+	public static void setBatchAdmission(boolean batch) {
+		batchAdmission = batch;
+	}
+
+	/**
+	 * Returns whether the requests received at the same time are processed together.
+	 * @return True, if the requests are admitted in batches.
+	 */
+	public static boolean isBatchAdmission() {
+		return batchAdmission;
+	}
+
+	/**
+	 * Tries to process the request, together with the requests received at the same time in the batch admission.
+	 * Lets the request manager add the next request of the input.
 	 */
 	@Override
 	public void process() {
+		REQUEST_MANAGER.requestReceived(request);
+		
 		RequestFailEvent requestFailEvent = new RequestFailEvent(EVENT_MANAGER.getSimulationTime() + request.getDeliveryTime(), request);
 		request.setRequestFailEvent(requestFailEvent);
 		EVENT_MANAGER.addEvent(requestFailEvent);
 		
-		MAP.processRequest(request);
+		if(batchAdmission) {
+			REQUEST_MANAGER.addToAdmissionBatch(request);
+		} else {
+			MAP.processRequest(request);
+		}
 	}
 
 }
@@ -52,11 +52,18 @@ public class SimulationEndEvent extends AEvent {
 			requestCount++;
 			sumBaskets += r.getBasketCount();
 		}
+		//Requests of the input not queued yet count too, though the simulation ends only after all are received
+		requestCount += RequestManager.getInstance().getUnqueuedRequestCount();
+		sumBaskets += RequestManager.getInstance().getUnqueuedBasketCount();
 		
 		System.out.println("\nPocet dorucenych kosu: " + Simulation.basketsDelivered + " / " + sumBaskets);
 		System.out.println("Pocet obslouzenych pozadavku: " + Simulation.requestsFulfilled + " / " + requestCount);
 		System.out.println("Pocet pouzitych velbloudu: " + Camel.getTotalCamelCount());
 		System.out.printf("Doba behu: %.1f s\n" , (System.nanoTime() - Simulation.startTime)*1e-9);
+		String pathCalculatorReport = simulation.Map.getInstance().getPathCalculatorReport();
+		if(!pathCalculatorReport.isEmpty()) {
+			System.out.println(pathCalculatorReport);
+		}
 		
 		Statistics.getInstance().generateStatistics();
 		System.exit(0);
@@ -0,0 +1,28 @@
+package loader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Source of the consecutive chunks of a streamed input
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public interface ChunkSource extends AutoCloseable {
+
+	/**
+	 * Returns the next chunk of the input, waits for it if it is not ready yet
+	 *
+	 * @return Next chunk with the bytes between its position and limit, null at the end of the input
+	 * @throws java.io.UncheckedIOException If reading the input failed.
+	 */
+	ByteBuffer nextChunk();
+
+	/**
+	 * Stops reading the input, the following chunks are not needed, e.g. when parsing failed
+	 * Then there are no more chunks
+	 */
+	@Override
+	void close();
+
+}
@@ -0,0 +1,136 @@
+package loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Source of the chunks of a gzip compressed input
+ * The input is decompressed by a separate thread, so that the decompression overlaps with the parsing,
+ * at most a few chunks are decompressed ahead, the whole decompressed input is never in memory
+ * Closing the source stops the decompression thread, even when it waits for the parsing to take a chunk
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class GzipChunkSource implements ChunkSource {
+
+	/** Size of a decompressed chunk */
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	/** Maximal number of chunks decompressed ahead of the parsing */
+	private static final int CHUNKS_AHEAD = 4;
+
+	/** Size of the buffer of the compressed input */
+	private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+	/** Chunk marking the end of the input */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private final Path file;
+
+	private final Thread decompressor;
+
+	private final BlockingQueue<ByteBuffer> chunks = new ArrayBlockingQueue<ByteBuffer>(CHUNKS_AHEAD);
+
+	/** Failure of the decompression, reported after the chunks decompressed before it */
+	private volatile IOException failure;
+
+	/** Whether the end of the input was already returned */
+	private boolean ended = false;
+
+	/** Whether the source was closed, no more chunks are decompressed then */
+	private volatile boolean closed = false;
+
+	/**
+	 * Constructs the source and starts the decompression thread
+	 *
+	 * @param file Gzip compressed file.
+	 */
+	public GzipChunkSource(Path file) {
+		this.file = file;
+		decompressor = new Thread(this::decompress, "gzip-decompressor");
+		decompressor.setDaemon(true);
+		decompressor.start();
+	}
+
+	/**
+	 * Returns the next decompressed chunk, waits for the decompression thread if it is not ready yet
+	 *
+	 * @return Next chunk, null at the end of the input
+	 * @throws UncheckedIOException If the decompression failed.
+	 */
+	@Override
+	public ByteBuffer nextChunk() {
+		if (ended || closed) {
+			return null;
+		}
+
+		ByteBuffer chunk;
+		try {
+			chunk = chunks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted while decompressing " + file));
+		}
+
+		if (chunk == END) {
+			ended = true;
+			if (failure != null) {
+				throw new UncheckedIOException(failure);
+			}
+			return null;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Stops the decompression thread and drops the chunks decompressed ahead
+	 * The thread closes the input when it stops
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		decompressor.interrupt();
+		chunks.clear();
+	}
+
+	/**
+	 * Decompresses the input into the chunks, concatenated gzip members are read as one input
+	 * Stops when the source is closed, its interruption ends the waiting for a free place in the queue
+	 */
+	private void decompress() {
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file), INPUT_BUFFER_SIZE)) {
+			while (!closed) {
+				byte[] chunk = new byte[CHUNK_SIZE];
+				int read = in.readNBytes(chunk, 0, CHUNK_SIZE);
+				if (read > 0) {
+					chunks.put(ByteBuffer.wrap(chunk, 0, read));
+				}
+				if (read < CHUNK_SIZE) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			failure = new IOException("Failed to decompress " + file + ": " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			failure = new InterruptedIOException("Interrupted while decompressing " + file);
+		} finally {
+			try {
+				if (!closed) {
+					chunks.put(END);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -1,185 +1,179 @@
 package loader;
 
-import java.util.Iterator;
+import java.util.stream.IntStream;
 
 import camels.CamelType;
-import path_calculation.Path;
-import requests.Request;
-import simulation.Coordinates;
-import simulation.Oasis;
-import simulation.Warehouse;
+import simulation.LoadProfiler;
 
 /**
- * Provides useful methods for loading parsed data
+ * Provides useful methods for loading parsed data into a scenario
+ * Numbers are read straight from the tokenizer without intermediate strings,
+ * values of large path and request sections are found and parsed in parallel chunks,
+ * unless the input is streamed, then the values are parsed as they come
  * 
  * @author Stanislav Kafara, Jakub Krizanovsky
- * @version 1 06-10-22
+ * @version 2 18-10-26
  */
 public class Loader {
 	
-	private Loader() {}
+	/** Minimum number of elements of a section for its chunks to be parsed in parallel */
+	private static final int MIN_PARALLEL_SECTION_SIZE = 16384;
 	
-	/**
-	 * String to int conversion
-	 * 
-	 * @param s String
-	 * @return int
-	 */
-	private static int s2i(String s) {
-		return Integer.parseInt(s);
-	}
+	/** Number of elements of a section in one chunk */
+	private static final int SECTION_CHUNK_SIZE = 4096;
 	
-	/**
-	 * String to double conversion
-	 * 
-	 * @param s String
-	 * @return double
-	 */
-	private static double s2d(String s) {
-		return Double.parseDouble(s);
-	}
+	private static final LoadProfiler LOAD_PROFILER = LoadProfiler.getInstance();
+	
+	private Loader() {}
 	
 	/**
-	 * Loads a warehouse.
-	 * @param iter Parsed data iterator pointing to a warehouse definition
-	 * @return Warehouse
-	 */
-	private static Warehouse loadWarehouse(Iterator<String> iter) {
-		return new Warehouse(
-				new Coordinates(s2d(iter.next()), s2d(iter.next())),
-				s2i(iter.next()),
-				s2i(iter.next()),
-				s2i(iter.next())
-		);
-	}
-
-	/**
-	 * Loads warehouses.
-	 * @param iter Parsed data iterator pointing to warehouses definitions
-	 * @return Array of warehouses
+	 * Loads the whole scenario.
+	 * @param tokenizer Tokenizer pointing to the beginning of the input
+	 * @return Scenario
 	 */
-	public static Warehouse[] loadWarehouses(Iterator<String> iter) {
-		int count = s2i(iter.next());
-		Warehouse[] warehouses = new Warehouse[count];
+	public static Scenario loadScenario(Tokenizer tokenizer) {
+		int warehouseCount = tokenizer.nextInt();
+		double[] warehouseXs = new double[warehouseCount];
+		double[] warehouseYs = new double[warehouseCount];
+		int[] basketRefillCounts = new int[warehouseCount];
+		double[] basketRefillTimes = new double[warehouseCount];
+		double[] basketManipulationTimes = new double[warehouseCount];
+		for (int i = 0; i < warehouseCount; i++) {
+			warehouseXs[i] = tokenizer.nextDouble();
+			warehouseYs[i] = tokenizer.nextDouble();
+			basketRefillCounts[i] = tokenizer.nextInt();
+			basketRefillTimes[i] = tokenizer.nextInt();
+			basketManipulationTimes[i] = tokenizer.nextInt();
+		}
+		LOAD_PROFILER.endPhase("warehouses");
 		
-		for (int i = 0; i < count; i++) {
-			warehouses[i] = loadWarehouse(iter);
+		int oasisCount = tokenizer.nextInt();
+		double[] oasisXs = new double[oasisCount];
+		double[] oasisYs = new double[oasisCount];
+		for (int i = 0; i < oasisCount; i++) {
+			oasisXs[i] = tokenizer.nextDouble();
+			oasisYs[i] = tokenizer.nextDouble();
 		}
+		LOAD_PROFILER.endPhase("oases");
 		
-		return warehouses;
-	}
-	
-	/**
-	 * Loads an oasis.
-	 * @param iter Parsed data iterator pointing to a oasis definition
-	 * @return Oasis
-	 */
-	private static Oasis loadOasis(Iterator<String> iter) {
-		return new Oasis(
-				new Coordinates(s2d(iter.next()), s2d(iter.next()))
-		);
-	}
-	
-	/**
-	 * Loads oases.
-	 * @param iter Parsed data iterator pointing to oases definitions
-	 * @return Array of oases
-	 */
-	public static Oasis[] loadOases(Iterator<String> iter) {
-		int count = s2i(iter.next());
-		Oasis[] oases = new Oasis[count];
+		int[] pathEndpoints = loadPaths(tokenizer);
+		LOAD_PROFILER.endPhase("paths");
+		CamelType[] camelTypes = loadCamelTypes(tokenizer);
+		LOAD_PROFILER.endPhase("camel types");
 		
-		for (int i = 0; i < count; i++) {
-			oases[i] = loadOasis(iter);
-		}
+		int requestCount = tokenizer.nextInt();
+		double[] requestTimes = new double[requestCount];
+		int[] requestOasisIndices = new int[requestCount];
+		int[] requestBasketCounts = new int[requestCount];
+		double[] requestDeliveryTimes = new double[requestCount];
+		loadRequests(tokenizer, requestTimes, requestOasisIndices, requestBasketCounts, requestDeliveryTimes);
+		LOAD_PROFILER.endPhase("requests");
 		
-		return oases;
-	}
-	
-	/**
-	 * Loads a path.
-	 * @param iter Parsed data iterator pointing to a path definition
-	 * @return Path
-	 */
-	private static Path loadPath(Iterator<String> iter) {
-		return new Path(s2i(iter.next()) - 1, s2i(iter.next()) - 1);
+		return new Scenario(warehouseXs, warehouseYs, basketRefillCounts, basketRefillTimes, basketManipulationTimes,
+				oasisXs, oasisYs, pathEndpoints, false, camelTypes,
+				requestTimes, requestOasisIndices, requestBasketCounts, requestDeliveryTimes);
 	}
 	
 	/**
 	 * Loads paths.
-	 * @param iter Parsed data iterator pointing to paths definitions
-	 * @return Array of paths
+	 * @param tokenizer Tokenizer pointing to paths definitions
+	 * @return Node indices of the path ends, path k connects nodes endpoints[2k] and endpoints[2k + 1]
 	 */
-	public static Path[] loadPaths(Iterator<String> iter) {
-		int count = s2i(iter.next());
-		Path[] paths = new Path[count];
-		
-		for (int i = 0; i < count; i++) {
-			paths[i] = loadPath(iter);
+	private static int[] loadPaths(Tokenizer tokenizer) {
+		int count = tokenizer.nextInt();
+		int[] endpoints = new int[2 * count];
+		if (!tokenizer.holdsWholeInput()) {
+			for (int i = 0; i < endpoints.length; i++) {
+				endpoints[i] = tokenizer.nextInt() - 1;
+			}
+			return endpoints;
 		}
 		
-		return paths;
+		int[] ranges = tokenizer.nextRanges(2 * count);
+		chunks(count).forEach(chunk -> {
+			int end = 2 * Math.min(count, (chunk + 1) * SECTION_CHUNK_SIZE);
+			for (int i = 2 * chunk * SECTION_CHUNK_SIZE; i < end; i++) {
+				endpoints[i] = tokenizer.parseInt(ranges[2 * i], ranges[2 * i + 1]) - 1;
+			}
+		});
+		
+		return endpoints;
 	}
 	
 	/**
 	 * Loads a camel type.
-	 * @param iter Parsed data iterator pointing to a camel type definition
+	 * @param tokenizer Tokenizer pointing to a camel type definition
 	 * @return Camel type
 	 */
-	private static CamelType loadCamelType(Iterator<String> iter) {
+	private static CamelType loadCamelType(Tokenizer tokenizer) {
 		return new CamelType(
-				iter.next(),
-				s2d(iter.next()), s2d(iter.next()), // min, max speed
-				s2d(iter.next()), s2d(iter.next()), // min, max distance
-				s2d(iter.next()), s2i(iter.next()),
-				s2d(iter.next())
+				tokenizer.nextString(),
+				tokenizer.nextDouble(), tokenizer.nextDouble(), // min, max speed
+				tokenizer.nextDouble(), tokenizer.nextDouble(), // min, max distance
+				tokenizer.nextDouble(), tokenizer.nextInt(),
+				tokenizer.nextDouble()
 		);
 	}
 	
 	/**
 	 * Loads camel types.
-	 * @param iter Parsed data iterator pointing to camel types definitions
+	 * @param tokenizer Tokenizer pointing to camel types definitions
 	 * @return Array of camel types
 	 */
-	public static CamelType[] loadCamelTypes(Iterator<String> iter) {
-		int count = s2i(iter.next());
+	private static CamelType[] loadCamelTypes(Tokenizer tokenizer) {
+		int count = tokenizer.nextInt();
 		CamelType[] camelTypes = new CamelType[count];
 		
 		for (int i = 0; i < count; i++) {
-			camelTypes[i] = loadCamelType(iter);
+			camelTypes[i] = loadCamelType(tokenizer);
 		}
 		
 		return camelTypes;
 	}
 	
 	/**
-	 * Loads a request.
-	 * @param iter Parsed data iterator pointing to a request definition
-	 * @return Request
+	 * Loads requests into the columns.
+	 * @param tokenizer Tokenizer pointing to the first request definition
+	 * @param requestTimes Times of the requests.
+	 * @param oasisIndices Oasis indices of the requests.
+	 * @param basketCounts Basket counts of the requests.
+	 * @param deliveryTimes Delivery times of the requests.
 	 */
-	private static Request loadRequest(Iterator<String> iter) {
-		return new Request(
-				s2d(iter.next()),
-				s2i(iter.next()) - 1,
-				s2i(iter.next()),
-				s2d(iter.next())
-		);
+	private static void loadRequests(Tokenizer tokenizer, double[] requestTimes, int[] oasisIndices, int[] basketCounts, double[] deliveryTimes) {
+		int count = requestTimes.length;
+		if (!tokenizer.holdsWholeInput()) {
+			for (int i = 0; i < count; i++) {
+				requestTimes[i] = tokenizer.nextDouble();
+				oasisIndices[i] = tokenizer.nextInt() - 1;
+				basketCounts[i] = tokenizer.nextInt();
+				deliveryTimes[i] = tokenizer.nextDouble();
+			}
+			return;
+		}
+		
+		int[] ranges = tokenizer.nextRanges(4 * count);
+		
+		chunks(count).forEach(chunk -> {
+			int end = Math.min(count, (chunk + 1) * SECTION_CHUNK_SIZE);
+			for (int i = chunk * SECTION_CHUNK_SIZE; i < end; i++) {
+				int r = 8 * i;
+				requestTimes[i] = tokenizer.parseDouble(ranges[r], ranges[r + 1]);
+				oasisIndices[i] = tokenizer.parseInt(ranges[r + 2], ranges[r + 3]) - 1;
+				basketCounts[i] = tokenizer.parseInt(ranges[r + 4], ranges[r + 5]);
+				deliveryTimes[i] = tokenizer.parseDouble(ranges[r + 6], ranges[r + 7]);
+			}
+		});
 	}
 	
 	/**
-	 * Loads requests.
-	 * @param iter Parsed data iterator pointing to requests definitions
-	 * @return Array of requests
+	 * Returns the indices of the chunks of a section, parallel for large sections.
+	 * Chunk c consists of the elements c * SECTION_CHUNK_SIZE up to the next chunk.
+	 * @param count Number of elements of the section.
+	 * @return Stream of the chunk indices
 	 */
-	public static Request[] loadRequests(Iterator<String> iter) {
-		int count = s2i(iter.next());
-		Request[] requests = new Request[count];
-		
-		for (int i = 0; i < count; i++) {
-			requests[i] = loadRequest(iter);
-		}
-		
-		return requests;
+	private static IntStream chunks(int count) {
+		IntStream chunks = IntStream.range(0, (count + SECTION_CHUNK_SIZE - 1) / SECTION_CHUNK_SIZE);
+		return count >= MIN_PARALLEL_SECTION_SIZE ? chunks.parallel() : chunks;
 	}
 	
 }
@@ -0,0 +1,164 @@
+package loader;
+
+import camels.CamelType;
+import requests.RequestSource;
+import simulation.Coordinates;
+import simulation.Oasis;
+import simulation.Warehouse;
+
+/**
+ * Scenario data as loaded from a file, stored in primitive columns
+ * The simulation objects are created from it only when the scenario is put into the simulation,
+ * so a scenario can be loaded just to be converted without affecting their indices
+ * 
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class Scenario {
+	
+	/** X coordinates of the warehouses */
+	public final double[] warehouseXs;
+	/** Y coordinates of the warehouses */
+	public final double[] warehouseYs;
+	/** Number of baskets refilled in the warehouses at once */
+	public final int[] basketRefillCounts;
+	/** Times between the basket refills of the warehouses */
+	public final double[] basketRefillTimes;
+	/** Times of loading or unloading a basket in the warehouses */
+	public final double[] basketManipulationTimes;
+	
+	/** X coordinates of the oases */
+	public final double[] oasisXs;
+	/** Y coordinates of the oases */
+	public final double[] oasisYs;
+	
+	/** Node indices of the path ends, path k connects nodes pathEndpoints[2k] and pathEndpoints[2k + 1] */
+	public final int[] pathEndpoints;
+	/** Whether the paths are already preprocessed (deduplicated, without loops and too long paths) */
+	public final boolean pathsPreprocessed;
+	
+	/** Camel types */
+	public final CamelType[] camelTypes;
+	
+	/** Times of the requests */
+	public final double[] requestTimes;
+	/** Oasis indices of the requests */
+	public final int[] requestOasisIndices;
+	/** Basket counts of the requests */
+	public final int[] requestBasketCounts;
+	/** Delivery times of the requests */
+	public final double[] requestDeliveryTimes;
+	
+	/**
+	 * Constructs a scenario.
+	 * @param warehouseXs X coordinates of the warehouses.
+	 * @param warehouseYs Y coordinates of the warehouses.
+	 * @param basketRefillCounts Number of baskets refilled in the warehouses at once.
+	 * @param basketRefillTimes Times between the basket refills of the warehouses.
+	 * @param basketManipulationTimes Times of loading or unloading a basket in the warehouses.
+	 * @param oasisXs X coordinates of the oases.
+	 * @param oasisYs Y coordinates of the oases.
+	 * @param pathEndpoints Node indices of the path ends, two per path.
+	 * @param pathsPreprocessed Whether the paths are already preprocessed.
+	 * @param camelTypes Camel types.
+	 * @param requestTimes Times of the requests.
+	 * @param requestOasisIndices Oasis indices of the requests.
+	 * @param requestBasketCounts Basket counts of the requests.
+	 * @param requestDeliveryTimes Delivery times of the requests.
+	 */
+	public Scenario(double[] warehouseXs, double[] warehouseYs, int[] basketRefillCounts,
+			double[] basketRefillTimes, double[] basketManipulationTimes,
+			double[] oasisXs, double[] oasisYs,
+			int[] pathEndpoints, boolean pathsPreprocessed,
+			CamelType[] camelTypes,
+			double[] requestTimes, int[] requestOasisIndices, int[] requestBasketCounts, double[] requestDeliveryTimes) {
+		this.warehouseXs = warehouseXs;
+		this.warehouseYs = warehouseYs;
+		this.basketRefillCounts = basketRefillCounts;
+		this.basketRefillTimes = basketRefillTimes;
+		this.basketManipulationTimes = basketManipulationTimes;
+		this.oasisXs = oasisXs;
+		this.oasisYs = oasisYs;
+		this.pathEndpoints = pathEndpoints;
+		this.pathsPreprocessed = pathsPreprocessed;
+		this.camelTypes = camelTypes;
+		this.requestTimes = requestTimes;
+		this.requestOasisIndices = requestOasisIndices;
+		this.requestBasketCounts = requestBasketCounts;
+		this.requestDeliveryTimes = requestDeliveryTimes;
+	}
+	
+	/**
+	 * Returns a copy of the scenario with other paths.
+	 * @param pathEndpoints Node indices of the path ends, two per path.
+	 * @param pathsPreprocessed Whether the paths are already preprocessed.
+	 * @return Scenario with the paths.
+	 */
+	public Scenario withPaths(int[] pathEndpoints, boolean pathsPreprocessed) {
+		return new Scenario(warehouseXs, warehouseYs, basketRefillCounts, basketRefillTimes, basketManipulationTimes,
+				oasisXs, oasisYs, pathEndpoints, pathsPreprocessed, camelTypes,
+				requestTimes, requestOasisIndices, requestBasketCounts, requestDeliveryTimes);
+	}
+	
+	/**
+	 * Returns the X coordinates of all nodes, warehouses first.
+	 * @return X coordinates of the nodes by node index.
+	 */
+	public double[] getNodeXs() {
+		return concat(warehouseXs, oasisXs);
+	}
+	
+	/**
+	 * Returns the Y coordinates of all nodes, warehouses first.
+	 * @return Y coordinates of the nodes by node index.
+	 */
+	public double[] getNodeYs() {
+		return concat(warehouseYs, oasisYs);
+	}
+	
+	/**
+	 * Creates the warehouses.
+	 * @return Warehouses.
+	 */
+	public Warehouse[] createWarehouses() {
+		Warehouse[] warehouses = new Warehouse[warehouseXs.length];
+		for (int i = 0; i < warehouses.length; i++) {
+			warehouses[i] = new Warehouse(
+					new Coordinates(warehouseXs[i], warehouseYs[i]),
+					basketRefillCounts[i],
+					basketRefillTimes[i],
+					basketManipulationTimes[i]
+			);
+		}
+		return warehouses;
+	}
+	
+	/**
+	 * Creates the oases.
+	 * @return Oases.
+	 */
+	public Oasis[] createOases() {
+		Oasis[] oases = new Oasis[oasisXs.length];
+		for (int i = 0; i < oases.length; i++) {
+			oases[i] = new Oasis(new Coordinates(oasisXs[i], oasisYs[i]));
+		}
+		return oases;
+	}
+	
+	/**
+	 * Creates the source of the requests, the requests themselves are created by it when they arrive.
+	 * Their indices are reserved now, so that they follow the order of the input.
+	 * @return Source of the requests.
+	 */
+	public RequestSource createRequestSource() {
+		return new RequestSource(requestTimes, requestOasisIndices, requestBasketCounts, requestDeliveryTimes);
+	}
+	
+	private static double[] concat(double[] first, double[] second) {
+		double[] result = new double[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+	
+}
@@ -0,0 +1,185 @@
+package loader;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import camels.CamelType;
+import path_calculation.IndexBuffers;
+
+/**
+ * Compiled binary scenario format
+ * The file is little endian and consists of:
+ * - header: magic "CWMS", format version (int)
+ * - warehouses: count (int), x, y (double columns), basket refill counts (int column),
+ *   basket refill times, basket manipulation times (double columns)
+ * - oases: count (int), x, y (double columns)
+ * - paths: count (int), endpoints (int column, two 0-based node indices per path),
+ *   the paths are always preprocessed
+ * - camel types: count (int), per type: name length (int), name (UTF-8 bytes),
+ *   min, max speed, min, max distance, drink time (double), max load (int), proportional representation (double)
+ * - requests: count (int), times (double column), oasis indices (0-based int column),
+ *   basket counts (int column), delivery times (double column)
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class ScenarioFile {
+
+	/** Extension of the compiled scenario files */
+	public static final String EXTENSION = ".cwms";
+
+	/** Magic number at the beginning of the file, "CWMS" */
+	private static final int MAGIC = 0x534D5743;
+
+	/** Version of the format */
+	private static final int VERSION = 1;
+
+	private ScenarioFile() {}
+
+	/**
+	 * Writes the scenario into a file in the binary format.
+	 * @param scenario Scenario with preprocessed paths.
+	 * @param fileName File name.
+	 * @throws IOException If there is any problem regarding files.
+	 * @throws IllegalArgumentException If the paths of the scenario are not preprocessed.
+	 */
+	public static void write(Scenario scenario, String fileName) throws IOException {
+		if (!scenario.pathsPreprocessed) {
+			throw new IllegalArgumentException("Paths of a compiled scenario must be preprocessed");
+		}
+
+		byte[][] names = new byte[scenario.camelTypes.length][];
+		long size = 4 + 4
+				+ 4 + 8L * scenario.warehouseXs.length * 4 + 4L * scenario.warehouseXs.length
+				+ 4 + 16L * scenario.oasisXs.length
+				+ 4 + 4L * scenario.pathEndpoints.length
+				+ 4
+				+ 4 + 24L * scenario.requestTimes.length;
+		for (int i = 0; i < names.length; i++) {
+			names[i] = scenario.camelTypes[i].getName().getBytes(StandardCharsets.UTF_8);
+			size += 4 + names[i].length + 6 * 8 + 4;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Scenario too large for the binary format: " + size + " B");
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+
+			buffer.putInt(scenario.warehouseXs.length);
+			IndexBuffers.putDoubles(buffer, scenario.warehouseXs);
+			IndexBuffers.putDoubles(buffer, scenario.warehouseYs);
+			IndexBuffers.putInts(buffer, scenario.basketRefillCounts);
+			IndexBuffers.putDoubles(buffer, scenario.basketRefillTimes);
+			IndexBuffers.putDoubles(buffer, scenario.basketManipulationTimes);
+
+			buffer.putInt(scenario.oasisXs.length);
+			IndexBuffers.putDoubles(buffer, scenario.oasisXs);
+			IndexBuffers.putDoubles(buffer, scenario.oasisYs);
+
+			buffer.putInt(scenario.pathEndpoints.length / 2);
+			IndexBuffers.putInts(buffer, scenario.pathEndpoints);
+
+			buffer.putInt(names.length);
+			for (int i = 0; i < names.length; i++) {
+				CamelType camelType = scenario.camelTypes[i];
+				buffer.putInt(names[i].length);
+				buffer.put(names[i]);
+				buffer.putDouble(camelType.getMinMovementSpeed());
+				buffer.putDouble(camelType.getMaxMovementSpeed());
+				buffer.putDouble(camelType.getMinDistance());
+				buffer.putDouble(camelType.getMaxDistance());
+				buffer.putDouble(camelType.getDrinkTime());
+				buffer.putInt(camelType.getMaxLoad());
+				buffer.putDouble(camelType.getProportionalRepresentation());
+			}
+
+			buffer.putInt(scenario.requestTimes.length);
+			IndexBuffers.putDoubles(buffer, scenario.requestTimes);
+			IndexBuffers.putInts(buffer, scenario.requestOasisIndices);
+			IndexBuffers.putInts(buffer, scenario.requestBasketCounts);
+			IndexBuffers.putDoubles(buffer, scenario.requestDeliveryTimes);
+
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Maps a file in the binary format and reads the scenario from it.
+	 * @param fileName File name.
+	 * @return Scenario with preprocessed paths.
+	 * @throws IOException If there is any problem regarding files or the file is not in the binary format.
+	 */
+	public static Scenario read(String fileName) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File too large to be mapped: " + fileName);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a compiled scenario: " + fileName);
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported compiled scenario version " + version + ": " + fileName);
+			}
+
+			int warehouseCount = buffer.getInt();
+			double[] warehouseXs = IndexBuffers.getDoubles(buffer, warehouseCount);
+			double[] warehouseYs = IndexBuffers.getDoubles(buffer, warehouseCount);
+			int[] basketRefillCounts = IndexBuffers.getInts(buffer, warehouseCount);
+			double[] basketRefillTimes = IndexBuffers.getDoubles(buffer, warehouseCount);
+			double[] basketManipulationTimes = IndexBuffers.getDoubles(buffer, warehouseCount);
+
+			int oasisCount = buffer.getInt();
+			double[] oasisXs = IndexBuffers.getDoubles(buffer, oasisCount);
+			double[] oasisYs = IndexBuffers.getDoubles(buffer, oasisCount);
+
+			int pathCount = buffer.getInt();
+			int[] pathEndpoints = IndexBuffers.getNodeIndices(buffer, 2 * pathCount, warehouseCount + oasisCount, false);
+
+			CamelType[] camelTypes = new CamelType[buffer.getInt()];
+			for (int i = 0; i < camelTypes.length; i++) {
+				byte[] name = new byte[buffer.getInt()];
+				buffer.get(name);
+				camelTypes[i] = new CamelType(
+						new String(name, StandardCharsets.UTF_8),
+						buffer.getDouble(), buffer.getDouble(), // min, max speed
+						buffer.getDouble(), buffer.getDouble(), // min, max distance
+						buffer.getDouble(), buffer.getInt(),
+						buffer.getDouble()
+				);
+			}
+
+			int requestCount = buffer.getInt();
+			double[] requestTimes = IndexBuffers.getDoubles(buffer, requestCount);
+			int[] requestOasisIndices = IndexBuffers.getInts(buffer, requestCount);
+			int[] requestBasketCounts = IndexBuffers.getInts(buffer, requestCount);
+			double[] requestDeliveryTimes = IndexBuffers.getDoubles(buffer, requestCount);
+
+			return new Scenario(warehouseXs, warehouseYs, basketRefillCounts, basketRefillTimes, basketManipulationTimes,
+					oasisXs, oasisYs, pathEndpoints, true, camelTypes,
+					requestTimes, requestOasisIndices, requestBasketCounts, requestDeliveryTimes);
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("Truncated or corrupted compiled scenario: " + fileName, e);
+		}
+	}
+
+}
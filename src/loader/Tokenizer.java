@@ -0,0 +1,669 @@
+package loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Tokenizer walks the UTF-8 encoded input in a single pass
+ * and finds the values as ranges of the byte buffer
+ * Values are separated by whitespaces and comment blocks,
+ * comment blocks begin with the Dromedary Camel character, end with the Desert character
+ * and can be nested
+ * The input is either one buffer holding the whole input, or it is streamed in chunks,
+ * then an unfinished value or character at the end of a chunk is carried over to the next one
+ * and the positions of a value are valid only until the tokenizer moves on
+ * A tokenizer of a streamed input has to be closed, so that the streaming stops when parsing fails
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class Tokenizer implements AutoCloseable {
+
+	/** UTF-8 encoding of the comment begin character (Dromedary Camel, U+1F42A) */
+	private static final int COMMENT_BEGIN_BYTES = 0xF09F90AA;
+
+	/** UTF-8 encoding of the comment end character (Desert, U+1F3DC) */
+	private static final int COMMENT_END_BYTES = 0xF09F8F9C;
+
+	/** Largest integer all smaller integers of are exactly representable by a double (2^53) */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/** Exactly representable powers of ten */
+	private static final double[] EXACT_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/** Minimum number of values for their ranges to be found in parallel */
+	private static final int MIN_PARALLEL_RANGE_COUNT = 1 << 16;
+
+	/** Number of bytes of the input scanned for the ranges by one task, a chunk ends at the next whitespace after them */
+	private static final int SCAN_CHUNK_BYTES = 1 << 16;
+
+	/** Estimated number of input bytes per value including the separators, before any value is found */
+	private static final int ESTIMATED_BYTES_PER_VALUE = 6;
+
+	/** Input bytes, the current chunk of a streamed input */
+	private ByteBuffer buffer;
+
+	/** Number of input bytes */
+	private int bufferEnd;
+
+	/**
+	 * Position up to which values are looked for, equal to the buffer end, unless more chunks of a streamed input follow,
+	 * then the longest UTF-8 sequence beginning before it ends in the buffer
+	 */
+	private int limit;
+
+	/** Source of the following chunks of a streamed input, null if there are no more chunks */
+	private ChunkSource source;
+
+	/** Whether the input is streamed in chunks */
+	private final boolean streamed;
+
+	/** Position of the first byte not yet processed */
+	private int position;
+
+	/** Position of the first byte of the current value */
+	private int tokenStart = -1;
+
+	/** Position after the last byte of the current value */
+	private int tokenEnd = -1;
+
+	/**
+	 * Constructs a tokenizer of the buffer content from its position to its limit
+	 *
+	 * @param buffer Buffer with UTF-8 encoded input.
+	 */
+	public Tokenizer(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.position = buffer.position();
+		this.bufferEnd = buffer.limit();
+		this.limit = bufferEnd;
+		this.streamed = false;
+	}
+
+	/**
+	 * Constructs a tokenizer of a streamed input
+	 *
+	 * @param source Source of the chunks of the UTF-8 encoded input.
+	 */
+	public Tokenizer(ChunkSource source) {
+		this.buffer = ByteBuffer.allocate(0);
+		this.position = 0;
+		this.bufferEnd = 0;
+		this.limit = 0;
+		this.source = source;
+		this.streamed = true;
+	}
+
+	/**
+	 * Returns whether the whole input is in one buffer,
+	 * so that the ranges of the values stay valid and can be parsed at any time
+	 *
+	 * @return True, if the input is not streamed, False otherwise
+	 */
+	public boolean holdsWholeInput() {
+		return !streamed;
+	}
+
+	/**
+	 * Stops the streaming of the input, if it is streamed and not read to its end yet
+	 * There are no more values after the ones already read then
+	 */
+	@Override
+	public void close() {
+		if (source != null) {
+			source.close();
+			source = null;
+			limit = bufferEnd;
+		}
+	}
+
+	/**
+	 * Returns whether there is any more value
+	 * Skips the whitespaces and comment blocks preceding the next value
+	 *
+	 * @return True, if there is any more value, False otherwise
+	 */
+	public boolean hasNext() {
+		skipSeparators();
+		return position < limit || readChunks(false);
+	}
+
+	/**
+	 * Moves to the next value
+	 *
+	 * @throws NoSuchElementException If there is no more value.
+	 */
+	public void next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		tokenStart = position;
+		while (position < limit || readChunks(true)) {
+			int length = sequenceLength(position);
+			if (isWhitespace(position, length) || isCommentBegin(position, length)) {
+				break; // separator ends the value, it is skipped by the next hasNext
+			}
+			position += length;
+		}
+		tokenEnd = position;
+	}
+
+	/**
+	 * Returns the position of the first byte of the current value
+	 *
+	 * @return Position of the first byte of the current value
+	 */
+	public int getTokenStart() {
+		return tokenStart;
+	}
+
+	/**
+	 * Returns the position after the last byte of the current value
+	 *
+	 * @return Position after the last byte of the current value
+	 */
+	public int getTokenEnd() {
+		return tokenEnd;
+	}
+
+	/**
+	 * Returns the byte of the input at the position
+	 *
+	 * @param index Position.
+	 * @return Byte of the input at the position
+	 */
+	public byte byteAt(int index) {
+		return buffer.get(index);
+	}
+
+	/**
+	 * Returns the current value as a string
+	 *
+	 * @return Current value
+	 */
+	public String getTokenString() {
+		return getString(tokenStart, tokenEnd);
+	}
+
+	/**
+	 * Returns the value in the range of the input as a string
+	 *
+	 * @param start Position of the first byte of the value.
+	 * @param end Position after the last byte of the value.
+	 * @return Value
+	 */
+	public String getString(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Moves over the given number of values and returns their ranges
+	 * The values can then be parsed independently, also in parallel
+	 * Many values are found in parallel, see {@link #nextRangesParallel(int)}
+	 *
+	 * @param count Number of values.
+	 * @return Ranges of the values, value k is in [ranges[2k], ranges[2k + 1])
+	 * @throws NoSuchElementException If there are not enough values.
+	 * @throws IllegalStateException If the input is streamed.
+	 */
+	public int[] nextRanges(int count) {
+		if (streamed) {
+			throw new IllegalStateException("Ranges of a streamed input do not stay valid");
+		}
+		if (count >= MIN_PARALLEL_RANGE_COUNT && ForkJoinPool.getCommonPoolParallelism() > 1) {
+			return nextRangesParallel(count);
+		}
+		int[] ranges = new int[2 * count];
+		for (int k = 0; k < count; k++) {
+			next();
+			ranges[2 * k] = tokenStart;
+			ranges[2 * k + 1] = tokenEnd;
+		}
+		return ranges;
+	}
+
+	/**
+	 * Finds the ranges of the given number of values in parallel
+	 * The input following the position is scanned in waves of about the bytes the remaining values are expected in,
+	 * a wave is split into chunks at whitespaces, so no value or character crosses a chunk boundary,
+	 * and the chunks are scanned in parallel as if they began outside any comment block
+	 * The chunks are then taken in order and a chunk that in fact begins inside a comment block is scanned again,
+	 * so the ranges are the same as found by {@link #next()}
+	 *
+	 * @param count Number of values.
+	 * @return Ranges of the values, value k is in [ranges[2k], ranges[2k + 1])
+	 * @throws NoSuchElementException If there are not enough values.
+	 */
+	private int[] nextRangesParallel(int count) {
+		int[] ranges = new int[2 * count];
+		int found = 0;
+		int sectionStart = position;
+		int nestedLevel = 0;
+		while (found < count) {
+			if (position >= bufferEnd) {
+				throw new NoSuchElementException();
+			}
+			double bytesPerValue = found == 0 ? ESTIMATED_BYTES_PER_VALUE : (double) (position - sectionStart) / found;
+			//An eighth more than expected, so that the values usually end within the first wave
+			long waveBytes = Math.max(SCAN_CHUNK_BYTES, (long) ((count - found) * bytesPerValue * 1.125));
+			int[] bounds = splitAtWhitespaces(position, (int) Math.min(bufferEnd, position + waveBytes), SCAN_CHUNK_BYTES);
+
+			int level = nestedLevel;
+			ScannedChunk[] scanned = IntStream.range(0, bounds.length - 1).parallel()
+					.mapToObj(c -> scanChunk(bounds[c], bounds[c + 1], c == 0 ? level : 0))
+					.toArray(ScannedChunk[]::new);
+
+			for (int c = 0; c < scanned.length && found < count; c++) {
+				ScannedChunk chunk = scanned[c];
+				if (chunk.entryLevel != nestedLevel) {
+					chunk = scanChunk(bounds[c], bounds[c + 1], nestedLevel);
+				}
+				int taken = Math.min(count - found, chunk.valueCount);
+				System.arraycopy(chunk.ranges, 0, ranges, 2 * found, 2 * taken);
+				found += taken;
+				nestedLevel = chunk.exitLevel;
+				position = taken < chunk.valueCount ? chunk.ranges[2 * taken - 1] : bounds[c + 1];
+			}
+		}
+
+		tokenStart = ranges[2 * count - 2];
+		tokenEnd = ranges[2 * count - 1];
+		position = tokenEnd;
+		return ranges;
+	}
+
+	/**
+	 * Splits the range of the input into chunks of at least the given size, the range is extended to the next boundary
+	 * A boundary is an ASCII whitespace preceded by three ASCII bytes, so no UTF-8 sequence, even invalid, crosses it
+	 *
+	 * @return Boundaries of the chunks, the first is the start and the last the end of the input or a boundary
+	 */
+	private int[] splitAtWhitespaces(int start, int end, int chunkBytes) {
+		end = nextBoundary(end);
+		int[] bounds = new int[(end - start) / chunkBytes + 2];
+		int count = 0;
+		bounds[count++] = start;
+		for (int index = nextBoundary(start + chunkBytes); index < end; index = nextBoundary(index + chunkBytes)) {
+			bounds[count++] = index;
+		}
+		bounds[count++] = end;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/**
+	 * Returns the first boundary of the chunks from the position on, the end of the input if there is none
+	 */
+	private int nextBoundary(int index) {
+		while (index < bufferEnd && !isBoundary(index)) {
+			index++;
+		}
+		return Math.min(index, bufferEnd);
+	}
+
+	private boolean isBoundary(int index) {
+		return index >= 3 && (buffer.get(index - 3) | buffer.get(index - 2) | buffer.get(index - 1)) >= 0
+				&& buffer.get(index) >= 0 && Character.isWhitespace(buffer.get(index));
+	}
+
+	/**
+	 * Finds the values of a chunk the same way as {@link #skipSeparators()} and {@link #next()}
+	 *
+	 * @param start Position of the first byte of the chunk, not inside a value or a character.
+	 * @param end Position after the last byte of the chunk, not inside a value or a character.
+	 * @param nestedLevel Number of the comment blocks the chunk begins inside.
+	 * @return Ranges of the values of the chunk and the number of the comment blocks it ends inside
+	 */
+	private ScannedChunk scanChunk(int start, int end, int nestedLevel) {
+		int entryLevel = nestedLevel;
+		int[] ranges = new int[64];
+		int valueCount = 0;
+		int index = start;
+		while (index < end) {
+			byte b = buffer.get(index);
+			int length = b >= 0 ? 1 : sequenceLength(index); // ASCII is never a comment character
+			if (b < 0 && isCommentBegin(index, length)) {
+				nestedLevel++;
+			}
+			else if (nestedLevel > 0) {
+				if (b < 0 && isCommentEnd(index, length)) {
+					nestedLevel--;
+				}
+			}
+			else if (b >= 0 ? !Character.isWhitespace(b) : !isWhitespace(index, length)) {
+				if (2 * valueCount == ranges.length) {
+					ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+				}
+				ranges[2 * valueCount] = index;
+				index = findValueEnd(index + length, end);
+				ranges[2 * valueCount + 1] = index;
+				valueCount++;
+				continue;
+			}
+			index += length;
+		}
+		return new ScannedChunk(entryLevel, nestedLevel, ranges, valueCount);
+	}
+
+	/**
+	 * Returns the position after the value continuing at the position, the value ends at a separator or the end
+	 */
+	private int findValueEnd(int index, int end) {
+		while (index < end) {
+			byte b = buffer.get(index);
+			if (b >= 0) {
+				if (Character.isWhitespace(b)) {
+					break;
+				}
+				index++;
+				continue;
+			}
+			int length = sequenceLength(index);
+			if (isWhitespace(index, length) || isCommentBegin(index, length)) {
+				break;
+			}
+			index += length;
+		}
+		return index;
+	}
+
+	/**
+	 * Values found in a chunk of the input
+	 */
+	private static class ScannedChunk {
+
+		/** Number of the comment blocks the chunk was scanned as beginning inside */
+		private final int entryLevel;
+
+		/** Number of the comment blocks the chunk ends inside */
+		private final int exitLevel;
+
+		/** Ranges of the values, value k is in [ranges[2k], ranges[2k + 1]) */
+		private final int[] ranges;
+
+		private final int valueCount;
+
+		private ScannedChunk(int entryLevel, int exitLevel, int[] ranges, int valueCount) {
+			this.entryLevel = entryLevel;
+			this.exitLevel = exitLevel;
+			this.ranges = ranges;
+			this.valueCount = valueCount;
+		}
+
+	}
+
+	/**
+	 * Moves to the next value and returns it as a string
+	 *
+	 * @return Next value
+	 * @throws NoSuchElementException If there is no more value.
+	 */
+	public String nextString() {
+		next();
+		return getTokenString();
+	}
+
+	/**
+	 * Moves to the next value and parses it as an int
+	 * Decimal digits are parsed straight from the input,
+	 * other forms are left to {@link Integer#parseInt(String)}
+	 *
+	 * @return Next value as an int
+	 * @throws NoSuchElementException If there is no more value.
+	 * @throws NumberFormatException If the value is not an int.
+	 */
+	public int nextInt() {
+		next();
+		return parseInt(tokenStart, tokenEnd);
+	}
+
+	/**
+	 * Parses the value in the range of the input as an int
+	 * Decimal digits are parsed straight from the input,
+	 * other forms are left to {@link Integer#parseInt(String)}
+	 *
+	 * @param start Position of the first byte of the value.
+	 * @param end Position after the last byte of the value.
+	 * @return Value as an int
+	 * @throws NumberFormatException If the value is not an int.
+	 */
+	public int parseInt(int start, int end) {
+		int index = start;
+		boolean negative = false;
+		byte b = buffer.get(index);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			index++;
+		}
+		if (index == end || end - index > 9) { // no digit or possible overflow
+			return Integer.parseInt(getString(start, end));
+		}
+
+		int value = 0;
+		for (; index < end; index++) {
+			int digit = buffer.get(index) - '0';
+			if (digit < 0 || digit > 9) {
+				return Integer.parseInt(getString(start, end));
+			}
+			value = 10 * value + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Moves to the next value and parses it as a double
+	 * Values of the form [sign]digits[.digits][e[sign]digits] with at most 2^53 as the digits
+	 * and the decimal exponent within the exactly representable powers of ten
+	 * are computed by a single correctly rounded multiplication or division (Clinger's fast path),
+	 * other forms are left to {@link Double#parseDouble(String)}, so the result is always the same
+	 *
+	 * @return Next value as a double
+	 * @throws NoSuchElementException If there is no more value.
+	 * @throws NumberFormatException If the value is not a double.
+	 */
+	public double nextDouble() {
+		next();
+		return parseDouble(tokenStart, tokenEnd);
+	}
+
+	/**
+	 * Parses the value in the range of the input as a double
+	 * Uses the same fast path and fallback as {@link #nextDouble()}
+	 *
+	 * @param start Position of the first byte of the value.
+	 * @param end Position after the last byte of the value.
+	 * @return Value as a double
+	 * @throws NumberFormatException If the value is not a double.
+	 */
+	public double parseDouble(int start, int end) {
+		int index = start;
+		boolean negative = false;
+		byte b = buffer.get(index);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			index++;
+		}
+
+		long mantissa = 0;
+		int digits = 0; // significant digits in the mantissa
+		int exponent = 0;
+		boolean anyDigit = false;
+		boolean point = false;
+		for (; index < end; index++) {
+			b = buffer.get(index);
+			if (b >= '0' && b <= '9') {
+				anyDigit = true;
+				if (mantissa != 0 || b != '0') {
+					if (++digits > 18) { // would overflow the long
+						return Double.parseDouble(getString(start, end));
+					}
+				}
+				mantissa = 10 * mantissa + (b - '0');
+				if (point) {
+					exponent--;
+				}
+			}
+			else if (b == '.' && !point) {
+				point = true;
+			}
+			else {
+				break;
+			}
+		}
+		if (!anyDigit) {
+			return Double.parseDouble(getString(start, end));
+		}
+
+		if (index < end && (b == 'e' || b == 'E')) {
+			index++;
+			boolean negativeExponent = false;
+			if (index < end && (buffer.get(index) == '-' || buffer.get(index) == '+')) {
+				negativeExponent = buffer.get(index) == '-';
+				index++;
+			}
+			int exponentDigits = 0;
+			int explicitExponent = 0;
+			for (; index < end; index++) {
+				int digit = buffer.get(index) - '0';
+				if (digit < 0 || digit > 9 || ++exponentDigits > 3) {
+					return Double.parseDouble(getString(start, end));
+				}
+				explicitExponent = 10 * explicitExponent + digit;
+			}
+			if (exponentDigits == 0) {
+				return Double.parseDouble(getString(start, end));
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		if (index < end // suffix or another unusual form
+				|| mantissa > MAX_EXACT_MANTISSA
+				|| exponent < -22 || exponent > 22) {
+			return Double.parseDouble(getString(start, end));
+		}
+
+		double value = exponent < 0
+				? mantissa / EXACT_POWERS_OF_TEN[-exponent]
+				: mantissa * EXACT_POWERS_OF_TEN[exponent];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Skips whitespaces and comment blocks
+	 * Unterminated comment block hides the rest of the input
+	 */
+	private void skipSeparators() {
+		int nestedLevel = 0; // times comment begin character was encountered
+		                     // and not resolved with particular end character
+		while (position < limit || readChunks(false)) {
+			int length = sequenceLength(position);
+			if (isCommentBegin(position, length)) {
+				nestedLevel++;
+			}
+			else if (nestedLevel > 0) { // inside comment block
+				if (isCommentEnd(position, length)) {
+					nestedLevel--;
+				}
+			}
+			else if (!isWhitespace(position, length)) {
+				return; // at position begins a value
+			}
+			position += length;
+		}
+	}
+
+	/**
+	 * Reads the next chunks of a streamed input until the position is before the limit or the input ends
+	 *
+	 * @param inValue Whether the position is inside a value, whose bytes have to be kept.
+	 * @return True, if the position is before the limit, False at the end of the input
+	 */
+	private boolean readChunks(boolean inValue) {
+		while (position >= limit && source != null) {
+			readChunk(inValue ? tokenStart : position);
+		}
+		return position < limit;
+	}
+
+	/**
+	 * Reads the next chunk of a streamed input, the bytes from keepFrom on are carried over
+	 */
+	private void readChunk(int keepFrom) {
+		ByteBuffer chunk = source.nextChunk();
+		if (chunk == null) {
+			source = null;
+			limit = bufferEnd;
+			return;
+		}
+
+		int kept = bufferEnd - keepFrom;
+		ByteBuffer joined = ByteBuffer.allocate(kept + chunk.remaining());
+		joined.put(0, buffer, keepFrom, kept);
+		joined.put(kept, chunk, chunk.position(), chunk.remaining());
+		buffer = joined;
+		bufferEnd = joined.capacity();
+		limit = Math.max(0, bufferEnd - 3);
+		position -= keepFrom;
+		tokenStart -= keepFrom;
+		tokenEnd -= keepFrom;
+	}
+
+	/**
+	 * Returns the length of the UTF-8 sequence starting at the position
+	 * Invalid lead bytes and truncated sequences are treated as single bytes
+	 */
+	private int sequenceLength(int index) {
+		int lead = buffer.get(index) & 0xFF;
+		int length;
+		if (lead < 0x80) {
+			return 1;
+		}
+		else if (lead >= 0xF0) {
+			length = 4;
+		}
+		else if (lead >= 0xE0) {
+			length = 3;
+		}
+		else if (lead >= 0xC0) {
+			length = 2;
+		}
+		else {
+			return 1; // continuation byte without a lead byte
+		}
+		return index + length <= bufferEnd ? length : 1;
+	}
+
+	/**
+	 * Returns whether the UTF-8 sequence at the position encodes a whitespace character
+	 */
+	private boolean isWhitespace(int index, int length) {
+		int b0 = buffer.get(index) & 0xFF;
+		switch (length) {
+		case 1:
+			return b0 < 0x80 && Character.isWhitespace(b0);
+		case 2:
+			return Character.isWhitespace(((b0 & 0x1F) << 6) | (buffer.get(index + 1) & 0x3F));
+		case 3:
+			return Character.isWhitespace(((b0 & 0x0F) << 12) | ((buffer.get(index + 1) & 0x3F) << 6) | (buffer.get(index + 2) & 0x3F));
+		default:
+			return false; // no supplementary character is a whitespace
+		}
+	}
+
+	private boolean isCommentBegin(int index, int length) {
+		return length == 4 && buffer.getInt(index) == COMMENT_BEGIN_BYTES;
+	}
+
+	private boolean isCommentEnd(int index, int length) {
+		return length == 4 && buffer.getInt(index) == COMMENT_END_BYTES;
+	}
+
+}
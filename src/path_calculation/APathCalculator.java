@@ -23,5 +23,51 @@ public abstract class APathCalculator {
 	 * @return Descriptor of the shortest path between i and j.
 	 */
 	public abstract PathDescriptor getShortestPath(int i, int j);
+	
+	/**
+	 * Returns the length of the shortest path between i and j.
+	 * Calculators that can tell the distance without the path override this.
+	 * 
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Length of the shortest path between i and j.
+	 */
+	public double getShortestDistance(int i, int j) {
+		return getShortestPath(i, j).distance;
+	}
+	
+	/**
+	 * Returns whether the distance query is much cheaper than the path query.
+	 * 
+	 * @return True, if the distance query is much cheaper than the path query, else false.
+	 */
+	public boolean hasCheapDistance() {
+		return false;
+	}
+	
+	/**
+	 * Returns whether the path queries can be asked from several threads at once
+	 * and are expensive enough for that to pay off.
+	 * 
+	 * @return True, if the path queries should be asked in parallel, else false.
+	 */
+	public boolean supportsParallelQueries() {
+		return false;
+	}
+	
+	/**
+	 * Returns a short report on the work of the calculator.
+	 * 
+	 * @return Report on the work of the calculator, empty if there is nothing to report.
+	 */
+	public String getReport() {
+		return "";
+	}
+	
+	/**
+	 * Forgets the queries counted for the report so far, e.g. the sample queries of the tuner.
+	 */
+	public void resetStatistics() {
+	}
 
 }
@@ -81,9 +81,9 @@ public class AStarPathCalculator extends APathCalculator {
 					if(!contains) {
 						openSet.add(new Entry(neighbor, fScore[neighbor]));
 					}
-					
-					neighborLink = neighborLink.getNext();
 				}
+				
+				neighborLink = neighborLink.getNext();
 			}
 		}
 		
@@ -91,19 +91,31 @@ public class AStarPathCalculator extends APathCalculator {
 		return new PathDescriptor(new LinkedList<>(), Double.POSITIVE_INFINITY, new LinkedList<>());
 	}
 	
+	/**
+	 * Returns true, a query only reads the graph.
+	 * @return True.
+	 */
+	@Override
+	public boolean supportsParallelQueries() {
+		return true;
+	}
+	
 	private PathDescriptor reconstructPath(int[] cameFrom, int currentIndex) {
 		LinkedList<Integer> path = new LinkedList<Integer>();
 		LinkedList<Double> partialDistances = new LinkedList<Double>();
+		double distance = 0;
 		int current = currentIndex;
 		path.add(current);
 		while(cameFrom[current] != -1) {
 			int last = current;
 			current = cameFrom[current];
 			path.addFirst(current);
-			partialDistances.addFirst(nodes[current].getCoords().airDistanceTo(nodes[last].getCoords()));
+			double partialDistance = nodes[current].getCoords().airDistanceTo(nodes[last].getCoords());
+			partialDistances.addFirst(partialDistance);
+			distance += partialDistance;
 		}
 		
-		return new PathDescriptor(new LinkedList<Integer>(), current, new LinkedList<Double>());
+		return new PathDescriptor(path, distance, partialDistances);
 	}
 	
 	private double hCost(int n, int goal) {
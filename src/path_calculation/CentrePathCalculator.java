@@ -60,6 +60,14 @@ public class CentrePathCalculator extends APathCalculator {
 		return new PathDescriptor(path, totalDist, partialDistances);
 	}
 	
+	/**
+	 * Returns true, a query only reads the coordinates of the nodes.
+	 * @return True.
+	 */
+	@Override
+	public boolean supportsParallelQueries() {
+		return true;
+	}
 	
 	/**
 	 * Method to check whether CentrePathCalculator is applicable for the current graph problem
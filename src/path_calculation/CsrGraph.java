@@ -0,0 +1,125 @@
+package path_calculation;
+
+import java.util.Arrays;
+
+import simulation.Node;
+
+/**
+ * Undirected graph stored in the compressed sparse row format.
+ * Neighbours of vertex v are targets[offsets[v]] .. targets[offsets[v+1] - 1],
+ * the corresponding edge lengths are stored in weights at the same positions.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class CsrGraph {
+
+	/** Number of vertices */
+	final int verticesCount;
+
+	/** Beginnings of the adjacency ranges, verticesCount + 1 items */
+	final int[] offsets;
+
+	/** Neighbours */
+	final int[] targets;
+
+	/** Edge lengths */
+	final double[] weights;
+
+	/**
+	 * Constructs the graph, every path is stored in both directions.
+	 * @param nodes Nodes.
+	 * @param paths Paths between nodes.
+	 */
+	CsrGraph(Node[] nodes, Path[] paths) {
+		verticesCount = nodes.length;
+		offsets = new int[verticesCount + 1];
+		targets = new int[2 * paths.length];
+		weights = new double[2 * paths.length];
+
+		for (Path path : paths) {
+			offsets[path.u + 1]++;
+			offsets[path.v + 1]++;
+		}
+		for (int v = 0; v < verticesCount; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+
+		int[] fill = new int[verticesCount];
+		for (Path path : paths) {
+			double distance = nodes[path.u].getCoords().airDistanceTo(nodes[path.v].getCoords());
+			addArc(path.u, path.v, distance, fill);
+			addArc(path.v, path.u, distance, fill);
+		}
+	}
+
+	private void addArc(int u, int v, double distance, int[] fill) {
+		int position = offsets[u] + fill[u]++;
+		targets[position] = v;
+		weights[position] = distance;
+	}
+
+	/**
+	 * Calculates the tree of the shortest paths from the root using the Dijkstra algorithm.
+	 * @param root Root of the tree.
+	 * @return Tree of the shortest paths from the root.
+	 */
+	ShortestPathTree dijkstra(int root) {
+		double[] dist = new double[verticesCount];
+		int[] prev = new int[verticesCount];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(prev, -1);
+		IndexedMinHeap heap = new IndexedMinHeap(verticesCount);
+
+		dist[root] = 0;
+		heap.insertOrDecrease(root, 0);
+		while (!heap.isEmpty()) {
+			int u = heap.poll();
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				double newDist = dist[u] + weights[e];
+				if (newDist < dist[v]) {
+					dist[v] = newDist;
+					prev[v] = u;
+					heap.insertOrDecrease(v, newDist);
+				}
+			}
+		}
+
+		return new ShortestPathTree(root, dist, prev);
+	}
+
+	/**
+	 * Reorders every adjacency range so that edges not longer than the threshold
+	 * come first.
+	 * @param threshold Edge length threshold.
+	 * @return End of the short edges range for every vertex.
+	 */
+	int[] partitionByWeight(double threshold) {
+		int[] lightEnd = new int[verticesCount];
+		for (int v = 0; v < verticesCount; v++) {
+			int i = offsets[v];
+			int j = offsets[v + 1] - 1;
+			while (i <= j) {
+				if (weights[i] <= threshold) {
+					i++;
+				}
+				else {
+					swap(i, j--);
+				}
+			}
+			lightEnd[v] = i;
+		}
+		return lightEnd;
+	}
+
+	private void swap(int i, int j) {
+		int target = targets[i];
+		targets[i] = targets[j];
+		targets[j] = target;
+		double weight = weights[i];
+		weights[i] = weights[j];
+		weights[j] = weight;
+	}
+
+}
@@ -0,0 +1,326 @@
+package path_calculation;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import simulation.Node;
+
+/**
+ * Path and distance calculator using the delta-stepping algorithm.
+ * Computes whole shortest path trees, the relaxation requests of large bucket
+ * frontiers are generated in parallel on the fork-join pool.
+ * Recently computed trees are cached, the second node of a query is used
+ * as the root of the tree, because it is the one repeated in consecutive queries.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class DeltaSteppingPathCalculator extends APathCalculator {
+
+	/** Minimal frontier size for the requests to be generated in parallel */
+	private static final int PARALLEL_FRONTIER_THRESHOLD = 1024;
+
+	/** Maximal memory occupied by the cached trees */
+	private static final long MAX_CACHE_BYTES = 64L * 1048576L;
+
+	private final Node[] nodes;
+
+	private final CsrGraph graph;
+
+	/** Bucket width */
+	private final double delta;
+
+	/** End of the light edges range for every vertex */
+	private final int[] lightEnd;
+
+	/** Recently computed trees by their roots */
+	private final Map<Integer, ShortestPathTree> cache;
+
+	/**
+	 * Constructs a path calculator using the delta-stepping algorithm.
+	 * @param nodes Nodes.
+	 * @param paths Paths between the nodes.
+	 * @param delta Bucket width, edges not longer than delta are light.
+	 * @throws IllegalArgumentException if the bucket width is not positive
+	 */
+	public DeltaSteppingPathCalculator(Node[] nodes, Path[] paths, double delta) {
+		if (delta <= 0) {
+			throw new IllegalArgumentException("Bucket width must be positive: " + delta);
+		}
+		this.nodes = nodes;
+		this.graph = new CsrGraph(nodes, paths);
+		this.delta = delta;
+		this.lightEnd = graph.partitionByWeight(delta);
+
+		int cacheCapacity = (int) Math.max(1, MAX_CACHE_BYTES / (12L * Math.max(1, nodes.length)));
+		this.cache = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+				return size() > cacheCapacity;
+			}
+		};
+	}
+
+	/**
+	 * Calculates and returns a descriptor of the shortest path between i and j.
+	 *
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Descriptor of the shortest path between i and j.
+	 */
+	@Override
+	public PathDescriptor getShortestPath(int i, int j) {
+		ShortestPathTree tree = cache.get(j);
+		if (tree == null) {
+			tree = getShortestPathTree(j);
+			cache.put(j, tree);
+		}
+
+		List<Integer> path = tree.getPathToRoot(i);
+		if (path.size() < 2) {
+			return new PathDescriptor(new LinkedList<>(), Double.POSITIVE_INFINITY, new LinkedList<>());
+		}
+
+		List<Double> partialDistances = getPartialDistances(path);
+		double distance = 0;
+		for (Double pd : partialDistances) {
+			distance += pd;
+		}
+		return new PathDescriptor(path, distance, partialDistances);
+	}
+
+	/**
+	 * Calculates the tree of the shortest paths from the root to all other nodes.
+	 * @param root Root of the tree.
+	 * @return Tree of the shortest paths from the root.
+	 */
+	public ShortestPathTree getShortestPathTree(int root) {
+		return new Run(root).execute();
+	}
+
+	private List<Double> getPartialDistances(List<Integer> path) {
+		LinkedList<Double> partialDistances = new LinkedList<>();
+		Iterator<Integer> it = path.iterator();
+		int i = it.next();
+		while (it.hasNext()) {
+			int j = it.next();
+			partialDistances.add(nodes[i].getCoords().airDistanceTo(nodes[j].getCoords()));
+			i = j;
+		}
+		return partialDistances;
+	}
+
+	/**
+	 * One execution of the algorithm from a root.
+	 */
+	private class Run {
+
+		private final int root;
+
+		private final double[] dist;
+
+		private final int[] prev;
+
+		/** Index of the bucket the vertex is in, -1 if it is in none */
+		private final int[] bucketOf;
+
+		/** Vertices in buckets, entries not matching bucketOf are stale */
+		private IntList[] buckets;
+
+		/** Phase in which the vertex was removed from the current bucket */
+		private final int[] removedIn;
+
+		/** Relaxation requests */
+		private int[] requestVertex = new int[16];
+		private double[] requestDist = new double[16];
+		private int[] requestPrev = new int[16];
+
+		private Run(int root) {
+			this.root = root;
+			dist = new double[graph.verticesCount];
+			prev = new int[graph.verticesCount];
+			bucketOf = new int[graph.verticesCount];
+			removedIn = new int[graph.verticesCount];
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			Arrays.fill(prev, -1);
+			Arrays.fill(bucketOf, -1);
+			Arrays.fill(removedIn, -1);
+			buckets = new IntList[16];
+		}
+
+		private ShortestPathTree execute() {
+			relax(root, 0, -1);
+
+			IntList removed = new IntList();
+			for (int b = 0; b < buckets.length; b++) {
+				if (buckets[b] == null) {
+					continue;
+				}
+
+				removed.clear();
+				while (buckets[b].size > 0) {
+					int[] frontier = takeFrontier(b, removed);
+					relaxRequests(generateRequests(frontier, frontier.length, true));
+				}
+				relaxRequests(generateRequests(removed.items, removed.size, false));
+				buckets[b] = null;
+			}
+
+			return new ShortestPathTree(root, dist, prev);
+		}
+
+		private int[] takeFrontier(int b, IntList removed) {
+			IntList bucket = buckets[b];
+			IntList frontier = new IntList();
+			for (int k = 0; k < bucket.size; k++) {
+				int v = bucket.items[k];
+				if (bucketOf[v] == b) {
+					bucketOf[v] = -1;
+					frontier.add(v);
+					if (removedIn[v] != b) {
+						removedIn[v] = b;
+						removed.add(v);
+					}
+				}
+			}
+			bucket.clear();
+			return Arrays.copyOf(frontier.items, frontier.size);
+		}
+
+		private int generateRequests(int[] frontier, int frontierSize, boolean light) {
+			int[] requestOffsets = new int[frontierSize + 1];
+			for (int k = 0; k < frontierSize; k++) {
+				int u = frontier[k];
+				int count = light ? lightEnd[u] - graph.offsets[u] : graph.offsets[u + 1] - lightEnd[u];
+				requestOffsets[k + 1] = requestOffsets[k] + count;
+			}
+
+			int requestCount = requestOffsets[frontierSize];
+			if (requestVertex.length < requestCount) {
+				int capacity = Math.max(requestCount, 2 * requestVertex.length);
+				requestVertex = new int[capacity];
+				requestDist = new double[capacity];
+				requestPrev = new int[capacity];
+			}
+
+			RequestGeneration generation = new RequestGeneration(frontier, requestOffsets, light, 0, frontierSize);
+			if (frontierSize >= PARALLEL_FRONTIER_THRESHOLD) {
+				ForkJoinPool.commonPool().invoke(generation);
+			}
+			else {
+				generation.compute();
+			}
+			return requestCount;
+		}
+
+		private void relaxRequests(int requestCount) {
+			for (int r = 0; r < requestCount; r++) {
+				relax(requestVertex[r], requestDist[r], requestPrev[r]);
+			}
+		}
+
+		private void relax(int v, double newDist, int u) {
+			if (newDist >= dist[v]) {
+				return;
+			}
+
+			dist[v] = newDist;
+			prev[v] = u;
+			int b = (int) (newDist / delta);
+			if (bucketOf[v] != b) {
+				bucketOf[v] = b;
+				bucket(b).add(v);
+			}
+		}
+
+		private IntList bucket(int b) {
+			if (b >= buckets.length) {
+				buckets = Arrays.copyOf(buckets, Math.max(b + 1, 2 * buckets.length));
+			}
+			if (buckets[b] == null) {
+				buckets[b] = new IntList();
+			}
+			return buckets[b];
+		}
+
+		/**
+		 * Generates the relaxation requests of a frontier range,
+		 * every frontier vertex writes into its own range of the request arrays.
+		 */
+		private class RequestGeneration extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			private final int[] frontier;
+			private final int[] requestOffsets;
+			private final boolean light;
+			private final int from;
+			private final int to;
+
+			private RequestGeneration(int[] frontier, int[] requestOffsets, boolean light, int from, int to) {
+				this.frontier = frontier;
+				this.requestOffsets = requestOffsets;
+				this.light = light;
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if (to - from > PARALLEL_FRONTIER_THRESHOLD) {
+					int middle = (from + to) >>> 1;
+					invokeAll(
+							new RequestGeneration(frontier, requestOffsets, light, from, middle),
+							new RequestGeneration(frontier, requestOffsets, light, middle, to)
+					);
+					return;
+				}
+
+				for (int k = from; k < to; k++) {
+					int u = frontier[k];
+					int r = requestOffsets[k];
+					int begin = light ? graph.offsets[u] : lightEnd[u];
+					int end = light ? lightEnd[u] : graph.offsets[u + 1];
+					for (int e = begin; e < end; e++, r++) {
+						requestVertex[r] = graph.targets[e];
+						requestDist[r] = dist[u] + graph.weights[e];
+						requestPrev[r] = u;
+					}
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Growable list of ints.
+	 */
+	private static class IntList {
+
+		private int[] items = new int[8];
+
+		private int size = 0;
+
+		private void add(int item) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, 2 * size);
+			}
+			items[size++] = item;
+		}
+
+		private void clear() {
+			size = 0;
+		}
+
+	}
+
+}
@@ -4,7 +4,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
-
+import java.util.concurrent.atomic.LongAdder;
 import path_calculation.UndirectedGraph.Link;
 import simulation.Node;
 
@@ -70,6 +70,12 @@ public class DijkstraPathCalculator extends APathCalculator {
 	
 	private final UndirectedGraph graph;
 	
+	/** Number of answered queries */
+	private final LongAdder queryCount = new LongAdder();
+	
+	/** Number of nodes settled while answering the queries */
+	private final LongAdder settledCount = new LongAdder();
+	
 	/**
 	 * Constructs a path calculator using the Dijkstra algorithm.
 	 * @param nodes Nodes.
@@ -109,6 +115,35 @@ public class DijkstraPathCalculator extends APathCalculator {
 		);
 	}
 	
+	/**
+	 * Returns true, a query only reads the graph.
+	 * @return True.
+	 */
+	@Override
+	public boolean supportsParallelQueries() {
+		return true;
+	}
+	
+	/**
+	 * Returns the average number of settled nodes per query.
+	 * @return Report on the work of the calculator.
+	 */
+	@Override
+	public String getReport() {
+		long queries = queryCount.sum();
+		return String.format("Dijkstra: settled nodes per query %.1f (%d queries)",
+				queries == 0 ? 0.0 : (double) settledCount.sum() / queries, queries);
+	}
+	
+	/**
+	 * Forgets the counted queries and settled nodes.
+	 */
+	@Override
+	public void resetStatistics() {
+		queryCount.reset();
+		settledCount.reset();
+	}
+	
 	private AlgorithmResult dijkstra(int i, int j) {
 		PriorityQueue<VertexDistance> pQueue;
 		VertexDistance minVertexDistance;
@@ -118,6 +153,7 @@ public class DijkstraPathCalculator extends APathCalculator {
 		int[] prev;
 		int u, v;
 		double newDist;
+		int settled = 0;
 		
 		pQueue = new PriorityQueue<>();
 		mark = new int[graph.verticesCount];
@@ -132,11 +168,14 @@ public class DijkstraPathCalculator extends APathCalculator {
 		mark[i] = 1;
 		dist[i] = 0;
 		pQueue.add(new VertexDistance(i, 0));
+		queryCount.increment();
 		while (!pQueue.isEmpty()) {
 			minVertexDistance = pQueue.poll();
 			u = minVertexDistance.vertex;
+			settled++;
 			
 			if (u == j) {
+				settledCount.add(settled);
 				return new AlgorithmResult(prev);
 			}
 			
@@ -167,6 +206,7 @@ public class DijkstraPathCalculator extends APathCalculator {
 			mark[u] = 2;
 		}
 		
+		settledCount.add(settled);
 		return new AlgorithmResult(prev);
 	}
 
@@ -0,0 +1,139 @@
+package path_calculation;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.PriorityQueue;
+
+import simulation.Node;
+
+/**
+ * Finder of the paths a given camel goes through in the shortest time, the drinks included.
+ * A label is a node reached with some distance left before the camel has to drink, at some time.
+ * The camel drinks only when it cannot cover the next edge, like it does on its way, which never drinks
+ * more than any other choice of the drinks along the same nodes. The labels are settled in the order of time,
+ * a label is dominated by the label settled at its node before, if that one has at least as much distance left,
+ * so only the best distance left settled at every node is kept. Each search has its own labels,
+ * so paths can be found from several threads at once.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class FastestPathRouter {
+
+	private final CsrGraph graph;
+
+	/**
+	 * Constructs a router.
+	 * @param nodes Nodes.
+	 * @param paths Paths between nodes.
+	 */
+	public FastestPathRouter(Node[] nodes, Path[] paths) {
+		this.graph = new CsrGraph(nodes, paths);
+	}
+
+	/**
+	 * Returns the path between i and j the camel goes through in the shortest time.
+	 * @param i Node i, where the camel starts without thirst.
+	 * @param j Node j.
+	 * @param movementSpeed Movement speed of the camel.
+	 * @param distance Distance the camel can cover without drinking.
+	 * @param drinkTime Time it takes the camel to drink.
+	 * @param maxTime Time the camel has to reach j in, the labels reached later are not followed.
+	 * @return Descriptor of the fastest path between i and j, null if the camel cannot reach j in time.
+	 */
+	public PathDescriptor getFastestPath(int i, int j, double movementSpeed, double distance, double drinkTime, double maxTime) {
+		Labels labels = new Labels();
+		double[] settledDistanceLeft = new double[graph.verticesCount];
+		Arrays.fill(settledDistanceLeft, Double.NEGATIVE_INFINITY);
+		// earlier first, more distance left first at the same time
+		PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> {
+			int byTime = Double.compare(labels.times[a], labels.times[b]);
+			return byTime != 0 ? byTime : Double.compare(labels.distancesLeft[b], labels.distancesLeft[a]);
+		});
+		queue.add(labels.add(i, distance, 0, -1, 0));
+
+		while (!queue.isEmpty()) {
+			int label = queue.poll();
+			int u = labels.nodes[label];
+			double distanceLeft = labels.distancesLeft[label];
+			if (distanceLeft <= settledDistanceLeft[u]) {
+				continue;
+			}
+			settledDistanceLeft[u] = distanceLeft;
+			if (u == j) {
+				return reconstructPath(labels, label);
+			}
+
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+				int v = graph.targets[e];
+				double edge = graph.weights[e];
+				if (edge > distance) {
+					continue; // the camel cannot cover the edge at all
+				}
+				double time = labels.times[label] + edge / movementSpeed;
+				double left = distanceLeft - edge;
+				if (left < 0) {
+					time += drinkTime;
+					left = distance - edge;
+				}
+				if (time > maxTime || left <= settledDistanceLeft[v]) {
+					continue;
+				}
+				queue.add(labels.add(v, left, time, label, edge));
+			}
+		}
+		return null;
+	}
+
+	private PathDescriptor reconstructPath(Labels labels, int label) {
+		LinkedList<Integer> path = new LinkedList<>();
+		LinkedList<Double> partialDistances = new LinkedList<>();
+		double length = 0;
+		path.addFirst(labels.nodes[label]);
+		while (labels.parents[label] >= 0) {
+			partialDistances.addFirst(labels.edges[label]);
+			length += labels.edges[label];
+			label = labels.parents[label];
+			path.addFirst(labels.nodes[label]);
+		}
+		return new PathDescriptor(path, length, partialDistances);
+	}
+
+	/**
+	 * Labels of one search in parallel arrays, a label is its index.
+	 */
+	private static class Labels {
+
+		private int[] nodes = new int[16];
+
+		private double[] distancesLeft = new double[16];
+
+		private double[] times = new double[16];
+
+		/** Labels the labels were reached from, -1 for the start */
+		private int[] parents = new int[16];
+
+		/** Lengths of the edges the labels were reached by */
+		private double[] edges = new double[16];
+
+		private int count = 0;
+
+		private int add(int node, double distanceLeft, double time, int parent, double edge) {
+			if (count == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * count);
+				distancesLeft = Arrays.copyOf(distancesLeft, 2 * count);
+				times = Arrays.copyOf(times, 2 * count);
+				parents = Arrays.copyOf(parents, 2 * count);
+				edges = Arrays.copyOf(edges, 2 * count);
+			}
+			nodes[count] = node;
+			distancesLeft[count] = distanceLeft;
+			times[count] = time;
+			parents[count] = parent;
+			edges[count] = edge;
+			return count++;
+		}
+
+	}
+
+}
@@ -1,5 +1,6 @@
 package path_calculation;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -12,7 +13,10 @@ import simulation.Node;
  * @author Jakub Krizanovsky, Stanislav Kafara
  * @version 1 22-10-22
  */
-public class FloydWarshallPathCalculator extends APathCalculator {
+public class FloydWarshallPathCalculator extends APathCalculator implements StorableIndex {
+	
+	/** Name of the stored matrices */
+	public static final String INDEX_NAME = "floyd_warshall";
 	
 	private final double[][] distMatrix;
 	
@@ -29,6 +33,23 @@ public class FloydWarshallPathCalculator extends APathCalculator {
 		initMatrices(nodes.length);
 		generateDistMatrix(nodes, paths);
 	}
+	
+	/**
+	 * Constructs the path calculator using Floyd-Warshall algorithm with the matrices read from a stored index.
+	 * @param nodes Nodes.
+	 * @param index Index written by {@link #writeIndex(ByteBuffer)}.
+	 * @throws IndexOutOfBoundsException if the index refers to a node that is not in the map.
+	 */
+	public FloydWarshallPathCalculator(Node[] nodes, ByteBuffer index) {
+		distMatrix = new double[nodes.length][];
+		nextMatrix = new int[nodes.length][];
+		for(int i = 0; i < nodes.length; i++) {
+			distMatrix[i] = IndexBuffers.getDoubles(index, nodes.length);
+		}
+		for(int i = 0; i < nodes.length; i++) {
+			nextMatrix[i] = IndexBuffers.getNodeIndices(index, nodes.length, nodes.length, true);
+		}
+	}
 
 	/**
 	 * Calculates and returns a descriptor of the shortest path between i and j.
@@ -48,6 +69,68 @@ public class FloydWarshallPathCalculator extends APathCalculator {
 		);
 	}
 	
+	/**
+	 * Returns the length of the shortest path between i and j from the distance matrix.
+	 * 
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Length of the shortest path between i and j.
+	 */
+	@Override
+	public double getShortestDistance(int i, int j) {
+		return distMatrix[i][j];
+	}
+	
+	/**
+	 * Returns true, the distance is read from the distance matrix.
+	 * @return True.
+	 */
+	@Override
+	public boolean hasCheapDistance() {
+		return true;
+	}
+	
+	/**
+	 * Returns true, a query only reads the matrices.
+	 * @return True.
+	 */
+	@Override
+	public boolean supportsParallelQueries() {
+		return true;
+	}
+	
+	/**
+	 * Returns the name of the stored matrices.
+	 * @return Name of the index.
+	 */
+	@Override
+	public String getIndexName() {
+		return INDEX_NAME;
+	}
+	
+	/**
+	 * Returns the size of the stored distance and next node matrices.
+	 * @return Size of the index in bytes.
+	 */
+	@Override
+	public long getIndexSize() {
+		return (8L + 4L) * distMatrix.length * distMatrix.length;
+	}
+	
+	/**
+	 * Writes the rows of the distance matrix and then the rows of the next node matrix.
+	 * @param buffer Buffer with at least {@link #getIndexSize()} bytes remaining.
+	 */
+	@Override
+	public void writeIndex(ByteBuffer buffer) {
+		for(double[] row : distMatrix) {
+			IndexBuffers.putDoubles(buffer, row);
+		}
+		for(int[] row : nextMatrix) {
+			IndexBuffers.putInts(buffer, row);
+		}
+	}
+	
 	private void initMatrices(int nodeCount) {
 		for(int i = 0; i < nodeCount; i++) {
 			for(int j = 0; j < nodeCount; j++) {
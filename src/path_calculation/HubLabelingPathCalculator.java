@@ -0,0 +1,381 @@
+package path_calculation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.LongAdder;
+
+import simulation.Node;
+
+/**
+ * Path and distance calculator using hub labels built by the pruned landmark labeling.
+ * Nodes are processed as hubs in the order of decreasing degree, every node stores
+ * the distances to its hubs sorted by the hub rank, so a distance query is a merge
+ * of two sorted labels. Every label entry also keeps the next node towards the hub,
+ * so the path is rebuilt from the labels only when it is requested.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class HubLabelingPathCalculator extends APathCalculator implements StorableIndex {
+
+	/** Name of the stored labels */
+	public static final String INDEX_NAME = "hub_labels";
+
+	private final Node[] nodes;
+
+	/** Hub ranks of the label entries of every node, sorted */
+	private final int[][] labelHubs;
+
+	/** Distances to the hubs of the label entries */
+	private final double[][] labelDist;
+
+	/** Next node towards the hub of the label entries, -1 for the hub itself */
+	private final int[][] labelNext;
+
+	/** Time spent building the labels */
+	private final long buildNanos;
+
+	/** Number of answered distance queries */
+	private final LongAdder queryCount = new LongAdder();
+
+	/** Time spent answering the distance queries */
+	private final LongAdder queryNanos = new LongAdder();
+
+	/**
+	 * Constructs a hub labeling path calculator and builds the labels.
+	 * @param nodes Nodes.
+	 * @param paths Paths between nodes.
+	 */
+	public HubLabelingPathCalculator(Node[] nodes, Path[] paths) {
+		long start = System.nanoTime();
+		this.nodes = nodes;
+		CsrGraph graph = new CsrGraph(nodes, paths);
+		this.labelHubs = new int[nodes.length][];
+		this.labelDist = new double[nodes.length][];
+		this.labelNext = new int[nodes.length][];
+		buildLabels(graph, orderByDegree(graph));
+		this.buildNanos = System.nanoTime() - start;
+
+		System.out.println("Hub labels: " + getLabelEntryCount() + " entries, " + getLabelBytes() / 1024 + " KB");
+		System.out.printf("Hub labels built in: %.1f ms%n", buildNanos * 1e-6);
+	}
+
+	/**
+	 * Constructs a hub labeling path calculator with the labels read from a stored index.
+	 * @param nodes Nodes.
+	 * @param index Index written by {@link #writeIndex(ByteBuffer)}.
+	 * @throws IndexOutOfBoundsException if the index refers to a node that is not in the map.
+	 */
+	public HubLabelingPathCalculator(Node[] nodes, ByteBuffer index) {
+		long start = System.nanoTime();
+		this.nodes = nodes;
+		this.labelHubs = new int[nodes.length][];
+		this.labelDist = new double[nodes.length][];
+		this.labelNext = new int[nodes.length][];
+		for (int v = 0; v < nodes.length; v++) {
+			int size = index.getInt();
+			labelHubs[v] = IndexBuffers.getNodeIndices(index, size, nodes.length, false);
+			labelDist[v] = IndexBuffers.getDoubles(index, size);
+			labelNext[v] = IndexBuffers.getNodeIndices(index, size, nodes.length, true);
+		}
+		this.buildNanos = System.nanoTime() - start;
+
+		System.out.println("Hub labels: " + getLabelEntryCount() + " entries, " + getLabelBytes() / 1024 + " KB");
+		System.out.printf("Hub labels loaded in: %.1f ms%n", buildNanos * 1e-6);
+	}
+
+	/**
+	 * Calculates and returns a descriptor of the shortest path between i and j.
+	 *
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Descriptor of the shortest path between i and j.
+	 */
+	@Override
+	public PathDescriptor getShortestPath(int i, int j) {
+		int hubEntry = findCommonHub(i, j);
+		if (hubEntry < 0 || i == j) {
+			return new PathDescriptor(new LinkedList<>(), Double.POSITIVE_INFINITY, new LinkedList<>());
+		}
+		int hubRank = labelHubs[i][hubEntry];
+
+		LinkedList<Integer> path = new LinkedList<>();
+		for (int k = i; k != -1; k = next(k, hubRank)) {
+			path.add(k);
+		}
+		LinkedList<Integer> hubToJ = new LinkedList<>();
+		for (int k = j; k != -1; k = next(k, hubRank)) {
+			hubToJ.addFirst(k);
+		}
+		hubToJ.removeFirst(); // the hub is already in the path
+		path.addAll(hubToJ);
+
+		LinkedList<Double> partialDistances = new LinkedList<>();
+		double distance = 0;
+		Integer previous = null;
+		for (Integer k : path) {
+			if (previous != null) {
+				double partialDistance = nodes[previous].getCoords().airDistanceTo(nodes[k].getCoords());
+				partialDistances.add(partialDistance);
+				distance += partialDistance;
+			}
+			previous = k;
+		}
+		return new PathDescriptor(path, distance, partialDistances);
+	}
+
+	/**
+	 * Returns the length of the shortest path between i and j
+	 * by merging the labels of i and j.
+	 *
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Length of the shortest path between i and j.
+	 */
+	@Override
+	public double getShortestDistance(int i, int j) {
+		long start = System.nanoTime();
+		int hubEntry = findCommonHub(i, j);
+		double distance = hubEntry < 0 ? Double.POSITIVE_INFINITY : labelDist[i][hubEntry] + labelDist[j][Arrays.binarySearch(labelHubs[j], labelHubs[i][hubEntry])];
+		queryNanos.add(System.nanoTime() - start);
+		queryCount.increment();
+		return i == j ? Double.POSITIVE_INFINITY : distance;
+	}
+
+	/**
+	 * Returns true, the distance query is a merge of two labels.
+	 * @return True.
+	 */
+	@Override
+	public boolean hasCheapDistance() {
+		return true;
+	}
+
+	/**
+	 * Returns true, a query only reads the labels.
+	 * @return True.
+	 */
+	@Override
+	public boolean supportsParallelQueries() {
+		return true;
+	}
+
+	/**
+	 * Returns the label size, build time and the distance query latency.
+	 * @return Report on the work of the calculator.
+	 */
+	@Override
+	public String getReport() {
+		long queries = queryCount.sum();
+		return String.format("Hub labeling: %.1f entries per node, %d KB, built in %.1f ms, distance query %.0f ns (%d queries)",
+				nodes.length == 0 ? 0.0 : (double) getLabelEntryCount() / nodes.length, getLabelBytes() / 1024,
+				buildNanos * 1e-6, queries == 0 ? 0.0 : (double) queryNanos.sum() / queries, queries);
+	}
+
+	/**
+	 * Forgets the counted distance queries and their time.
+	 */
+	@Override
+	public void resetStatistics() {
+		queryCount.reset();
+		queryNanos.reset();
+	}
+
+	/**
+	 * Returns the name of the stored labels.
+	 * @return Name of the index.
+	 */
+	@Override
+	public String getIndexName() {
+		return INDEX_NAME;
+	}
+
+	/**
+	 * Returns the size of the stored labels, the label size and the entries of every node.
+	 * @return Size of the index in bytes.
+	 */
+	@Override
+	public long getIndexSize() {
+		return 4L * nodes.length + getLabelBytes();
+	}
+
+	/**
+	 * Writes the labels of the nodes in the node order.
+	 * @param buffer Buffer with at least {@link #getIndexSize()} bytes remaining.
+	 */
+	@Override
+	public void writeIndex(ByteBuffer buffer) {
+		for (int v = 0; v < nodes.length; v++) {
+			buffer.putInt(labelHubs[v].length);
+			IndexBuffers.putInts(buffer, labelHubs[v]);
+			IndexBuffers.putDoubles(buffer, labelDist[v]);
+			IndexBuffers.putInts(buffer, labelNext[v]);
+		}
+	}
+
+	private long getLabelEntryCount() {
+		long count = 0;
+		for (int[] hubs : labelHubs) {
+			count += hubs.length;
+		}
+		return count;
+	}
+
+	private long getLabelBytes() {
+		return getLabelEntryCount() * (4 + 8 + 4);
+	}
+
+	private int next(int node, int hubRank) {
+		int entry = Arrays.binarySearch(labelHubs[node], hubRank);
+		return labelNext[node][entry];
+	}
+
+	/**
+	 * Finds the entry of the label of i with the hub on the shortest path between i and j.
+	 * @return Index of the entry in the label of i, -1 if j is unreachable.
+	 */
+	private int findCommonHub(int i, int j) {
+		int[] hubsI = labelHubs[i];
+		int[] hubsJ = labelHubs[j];
+		double best = Double.POSITIVE_INFINITY;
+		int bestEntry = -1;
+		int a = 0;
+		int b = 0;
+		while (a < hubsI.length && b < hubsJ.length) {
+			if (hubsI[a] < hubsJ[b]) {
+				a++;
+			}
+			else if (hubsI[a] > hubsJ[b]) {
+				b++;
+			}
+			else {
+				double distance = labelDist[i][a] + labelDist[j][b];
+				if (distance < best) {
+					best = distance;
+					bestEntry = a;
+				}
+				a++;
+				b++;
+			}
+		}
+		return bestEntry;
+	}
+
+	private static int[] orderByDegree(CsrGraph graph) {
+		Integer[] boxed = new Integer[graph.verticesCount];
+		for (int v = 0; v < boxed.length; v++) {
+			boxed[v] = v;
+		}
+		Arrays.sort(boxed, (u, v) -> (graph.offsets[v + 1] - graph.offsets[v]) - (graph.offsets[u + 1] - graph.offsets[u]));
+
+		int[] order = new int[boxed.length];
+		for (int k = 0; k < order.length; k++) {
+			order[k] = boxed[k];
+		}
+		return order;
+	}
+
+	/**
+	 * Runs the pruned Dijkstra algorithm from every node in the hub order.
+	 * A node is pruned when the labels built so far already cover its distance from the hub,
+	 * pruned nodes are neither labeled nor expanded.
+	 */
+	private void buildLabels(CsrGraph graph, int[] order) {
+		int n = graph.verticesCount;
+		LabelBuilder[] builders = new LabelBuilder[n];
+		for (int v = 0; v < n; v++) {
+			builders[v] = new LabelBuilder();
+		}
+
+		double[] dist = new double[n];
+		int[] prev = new int[n];
+		double[] rootDist = new double[n]; // distances from the root to the hubs by hub rank
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(rootDist, Double.POSITIVE_INFINITY);
+		int[] visited = new int[n];
+		IndexedMinHeap heap = new IndexedMinHeap(n);
+
+		for (int rank = 0; rank < n; rank++) {
+			int root = order[rank];
+			LabelBuilder rootLabel = builders[root];
+			for (int e = 0; e < rootLabel.size; e++) {
+				rootDist[rootLabel.hubs[e]] = rootLabel.dist[e];
+			}
+
+			int visitedCount = 0;
+			dist[root] = 0;
+			prev[root] = -1;
+			visited[visitedCount++] = root;
+			heap.insertOrDecrease(root, 0);
+			while (!heap.isEmpty()) {
+				int u = heap.poll();
+				LabelBuilder label = builders[u];
+				if (coveredDistance(label, rootDist) <= dist[u]) {
+					continue;
+				}
+				label.add(rank, dist[u], prev[u]);
+
+				for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+					int v = graph.targets[e];
+					double newDist = dist[u] + graph.weights[e];
+					if (newDist < dist[v]) {
+						if (dist[v] == Double.POSITIVE_INFINITY) {
+							visited[visitedCount++] = v;
+						}
+						dist[v] = newDist;
+						prev[v] = u;
+						heap.insertOrDecrease(v, newDist);
+					}
+				}
+			}
+
+			for (int k = 0; k < visitedCount; k++) {
+				dist[visited[k]] = Double.POSITIVE_INFINITY;
+			}
+			for (int e = 0; e < rootLabel.size; e++) {
+				rootDist[rootLabel.hubs[e]] = Double.POSITIVE_INFINITY;
+			}
+		}
+
+		for (int v = 0; v < n; v++) {
+			LabelBuilder label = builders[v];
+			labelHubs[v] = Arrays.copyOf(label.hubs, label.size);
+			labelDist[v] = Arrays.copyOf(label.dist, label.size);
+			labelNext[v] = Arrays.copyOf(label.next, label.size);
+		}
+	}
+
+	private static double coveredDistance(LabelBuilder label, double[] rootDist) {
+		double best = Double.POSITIVE_INFINITY;
+		for (int e = 0; e < label.size; e++) {
+			best = Math.min(best, label.dist[e] + rootDist[label.hubs[e]]);
+		}
+		return best;
+	}
+
+	/**
+	 * Growable label of one node.
+	 */
+	private static class LabelBuilder {
+
+		private int[] hubs = new int[4];
+		private double[] dist = new double[4];
+		private int[] next = new int[4];
+		private int size = 0;
+
+		private void add(int hub, double distance, int nextNode) {
+			if (size == hubs.length) {
+				hubs = Arrays.copyOf(hubs, 2 * size);
+				dist = Arrays.copyOf(dist, 2 * size);
+				next = Arrays.copyOf(next, 2 * size);
+			}
+			hubs[size] = hub;
+			dist[size] = distance;
+			next[size] = nextNode;
+			size++;
+		}
+
+	}
+
+}
@@ -0,0 +1,82 @@
+package path_calculation;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Bulk transfers of the index arrays from and into buffers,
+ * used by the stored indices and the other binary formats, e.g. the compiled scenarios.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class IndexBuffers {
+
+	private IndexBuffers() {}
+
+	/**
+	 * Writes ints at the position of the buffer and moves the position past them.
+	 * @param buffer Buffer.
+	 * @param values Written values.
+	 */
+	public static void putInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + 4 * values.length);
+	}
+
+	/**
+	 * Writes doubles at the position of the buffer and moves the position past them.
+	 * @param buffer Buffer.
+	 * @param values Written values.
+	 */
+	public static void putDoubles(ByteBuffer buffer, double[] values) {
+		buffer.asDoubleBuffer().put(values);
+		buffer.position(buffer.position() + 8 * values.length);
+	}
+
+	/**
+	 * Reads ints from the position of the buffer and moves the position past them.
+	 * @param buffer Buffer.
+	 * @param count Number of the read values.
+	 * @return Read values.
+	 */
+	public static int[] getInts(ByteBuffer buffer, int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + 4 * count);
+		return values;
+	}
+
+	/**
+	 * Reads node indices, e.g. of the next nodes on the paths, and checks they are in the map.
+	 * @param buffer Buffer.
+	 * @param count Number of the read indices.
+	 * @param nodeCount Number of the nodes of the map.
+	 * @param noneAllowed Whether -1 stands for no node.
+	 * @return Read node indices.
+	 * @throws IndexOutOfBoundsException if an index is not a node and not -1 either where -1 is allowed.
+	 */
+	public static int[] getNodeIndices(ByteBuffer buffer, int count, int nodeCount, boolean noneAllowed) {
+		int[] values = getInts(buffer, count);
+		for (int value : values) {
+			if (!(noneAllowed && value == -1)) {
+				Objects.checkIndex(value, nodeCount);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Reads doubles from the position of the buffer and moves the position past them.
+	 * @param buffer Buffer.
+	 * @param count Number of the read values.
+	 * @return Read values.
+	 */
+	public static double[] getDoubles(ByteBuffer buffer, int count) {
+		double[] values = new double[count];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + 8 * count);
+		return values;
+	}
+
+}
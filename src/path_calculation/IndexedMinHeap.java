@@ -0,0 +1,113 @@
+package path_calculation;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of vertices with keys, supports decreasing the key of a vertex in the heap.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class IndexedMinHeap {
+
+	private final int[] heap;
+
+	/** Position of the vertex in the heap, -1 if it is not in the heap */
+	private final int[] position;
+
+	private final double[] keys;
+
+	private int size = 0;
+
+	/**
+	 * Constructs an empty heap.
+	 * @param verticesCount Number of vertices.
+	 */
+	IndexedMinHeap(int verticesCount) {
+		heap = new int[verticesCount];
+		position = new int[verticesCount];
+		keys = new double[verticesCount];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * Returns whether the heap is empty.
+	 * @return True, if the heap is empty, else false.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Inserts the vertex or decreases its key if it already is in the heap with a greater key.
+	 * @param v Vertex.
+	 * @param key Key.
+	 */
+	void insertOrDecrease(int v, double key) {
+		if (position[v] < 0) {
+			heap[size] = v;
+			position[v] = size;
+			keys[v] = key;
+			siftUp(size++);
+		}
+		else if (key < keys[v]) {
+			keys[v] = key;
+			siftUp(position[v]);
+		}
+	}
+
+	/**
+	 * Removes and returns the vertex with the minimal key.
+	 * @return Vertex with the minimal key.
+	 */
+	int poll() {
+		int min = heap[0];
+		position[min] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	private void siftUp(int index) {
+		int i = index;
+		int v = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[heap[parent]] <= keys[v]) {
+				break;
+			}
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+
+	private void siftDown(int index) {
+		int i = index;
+		int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			if (keys[v] <= keys[heap[child]]) {
+				break;
+			}
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+
+}
@@ -0,0 +1,283 @@
+package path_calculation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import simulation.Node;
+
+/**
+ * Path and distance calculator using the A* algorithm with landmarks (ALT).
+ * Landmarks are picked at construction by the farthest-point selection in the plane,
+ * distance tables to them are computed in parallel. The heuristic is the maximum
+ * of the air distance and the triangle-inequality bounds of all landmarks.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class LandmarkPathCalculator extends APathCalculator implements StorableIndex {
+
+	/** Number of landmarks */
+	public static final int LANDMARK_COUNT = 16;
+
+	/** Name of the stored landmark tables */
+	public static final String INDEX_NAME = "landmarks";
+
+	private final Node[] nodes;
+
+	private final CsrGraph graph;
+
+	/** Landmark nodes */
+	private final int[] landmarks;
+
+	/** Distances from every landmark to every node */
+	private final double[][] landmarkDist;
+
+	/** Number of answered queries */
+	private final LongAdder queryCount = new LongAdder();
+
+	/** Number of nodes settled while answering the queries */
+	private final LongAdder settledCount = new LongAdder();
+
+	/**
+	 * Constructs an ALT path calculator.
+	 * @param nodes Nodes.
+	 * @param paths Paths between nodes.
+	 */
+	public LandmarkPathCalculator(Node[] nodes, Path[] paths) {
+		this.nodes = nodes;
+		this.graph = new CsrGraph(nodes, paths);
+		this.landmarks = selectLandmarks(Math.min(LANDMARK_COUNT, nodes.length));
+		this.landmarkDist = new double[landmarks.length][];
+		IntStream.range(0, landmarks.length).parallel()
+				.forEach(l -> landmarkDist[l] = graph.dijkstra(landmarks[l]).dist);
+
+		System.out.println("Landmarks: " + landmarks.length);
+		System.out.println("Landmark tables size: " + getTableBytes() / 1024 + " KB");
+	}
+
+	/**
+	 * Constructs an ALT path calculator with the landmarks and their distance tables read from a stored index.
+	 * @param nodes Nodes.
+	 * @param paths Paths between nodes.
+	 * @param index Index written by {@link #writeIndex(ByteBuffer)}.
+	 * @throws IndexOutOfBoundsException if the index refers to a node that is not in the map.
+	 */
+	public LandmarkPathCalculator(Node[] nodes, Path[] paths, ByteBuffer index) {
+		this.nodes = nodes;
+		this.graph = new CsrGraph(nodes, paths);
+		this.landmarks = IndexBuffers.getNodeIndices(index, index.getInt(), nodes.length, false);
+		this.landmarkDist = new double[landmarks.length][];
+		for (int l = 0; l < landmarks.length; l++) {
+			landmarkDist[l] = IndexBuffers.getDoubles(index, nodes.length);
+		}
+
+		System.out.println("Landmarks loaded: " + landmarks.length);
+		System.out.println("Landmark tables size: " + getTableBytes() / 1024 + " KB");
+	}
+
+	/**
+	 * Calculates and returns a descriptor of the shortest path between i and j.
+	 *
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Descriptor of the shortest path between i and j.
+	 */
+	@Override
+	public PathDescriptor getShortestPath(int i, int j) {
+		double[] gScore = new double[nodes.length];
+		double[] hScore = new double[nodes.length];
+		int[] cameFrom = new int[nodes.length];
+		boolean[] closed = new boolean[nodes.length];
+		Arrays.fill(gScore, Double.POSITIVE_INFINITY);
+		Arrays.fill(hScore, Double.NaN);
+		Arrays.fill(cameFrom, -1);
+		IndexedMinHeap openSet = new IndexedMinHeap(nodes.length);
+		int settled = 0;
+
+		gScore[i] = 0;
+		openSet.insertOrDecrease(i, hCost(i, j, hScore));
+		while (!openSet.isEmpty()) {
+			int current = openSet.poll();
+			closed[current] = true;
+			settled++;
+			if (current == j) {
+				break;
+			}
+
+			for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+				int neighbour = graph.targets[e];
+				double tentativeGScore = gScore[current] + graph.weights[e];
+				if (!closed[neighbour] && tentativeGScore < gScore[neighbour]) {
+					double h = hCost(neighbour, j, hScore);
+					if (h == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					cameFrom[neighbour] = current;
+					gScore[neighbour] = tentativeGScore;
+					openSet.insertOrDecrease(neighbour, tentativeGScore + h);
+				}
+			}
+		}
+
+		queryCount.increment();
+		settledCount.add(settled);
+
+		if (!closed[j] || i == j) {
+			return new PathDescriptor(new LinkedList<>(), Double.POSITIVE_INFINITY, new LinkedList<>());
+		}
+		return reconstructPath(cameFrom, j);
+	}
+
+	/**
+	 * Returns true, a query only reads the graph and the landmark tables.
+	 * @return True.
+	 */
+	@Override
+	public boolean supportsParallelQueries() {
+		return true;
+	}
+
+	/**
+	 * Returns the average number of settled nodes per query.
+	 * @return Report on the work of the calculator.
+	 */
+	@Override
+	public String getReport() {
+		long queries = queryCount.sum();
+		return String.format("ALT: landmarks %d, tables %d KB, settled nodes per query %.1f (%d queries)",
+				landmarks.length, getTableBytes() / 1024, queries == 0 ? 0.0 : (double) settledCount.sum() / queries, queries);
+	}
+
+	/**
+	 * Forgets the counted queries and settled nodes.
+	 */
+	@Override
+	public void resetStatistics() {
+		queryCount.reset();
+		settledCount.reset();
+	}
+
+	/**
+	 * Returns the name of the stored landmark tables.
+	 * @return Name of the index.
+	 */
+	@Override
+	public String getIndexName() {
+		return INDEX_NAME;
+	}
+
+	/**
+	 * Returns the size of the stored landmarks and their distance tables.
+	 * @return Size of the index in bytes.
+	 */
+	@Override
+	public long getIndexSize() {
+		return 4 + 4L * landmarks.length + getTableBytes();
+	}
+
+	/**
+	 * Writes the landmark count, the landmarks and the distance table of every landmark.
+	 * @param buffer Buffer with at least {@link #getIndexSize()} bytes remaining.
+	 */
+	@Override
+	public void writeIndex(ByteBuffer buffer) {
+		buffer.putInt(landmarks.length);
+		IndexBuffers.putInts(buffer, landmarks);
+		for (double[] dist : landmarkDist) {
+			IndexBuffers.putDoubles(buffer, dist);
+		}
+	}
+
+	private long getTableBytes() {
+		return 8L * landmarks.length * nodes.length;
+	}
+
+	private double hCost(int n, int goal, double[] hScore) {
+		if (!Double.isNaN(hScore[n])) {
+			return hScore[n];
+		}
+
+		double h = nodes[n].getCoords().airDistanceTo(nodes[goal].getCoords());
+		for (double[] dist : landmarkDist) {
+			boolean nReachable = dist[n] != Double.POSITIVE_INFINITY;
+			boolean goalReachable = dist[goal] != Double.POSITIVE_INFINITY;
+			if (nReachable != goalReachable) { // different components
+				h = Double.POSITIVE_INFINITY;
+				break;
+			}
+			if (nReachable) {
+				h = Math.max(h, Math.abs(dist[goal] - dist[n]));
+			}
+		}
+
+		hScore[n] = h;
+		return h;
+	}
+
+	private PathDescriptor reconstructPath(int[] cameFrom, int goal) {
+		LinkedList<Integer> path = new LinkedList<>();
+		LinkedList<Double> partialDistances = new LinkedList<>();
+		double distance = 0;
+		int current = goal;
+		path.add(current);
+		while (cameFrom[current] != -1) {
+			int last = current;
+			current = cameFrom[current];
+			path.addFirst(current);
+			double partialDistance = nodes[current].getCoords().airDistanceTo(nodes[last].getCoords());
+			partialDistances.addFirst(partialDistance);
+			distance += partialDistance;
+		}
+
+		return new PathDescriptor(path, distance, partialDistances);
+	}
+
+	/**
+	 * Selects the landmarks by the farthest-point selection using air distances.
+	 * Every next landmark is the node farthest from all the already selected ones,
+	 * nodes without any path are skipped.
+	 * @param count Number of landmarks.
+	 * @return Landmark nodes.
+	 */
+	private int[] selectLandmarks(int count) {
+		double[] minDist = new double[nodes.length];
+		Arrays.fill(minDist, Double.POSITIVE_INFINITY);
+		int[] selected = new int[count];
+		int selectedCount = 0;
+
+		int next = farthestFrom(0, minDist);
+		Arrays.fill(minDist, Double.POSITIVE_INFINITY);
+		while (selectedCount < count && next >= 0) {
+			selected[selectedCount++] = next;
+			minDist[next] = 0;
+			next = farthestFrom(next, minDist);
+		}
+
+		return Arrays.copyOf(selected, selectedCount);
+	}
+
+	/**
+	 * Lowers the distances to the nearest landmark by the distances to the node
+	 * and returns the node farthest from the landmarks.
+	 * @param node Node.
+	 * @param minDist Distances to the nearest landmark.
+	 * @return Farthest node, -1 if there is none.
+	 */
+	private int farthestFrom(int node, double[] minDist) {
+		int farthest = -1;
+		for (int v = 0; v < nodes.length; v++) {
+			if (graph.offsets[v] == graph.offsets[v + 1] || minDist[v] == 0) {
+				continue;
+			}
+			minDist[v] = Math.min(minDist[v], nodes[node].getCoords().airDistanceTo(nodes[v].getCoords()));
+			if (farthest < 0 || minDist[v] > minDist[farthest]) {
+				farthest = v;
+			}
+		}
+		return farthest;
+	}
+
+}
@@ -0,0 +1,232 @@
+package path_calculation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import simulation.Node;
+
+/**
+ * Selects the path calculator with the lowest predicted total of preprocessing and query time.
+ * The candidates marked to be tried first, e.g. those with a stored index, are tried before the others,
+ * so the bound of the cheap ones is known before the expensive ones are built.
+ * Then the candidates are tried in the order of their estimated build time, every candidate is built
+ * and a sample of queries is timed on it. A candidate is skipped without building it
+ * when its estimated build time alone exceeds the best predicted total so far
+ * and its sample queries stop as soon as its predicted total exceeds it.
+ * The statistics of the sample queries are reset, so the reports count only the queries of the simulation.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class PathCalculatorTuner {
+
+	/** Maximal time spent by the sample queries of one candidate */
+	private static final long SAMPLE_TIME_BUDGET_NANOS = 1_000_000_000L;
+
+	/** Number of roots the shortest path tree time is measured from */
+	private static final int TREE_SAMPLE_COUNT = 4;
+
+	private final int[] sampleSources;
+
+	private final int[] sampleTargets;
+
+	private final long expectedQueries;
+
+	/** Time of building the graph of the paths */
+	private final double graphMillis;
+
+	/** Time of computing one whole shortest path tree */
+	private final double treeMillis;
+
+	private final List<Candidate> candidates = new ArrayList<>();
+
+	/** Name of the selected candidate, null before the selection */
+	private String selectedName;
+
+	/**
+	 * Constructs the tuner and measures the time of building the graph and computing a shortest path tree.
+	 * @param nodes Nodes.
+	 * @param paths Paths between nodes.
+	 * @param sampleSources First nodes of the sample queries.
+	 * @param sampleTargets Second nodes of the sample queries.
+	 * @param expectedQueries Expected number of queries during the simulation.
+	 * @throws IllegalArgumentException if the sample arrays differ in length
+	 */
+	public PathCalculatorTuner(Node[] nodes, Path[] paths, int[] sampleSources, int[] sampleTargets, long expectedQueries) {
+		if (sampleSources.length != sampleTargets.length) {
+			throw new IllegalArgumentException("Sample sources and targets differ in length: " + sampleSources.length + " != " + sampleTargets.length);
+		}
+		this.sampleSources = sampleSources;
+		this.sampleTargets = sampleTargets;
+		this.expectedQueries = expectedQueries;
+		long start = System.nanoTime();
+		CsrGraph graph = new CsrGraph(nodes, paths);
+		this.graphMillis = (System.nanoTime() - start) * 1e-6;
+		this.treeMillis = measureTreeMillis(graph);
+	}
+
+	/**
+	 * Returns the measured time of building the graph of the paths,
+	 * used to estimate the build time of the candidates without an index.
+	 * @return Time of building the graph in milliseconds.
+	 */
+	public double getGraphMillis() {
+		return graphMillis;
+	}
+
+	/**
+	 * Returns the measured time of computing one whole shortest path tree,
+	 * used to estimate the build time of the candidates.
+	 * @return Time of computing one shortest path tree in milliseconds.
+	 */
+	public double getShortestPathTreeMillis() {
+		return treeMillis;
+	}
+
+	/**
+	 * Adds a candidate calculator.
+	 * @param name Name of the calculator.
+	 * @param estimatedBuildMillis Estimated build time in milliseconds.
+	 * @param factory Factory building the calculator.
+	 */
+	public void addCandidate(String name, double estimatedBuildMillis, Supplier<APathCalculator> factory) {
+		addCandidate(name, estimatedBuildMillis, false, factory);
+	}
+
+	/**
+	 * Adds a candidate calculator.
+	 * @param name Name of the calculator.
+	 * @param estimatedBuildMillis Estimated build time in milliseconds.
+	 * @param tryFirst Whether the candidate is tried before the candidates not marked so.
+	 * @param factory Factory building the calculator.
+	 */
+	public void addCandidate(String name, double estimatedBuildMillis, boolean tryFirst, Supplier<APathCalculator> factory) {
+		candidates.add(new Candidate(name, estimatedBuildMillis, tryFirst, factory));
+	}
+
+	/**
+	 * Returns the name of the candidate selected by {@link #select()}.
+	 * @return Name of the selected candidate, null before the selection.
+	 */
+	public String getSelectedName() {
+		return selectedName;
+	}
+
+	/**
+	 * Builds and times the candidates and returns the one with the lowest predicted total time.
+	 * Prints the measurements and the reason of the selection.
+	 * @return Selected path calculator.
+	 * @throws IllegalStateException if there is no candidate
+	 */
+	public APathCalculator select() {
+		if (candidates.isEmpty()) {
+			throw new IllegalStateException("No path calculator candidates");
+		}
+		candidates.sort(Comparator.<Candidate, Boolean>comparing(c -> !c.tryFirst).thenComparingDouble(c -> c.estimatedBuildMillis));
+
+		System.out.printf("Tuner: %d expected queries, %d sample queries, shortest path tree %.2f ms%n",
+				expectedQueries, sampleSources.length, treeMillis);
+
+		APathCalculator best = null;
+		String bestName = null;
+		double bestTotal = Double.POSITIVE_INFINITY;
+		for (Candidate candidate : candidates) {
+			if (candidate.estimatedBuildMillis >= bestTotal) {
+				System.out.printf("Tuner: %s skipped, estimated build %.1f ms exceeds the best predicted total %.1f ms%n",
+						candidate.name, candidate.estimatedBuildMillis, bestTotal);
+				continue;
+			}
+
+			long start = System.nanoTime();
+			APathCalculator calculator = candidate.factory.get();
+			double buildMillis = (System.nanoTime() - start) * 1e-6;
+			double queryMillis = measureQueryMillis(calculator, buildMillis, bestTotal);
+			calculator.resetStatistics();
+			double total = buildMillis + queryMillis * expectedQueries;
+			if (total > bestTotal) {
+				System.out.printf("Tuner: %s build %.1f ms, query %.4f ms, stopped as the predicted total %.1f ms exceeds the best %.1f ms%n",
+						candidate.name, buildMillis, queryMillis, total, bestTotal);
+				continue;
+			}
+			System.out.printf("Tuner: %s build %.1f ms, query %.4f ms, predicted total %.1f ms%n",
+					candidate.name, buildMillis, queryMillis, total);
+
+			if (total < bestTotal) {
+				best = calculator;
+				bestName = candidate.name;
+				bestTotal = total;
+			}
+		}
+
+		System.out.printf("Tuner: selected %s with the lowest predicted total %.1f ms%n", bestName, bestTotal);
+		selectedName = bestName;
+		return best;
+	}
+
+	/**
+	 * Times the sample queries the way the map asks them, the distance first if it is cheap.
+	 * Stops early when the time budget is spent or when the predicted total exceeds the best one,
+	 * then the candidate cannot be selected anyway.
+	 * @param calculator Built candidate calculator.
+	 * @param buildMillis Build time of the candidate in milliseconds.
+	 * @param bestTotal Best predicted total so far in milliseconds.
+	 * @return Average time of a query in milliseconds.
+	 */
+	private double measureQueryMillis(APathCalculator calculator, double buildMillis, double bestTotal) {
+		if (sampleSources.length == 0) {
+			return 0;
+		}
+
+		long start = System.nanoTime();
+		int done = 0;
+		while (done < sampleSources.length && System.nanoTime() - start < SAMPLE_TIME_BUDGET_NANOS) {
+			if (!calculator.hasCheapDistance()
+					|| calculator.getShortestDistance(sampleSources[done], sampleTargets[done]) != Double.POSITIVE_INFINITY) {
+				calculator.getShortestPath(sampleSources[done], sampleTargets[done]);
+			}
+			done++;
+			if (buildMillis + (System.nanoTime() - start) * 1e-6 / done * expectedQueries > bestTotal) {
+				break;
+			}
+		}
+		return (System.nanoTime() - start) * 1e-6 / done;
+	}
+
+	private double measureTreeMillis(CsrGraph graph) {
+		int count = Math.min(TREE_SAMPLE_COUNT, sampleTargets.length);
+		if (count == 0) {
+			return 0;
+		}
+
+		long start = System.nanoTime();
+		for (int k = 0; k < count; k++) {
+			graph.dijkstra(sampleTargets[k * sampleTargets.length / count]);
+		}
+		return (System.nanoTime() - start) * 1e-6 / count;
+	}
+
+	/**
+	 * Candidate calculator.
+	 */
+	private static class Candidate {
+
+		private final String name;
+
+		private final double estimatedBuildMillis;
+
+		private final boolean tryFirst;
+
+		private final Supplier<APathCalculator> factory;
+
+		private Candidate(String name, double estimatedBuildMillis, boolean tryFirst, Supplier<APathCalculator> factory) {
+			this.name = name;
+			this.estimatedBuildMillis = estimatedBuildMillis;
+			this.tryFirst = tryFirst;
+			this.factory = factory;
+		}
+
+	}
+
+}
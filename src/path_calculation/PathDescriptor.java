@@ -27,6 +27,9 @@ public class PathDescriptor {
 	 */
 	public final List<Double> partialDistances;
 	
+	/** Profile for the feasibility checks, created on the first use */
+	private PathProfile profile;
+	
 	/**
 	 * Constructs path descriptor
 	 * 
@@ -40,4 +43,16 @@ public class PathDescriptor {
 		this.partialDistances = partialDistances;
 	}
 	
+	/**
+	 * Returns the profile of the path, it is created on the first call.
+	 * 
+	 * @return Profile of the path.
+	 */
+	public PathProfile getProfile() {
+		if (profile == null) {
+			profile = new PathProfile(partialDistances);
+		}
+		return profile;
+	}
+	
 }
@@ -0,0 +1,214 @@
+package path_calculation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Profile of a path for the delivery feasibility checks.
+ * The travel time of a camel through the path is the length divided by its speed plus its drinks,
+ * the number of drinks depends only on the distance the camel can cover without drinking.
+ * The drink count is a step function of that distance, its steps are found lazily:
+ * a camel drinking only when it cannot cover the next edge splits the path the same way
+ * for a whole interval of distances, every computed interval is kept, so a later distance
+ * from a known interval is looked up by the binary search instead of walking the path.
+ * Keeping the intervals is not synchronized, a profile is used by one thread at a time.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class PathProfile {
+
+	/** Maximal number of bisection steps, the bisection usually reaches the neighbouring double sooner */
+	private static final int MAX_BISECTION_STEPS = 100;
+
+	/** Edge lengths in the path order */
+	private final double[] edges;
+
+	private final double length;
+
+	private final double longestEdge;
+
+	/** Beginnings of the known distance intervals, sorted */
+	private double[] intervalFrom = new double[4];
+
+	/** Ends of the known distance intervals (exclusive) */
+	private double[] intervalTo = new double[4];
+
+	/** Drink counts of the known distance intervals */
+	private int[] intervalDrinkCount = new int[4];
+
+	private int intervalCount = 0;
+
+	/**
+	 * Constructs the profile of a path.
+	 * @param partialDistances Edge lengths in the path order.
+	 */
+	PathProfile(List<Double> partialDistances) {
+		edges = new double[partialDistances.size()];
+		double sum = 0;
+		double longest = 0;
+		int i = 0;
+		for (double partialDistance : partialDistances) {
+			edges[i++] = partialDistance;
+			sum += partialDistance;
+			longest = Math.max(longest, partialDistance);
+		}
+		length = sum;
+		longestEdge = longest;
+	}
+
+	/**
+	 * Returns the length of the path.
+	 * @return Sum of the edge lengths.
+	 */
+	public double getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the length of the longest edge.
+	 * @return Length of the longest edge, 0 if the path has no edge.
+	 */
+	public double getLongestEdge() {
+		return longestEdge;
+	}
+
+	/**
+	 * Returns whether a camel covering the distance without drinking can go through the path.
+	 * @param distance Distance the camel can cover without drinking.
+	 * @return True, if no edge is longer than the distance, else false.
+	 */
+	public boolean isTraversable(double distance) {
+		return distance >= longestEdge;
+	}
+
+	/**
+	 * Returns the number of drinks of a camel going through the path,
+	 * the camel drinks only when it cannot cover the next edge.
+	 * @param distance Distance the camel can cover without drinking, the path has to be traversable.
+	 * @return Number of drinks.
+	 */
+	public int getDrinkCount(double distance) {
+		int low = 0;
+		int high = intervalCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (intervalFrom[middle] <= distance) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		if (low > 0 && distance < intervalTo[low - 1]) {
+			return intervalDrinkCount[low - 1];
+		}
+		return walk(distance, low);
+	}
+
+	/**
+	 * Returns the shortest distance without drinking a camel can have to go through the path
+	 * with at most the given number of drinks, found by the bisection of the drink count steps.
+	 * @param drinkCount Number of drinks.
+	 * @return Shortest distance without drinking with at most the number of drinks.
+	 */
+	public double getMinimalDistance(int drinkCount) {
+		double low = longestEdge;
+		if (getDrinkCount(low) <= drinkCount) {
+			return low;
+		}
+		double high = Math.max(length, low);
+		for (int i = 0; i < MAX_BISECTION_STEPS && Math.nextUp(low) < high; i++) {
+			double middle = low + (high - low) / 2;
+			if (getDrinkCount(middle) <= drinkCount) {
+				high = middle;
+			}
+			else {
+				low = middle;
+			}
+		}
+		return high;
+	}
+
+	/**
+	 * Walks the path drinking the way a camel does and keeps the interval of the distances
+	 * splitting the path the same way, from the longest part between two drinks to the shortest
+	 * distance covering some part together with the next edge.
+	 * @param distance Distance the camel can cover without drinking.
+	 * @param position Position of the interval in the known intervals.
+	 * @return Number of drinks.
+	 */
+	private int walk(double distance, int position) {
+		int drinkCount = 0;
+		double remaining = distance;
+		double part = 0;
+		double from = 0;
+		double to = Double.POSITIVE_INFINITY;
+		for (double edge : edges) {
+			if (remaining - edge < 0) {
+				drinkCount++;
+				remaining = distance;
+				from = Math.max(from, part);
+				to = Math.min(to, part + edge);
+				part = 0;
+			}
+			remaining -= edge;
+			part += edge;
+		}
+		from = Math.max(from, part);
+
+		// the sums may be rounded differently than the walk, the distance itself is always inside
+		from = Math.min(from, distance);
+		to = Math.max(to, Math.nextUp(distance));
+		if (position > 0) {
+			from = Math.max(from, intervalTo[position - 1]);
+		}
+		if (position < intervalCount) {
+			to = Math.min(to, intervalFrom[position]);
+		}
+		insert(position, from, to, drinkCount);
+		return drinkCount;
+	}
+
+	/**
+	 * Inserts a known interval, merges it with the neighbouring intervals of the same drink count.
+	 */
+	private void insert(int position, double from, double to, int drinkCount) {
+		boolean mergeLeft = position > 0 && intervalTo[position - 1] == from && intervalDrinkCount[position - 1] == drinkCount;
+		boolean mergeRight = position < intervalCount && intervalFrom[position] == to && intervalDrinkCount[position] == drinkCount;
+		if (mergeLeft && mergeRight) {
+			intervalTo[position - 1] = intervalTo[position];
+			remove(position);
+		}
+		else if (mergeLeft) {
+			intervalTo[position - 1] = to;
+		}
+		else if (mergeRight) {
+			intervalFrom[position] = from;
+		}
+		else {
+			if (intervalCount == intervalFrom.length) {
+				intervalFrom = Arrays.copyOf(intervalFrom, 2 * intervalCount);
+				intervalTo = Arrays.copyOf(intervalTo, 2 * intervalCount);
+				intervalDrinkCount = Arrays.copyOf(intervalDrinkCount, 2 * intervalCount);
+			}
+			int moved = intervalCount - position;
+			System.arraycopy(intervalFrom, position, intervalFrom, position + 1, moved);
+			System.arraycopy(intervalTo, position, intervalTo, position + 1, moved);
+			System.arraycopy(intervalDrinkCount, position, intervalDrinkCount, position + 1, moved);
+			intervalFrom[position] = from;
+			intervalTo[position] = to;
+			intervalDrinkCount[position] = drinkCount;
+			intervalCount++;
+		}
+	}
+
+	private void remove(int position) {
+		int moved = intervalCount - position - 1;
+		System.arraycopy(intervalFrom, position + 1, intervalFrom, position, moved);
+		System.arraycopy(intervalTo, position + 1, intervalTo, position, moved);
+		System.arraycopy(intervalDrinkCount, position + 1, intervalDrinkCount, position, moved);
+		intervalCount--;
+	}
+
+}
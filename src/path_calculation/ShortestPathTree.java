@@ -0,0 +1,57 @@
+package path_calculation;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Tree of the shortest paths from one root node to all other nodes.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class ShortestPathTree {
+
+	/** Root of the tree */
+	public final int root;
+
+	/** Distances from the root, infinity for unreachable nodes */
+	public final double[] dist;
+
+	/** Predecessors on the path from the root, -1 for the root and unreachable nodes */
+	public final int[] prev;
+
+	/**
+	 * Constructs the shortest path tree.
+	 * @param root Root of the tree.
+	 * @param dist Distances from the root.
+	 * @param prev Predecessors on the path from the root.
+	 */
+	public ShortestPathTree(int root, double[] dist, int[] prev) {
+		this.root = root;
+		this.dist = dist;
+		this.prev = prev;
+	}
+
+	/**
+	 * Returns the sequence of nodes from the node to the root.
+	 * The graph is undirected, so it is the reversed path from the root to the node.
+	 * @param i Node.
+	 * @return Sequence of nodes from the node to the root, empty if the node is unreachable.
+	 */
+	public List<Integer> getPathToRoot(int i) {
+		LinkedList<Integer> path = new LinkedList<>();
+		if (dist[i] == Double.POSITIVE_INFINITY) {
+			return path;
+		}
+
+		int k = i;
+		path.add(k);
+		while (k != root) {
+			k = prev[k];
+			path.add(k);
+		}
+
+		return path;
+	}
+
+}
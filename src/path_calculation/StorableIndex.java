@@ -0,0 +1,32 @@
+package path_calculation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Path calculator whose preprocessed index can be stored and loaded again instead of being built.
+ * The calculator has a constructor reading the index written by {@link #writeIndex(ByteBuffer)}.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public interface StorableIndex {
+
+	/**
+	 * Returns the name of the index, unique among the calculators.
+	 * @return Name of the index.
+	 */
+	String getIndexName();
+
+	/**
+	 * Returns the number of bytes {@link #writeIndex(ByteBuffer)} writes.
+	 * @return Size of the index in bytes.
+	 */
+	long getIndexSize();
+
+	/**
+	 * Writes the index into the buffer at its position.
+	 * @param buffer Buffer with at least {@link #getIndexSize()} bytes remaining.
+	 */
+	void writeIndex(ByteBuffer buffer);
+
+}
@@ -1,11 +1,12 @@
 package requests;
 
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import camels.Camel;
+import camels.CamelFactory;
+import camels.CamelRegistry;
+import camels.CamelSet;
 import events.RequestFailEvent;
 
 /**
@@ -30,10 +31,11 @@ public class Request implements Comparable<Request> {
 	private int basketsRemaining;
 	/** Baskets that have been delivered */
 	private int deliveredBasketsCount = 0;
-	/** List of camels delivering the request */
-	private final List<Camel> camels = new LinkedList<Camel>();
+	/** Camels delivering the request at the moment */
+	private final CamelSet camels = new CamelSet();
 	
-	private final Set<Camel> servingCamels = new HashSet<>();
+	/** All the camels that participated in the delivery */
+	private final CamelSet servingCamels = new CamelSet();
 
 	private RequestFailEvent requestFailEvent;
 	
@@ -46,7 +48,20 @@ public class Request implements Comparable<Request> {
 	 * @param deliveryTime time for delivery of the request since the time of receiving
 	 */
 	public Request(double requestTime, int oasisIndex, int basketCount, double deliveryTime) {
-		this.index = instanceCounter++;
+		this(instanceCounter++, requestTime, oasisIndex, basketCount, deliveryTime);
+	}
+	
+	/**
+	 * Creates a new request with an index reserved by {@link #reserveIndices(int)}
+	 * 
+	 * @param index reserved index of the request
+	 * @param oasisIndex index of the oasis that baskets should be delivered to
+	 * @param basketCount number of baskets to be delivered
+	 * @param requestTime time when request should be received
+	 * @param deliveryTime time for delivery of the request since the time of receiving
+	 */
+	Request(int index, double requestTime, int oasisIndex, int basketCount, double deliveryTime) {
+		this.index = index;
 		this.requestTime = requestTime;
 		this.oasisIndex = oasisIndex;
 		this.basketCount = basketCount;	
@@ -54,6 +69,17 @@ public class Request implements Comparable<Request> {
 		basketsRemaining = basketCount;
 	}
 
+	/**
+	 * Reserves indices for requests created later, so that they keep their input order
+	 * @param count number of indices to reserve
+	 * @return first reserved index
+	 */
+	static int reserveIndices(int count) {
+		int firstIndex = instanceCounter;
+		instanceCounter += count;
+		return firstIndex;
+	}
+
 	/**
 	 * Returns the index of oasis that created the request.
 	 * @return Index of the oasis that created the request.
@@ -144,18 +170,35 @@ public class Request implements Comparable<Request> {
 
 	/**
 	 * Returns the camels participating in the delivery at the moment.
-	 * @return The camels participating in the delivery at the moment.
+	 * @return The camels participating in the delivery at the moment in the order of their indices.
 	 */
 	public List<Camel> getCamels() {
-		return camels;
+		return toCamels(camels);
+	}
+	
+	/**
+	 * Returns the number of camels participating in the delivery at the moment.
+	 * @return Number of the camels participating in the delivery at the moment.
+	 */
+	public int getCamelCount() {
+		return camels.size();
 	}
 	
 	/**
 	 * Returns all the camels that participated in the delivery.
-	 * @return All the camels that participated in the delivery.
+	 * @return All the camels that participated in the delivery in the order of their indices.
 	 */
-	public Set<Camel> getServingCamels() {
-		return servingCamels;
+	public List<Camel> getServingCamels() {
+		return toCamels(servingCamels);
+	}
+	
+	private static List<Camel> toCamels(CamelSet camelSet) {
+		CamelRegistry registry = CamelFactory.getInstance().getRegistry();
+		List<Camel> result = new ArrayList<>(camelSet.size());
+		for(int id : camelSet.toArray()) {
+			result.add(registry.getCamel(id));
+		}
+		return result;
 	}
 	
 	/**
@@ -163,8 +206,8 @@ public class Request implements Comparable<Request> {
 	 * @param camel Camel.
 	 */
 	public void addCamel(Camel camel) {
-		camels.add(camel);
-		servingCamels.add(camel);
+		camels.add(camel.getIndex());
+		servingCamels.add(camel.getIndex());
 	}
 	
 	/**
@@ -173,7 +216,7 @@ public class Request implements Comparable<Request> {
 	 * @throws IllegalStateException if removed camel was not a camel delivering the request
 	 */
 	public void removeCamel(Camel camel) {
-		boolean removed = camels.remove(camel);
+		boolean removed = camels.remove(camel.getIndex());
 		if(!removed) {
 			throw new IllegalStateException("Trying to remove a camel that is not handling the event");
 		}
@@ -223,8 +266,8 @@ public class Request implements Comparable<Request> {
 	}
 	
 	/**
-	 * Compares the requests times of creation and oasis indices.
-	 * @return 1 if the first is greater, -1 if the first is less, 0 if they are equal.
+	 * Compares the requests times of creation, oasis indices and indices.
+	 * @return 1 if the first is greater, -1 if the first is less, 0 if they are the same request.
 	 */
 	@Override
 	public int compareTo(Request o) {
@@ -242,6 +285,7 @@ public class Request implements Comparable<Request> {
 			return oasisIndexDiff;
 		}
 		
-		return 1;
+		//Distinct requests to the same oasis at the same time must not be equal, the requests are kept in sorted maps
+		return Integer.compare(this.index, o.index);
 	}
 }
@@ -0,0 +1,199 @@
+package requests;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed of requests appended to a running simulation
+ * A reader thread tails an append-only file or reads a named pipe and puts the complete lines
+ * into a bounded queue, the reader waits when the queue is full (backpressure)
+ * The simulation drains the queue in batches without waiting for the reader
+ * Every line has the format of add_request: request_time oasis_index basket_count delivery_time,
+ * the oasis index is in the input data format, the line "end" ends the feed
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class RequestFeed {
+
+	/** Line that ends the feed */
+	public static final String END_LINE = "end";
+
+	/** Time the reader waits for more data at the end of the file in milliseconds */
+	private static final long POLL_MILLIS = 50;
+
+	/** Size of the read buffer */
+	private static final int BUFFER_SIZE = 8192;
+
+	private final String fileName;
+
+	/** Read requests waiting to be added to the simulation */
+	private final BlockingQueue<FeedRecord> queue;
+
+	private final Thread reader;
+
+	/** Whether the end line was read, the feed was stopped or reading failed */
+	private volatile boolean ended = false;
+
+	/**
+	 * Constructs the feed, reading starts with {@link #start()}
+	 * @param fileName name of the file or named pipe
+	 * @param capacity maximal number of read requests waiting to be added
+	 */
+	public RequestFeed(String fileName, int capacity) {
+		this.fileName = fileName;
+		this.queue = new ArrayBlockingQueue<FeedRecord>(capacity);
+		this.reader = new Thread(this::read, "request-feed");
+		this.reader.setDaemon(true);
+	}
+
+	/**
+	 * Starts the reader thread
+	 */
+	public void start() {
+		reader.start();
+	}
+
+	/**
+	 * Stops reading, the requests already read can still be drained
+	 */
+	public void stop() {
+		ended = true;
+		reader.interrupt();
+	}
+
+	/**
+	 * Returns whether the feed has ended and all its requests were drained
+	 * @return true if no more requests will come from the feed, false otherwise
+	 */
+	public boolean isFinished() {
+		return ended && queue.isEmpty();
+	}
+
+	/**
+	 * Moves the read requests into the list without waiting
+	 * @param records list to add the records to
+	 * @return number of records added
+	 */
+	public int drainTo(List<FeedRecord> records) {
+		return queue.drainTo(records);
+	}
+
+	/**
+	 * Waits for a read request at most the given time
+	 * @param millis maximal time to wait in milliseconds
+	 * @return read request or null if there was none
+	 */
+	public FeedRecord poll(long millis) {
+		try {
+			return queue.poll(millis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the name of the fed file
+	 * @return name of the file or named pipe
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Reads the file, only complete lines are parsed, at the end of the file waits for more data
+	 */
+	private void read() {
+		try (InputStream in = new FileInputStream(fileName)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			byte[] pending = new byte[0]; // bytes of an incomplete UTF-8 line
+			while (!ended) {
+				int read = in.read(buffer);
+				if (read < 0) {
+					Thread.sleep(POLL_MILLIS);
+					continue;
+				}
+
+				int lineStart = 0;
+				for (int i = 0; i < read && !ended; i++) {
+					if (buffer[i] == '\n') {
+						processLine(new String(concat(pending, buffer, lineStart, i), StandardCharsets.UTF_8).trim());
+						pending = new byte[0];
+						lineStart = i + 1;
+					}
+				}
+				pending = concat(pending, buffer, lineStart, read);
+			}
+		} catch (IOException e) {
+			System.out.println("Request feed " + fileName + " failed: " + e.getMessage());
+		} catch (InterruptedException e) {
+			// stopped
+		} finally {
+			ended = true;
+		}
+	}
+
+	private void processLine(String line) throws InterruptedException {
+		if (line.isEmpty()) {
+			return;
+		}
+		if (line.equals(END_LINE)) {
+			ended = true;
+			return;
+		}
+
+		String[] values = line.split("\\s+");
+		if (values.length != 4) {
+			System.out.println("Request feed: invalid line skipped: " + line);
+			return;
+		}
+		try {
+			FeedRecord record = new FeedRecord(
+					Double.parseDouble(values[0]),
+					Integer.parseInt(values[1]) - 1,
+					Integer.parseInt(values[2]),
+					Double.parseDouble(values[3]));
+			queue.put(record);
+		} catch (NumberFormatException e) {
+			System.out.println("Request feed: invalid line skipped: " + line);
+		}
+	}
+
+	private static byte[] concat(byte[] first, byte[] second, int from, int to) {
+		byte[] result = new byte[first.length + to - from];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, from, result, first.length, to - from);
+		return result;
+	}
+
+	/**
+	 * Request read from the feed, the request itself is created by the simulation
+	 */
+	public static class FeedRecord {
+
+		/** Time of the request */
+		public final double requestTime;
+		/** 0-based index of the oasis */
+		public final int oasisIndex;
+		/** Number of baskets */
+		public final int basketCount;
+		/** Time for delivery */
+		public final double deliveryTime;
+
+		private FeedRecord(double requestTime, int oasisIndex, int basketCount, double deliveryTime) {
+			this.requestTime = requestTime;
+			this.oasisIndex = oasisIndex;
+			this.basketCount = basketCount;
+			this.deliveryTime = deliveryTime;
+		}
+
+	}
+
+}
@@ -1,5 +1,7 @@
 package	requests;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -7,6 +9,8 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 
 import events.EventManager;
+import events.RequestBatchEvent;
+import events.RequestFeedEvent;
 import events.RequestReceiveEvent;
 import events.SimulationEndEvent;
 
@@ -24,6 +28,16 @@ public class RequestManager {
 	private final Map<Request, RequestState> requests = new TreeMap<Request, RequestState>();
 	/** Requests that are unprocessed or unfinished (could not be distributed yet) sorted by remaining time to deliver them */
 	private final Set<Request> unfinishedRequests = new TreeSet<Request>(new RequestTimeLeftComparator());
+	/** Source of the requests of the input that are received one by one, null if there is none */
+	private RequestSource requestSource;
+	/** Request of the source whose RequestReceiveEvent is in the queue */
+	private Request pendingSourceRequest;
+	/** Feed of requests appended to the running simulation, null if there is none */
+	private RequestFeed requestFeed;
+	/** Requests received at the current time waiting to be processed together, empty if no batch is scheduled */
+	private final List<Request> admissionBatch = new ArrayList<Request>();
+	/** Number of requests that are neither completed nor cancelled */
+	private int openRequestCount = 0;
 	
 	/** The one and only instance of this class (singleton) */
 	private static final RequestManager INSTANCE = new RequestManager();
@@ -42,10 +56,70 @@ public class RequestManager {
 	 * @param request request to add
 	 */
 	public void addRequest(Request request) {
-		requests.put(request, RequestState.Inactive);
+		changeRequestState(request, RequestState.Inactive);
 		EVENT_MANAGER.addEvent(new RequestReceiveEvent(request.getRequestTime(), request));
 	}
 	
+	/**
+	 * Sets the source of the requests of the input
+	 * If the requests are ordered by time, only the RequestReceiveEvent of the next request
+	 * is kept in the event queue and the following one is added when it is received,
+	 * otherwise all the requests are added at once
+	 * @param requestSource source of the requests
+	 */
+	public void setRequestSource(RequestSource requestSource) {
+		if(!requestSource.isTimeOrdered()) {
+			while(requestSource.hasNext()) {
+				addRequest(requestSource.next());
+			}
+			return;
+		}
+		
+		this.requestSource = requestSource;
+		addNextSourceRequest();
+	}
+	
+	/**
+	 * Notifies the manager that a request has been received
+	 * Adds the next request of the source, if the received one was from the source
+	 * @param request received request
+	 */
+	public void requestReceived(Request request) {
+		if(request == pendingSourceRequest) {
+			addNextSourceRequest();
+		}
+	}
+	
+	/**
+	 * Adds a received request to the batch of the requests received at the same time
+	 * The batch is processed together after all of them are received
+	 * @param request received request
+	 */
+	public void addToAdmissionBatch(Request request) {
+		if(admissionBatch.isEmpty()) {
+			EVENT_MANAGER.addEvent(new RequestBatchEvent(EVENT_MANAGER.getSimulationTime()));
+		}
+		admissionBatch.add(request);
+	}
+	
+	/**
+	 * Takes the requests of the batch out, the next received request starts a new batch
+	 * @return requests of the batch in the order they were received
+	 */
+	public List<Request> takeAdmissionBatch() {
+		List<Request> batch = new ArrayList<Request>(admissionBatch);
+		admissionBatch.clear();
+		return batch;
+	}
+	
+	private void addNextSourceRequest() {
+		pendingSourceRequest = null;
+		if(requestSource != null && requestSource.hasNext()) {
+			pendingSourceRequest = requestSource.next();
+			addRequest(pendingSourceRequest);
+		}
+	}
+	
 	/**
 	 * Adds a request to unfinished to try and distribute it again
 	 * @param request request to add to unfinished
@@ -60,7 +134,52 @@ public class RequestManager {
 	 * @param newState state to change to
 	 */
 	public void changeRequestState(Request request, RequestState newState) {
-		requests.put(request, newState);
+		RequestState oldState = requests.put(request, newState);
+		if(!isClosed(oldState) && isClosed(newState)) {
+			openRequestCount--;
+		} else if(isClosed(oldState) && !isClosed(newState)) {
+			openRequestCount++;
+		}
+	}
+	
+	private static boolean isClosed(RequestState state) {
+		return state == null || state == RequestState.Completed || state == RequestState.Cancelled;
+	}
+	
+	/**
+	 * Returns whether there is nothing to simulate, no request is open and no request of the input is pending
+	 * @return true if all the requests are completed or cancelled, false otherwise
+	 */
+	public boolean isIdle() {
+		return openRequestCount == 0 && pendingSourceRequest == null;
+	}
+	
+	/**
+	 * Starts a feed of requests appended to the running simulation
+	 * @param requestFeed feed of requests
+	 * @param interval simulation time between two batches of the fed requests
+	 */
+	public void startRequestFeed(RequestFeed requestFeed, double interval) {
+		this.requestFeed = requestFeed;
+		requestFeed.start();
+		EVENT_MANAGER.addEvent(new RequestFeedEvent(EVENT_MANAGER.getSimulationTime(), requestFeed, interval));
+	}
+	
+	/**
+	 * Returns whether a feed of requests is running
+	 * @return true if more requests can come from the feed, false otherwise
+	 */
+	public boolean hasRunningRequestFeed() {
+		return requestFeed != null && !requestFeed.isFinished();
+	}
+	
+	/**
+	 * Stops the feed of requests, the requests already read from it are still added
+	 */
+	public void stopRequestFeed() {
+		if(requestFeed != null) {
+			requestFeed.stop();
+		}
 	}
 	
 	/**
@@ -71,6 +190,23 @@ public class RequestManager {
 		return requests;
 	}
 	
+	/**
+	 * Returns the number of the requests of the input that are not among all requests yet,
+	 * only the next request of the input is queued before it is received
+	 * @return number of the requests of the input not queued yet
+	 */
+	public int getUnqueuedRequestCount() {
+		return requestSource != null ? requestSource.getRemainingCount() : 0;
+	}
+	
+	/**
+	 * Returns the number of baskets of the requests of the input that are not among all requests yet
+	 * @return number of baskets of the requests of the input not queued yet
+	 */
+	public int getUnqueuedBasketCount() {
+		return requestSource != null ? requestSource.getRemainingBasketCount() : 0;
+	}
+	
 	/**
 	 * Method to get unfinished requests in order to try to process them again
 	 * @return Unfinished requests to be later processed.
@@ -84,16 +220,26 @@ public class RequestManager {
 	 * @param request request to cancel
 	 */
 	public void cancelRequest(Request request) {
-		requests.put(request, RequestState.Cancelled);
+		changeRequestState(request, RequestState.Cancelled);
 		unfinishedRequests.remove(request);
+		admissionBatch.remove(request);
 
 		EVENT_MANAGER.cancelRequestEvents(request);
+		
+		//The next request of the source would be added when this one was received
+		if(request == pendingSourceRequest) {
+			addNextSourceRequest();
+		}
 	}
 	
 	/**
 	 * Test whether all events are completed or cancelled and ends the simulation if they are
 	 */
 	public void testSimulationEnd() {
+		if(pendingSourceRequest != null || hasRunningRequestFeed()) {
+			return;
+		}
+		
 		Set<Entry<Request, RequestState>> requestEntrySet = requests.entrySet();
 		for(Entry<Request, RequestState> entry : requestEntrySet) {
 			if(!(entry.getValue().equals(RequestState.Completed) || entry.getValue().equals(RequestState.Cancelled))) {
@@ -0,0 +1,111 @@
+package requests;
+
+/**
+ * Source of the requests of the input
+ * Keeps the request columns and a cursor into them, the requests are created one by one when they arrive,
+ * so only the next arrival has to be in the event queue
+ * Indices of all the requests are reserved up front, so they stay in input order
+ * even when other requests are added meanwhile
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class RequestSource {
+
+	private final double[] requestTimes;
+	private final int[] oasisIndices;
+	private final int[] basketCounts;
+	private final double[] deliveryTimes;
+
+	/** Index of the first request of the source */
+	private final int firstIndex;
+
+	/** Position of the next request to create */
+	private int cursor = 0;
+
+	/**
+	 * Constructs the source of the requests and reserves their indices
+	 * @param requestTimes times of the requests
+	 * @param oasisIndices 0-based oasis indices of the requests
+	 * @param basketCounts basket counts of the requests
+	 * @param deliveryTimes delivery times of the requests
+	 * @throws IllegalArgumentException if the columns differ in length
+	 */
+	public RequestSource(double[] requestTimes, int[] oasisIndices, int[] basketCounts, double[] deliveryTimes) {
+		if(oasisIndices.length != requestTimes.length || basketCounts.length != requestTimes.length
+				|| deliveryTimes.length != requestTimes.length) {
+			throw new IllegalArgumentException("Request columns differ in length");
+		}
+		this.requestTimes = requestTimes;
+		this.oasisIndices = oasisIndices;
+		this.basketCounts = basketCounts;
+		this.deliveryTimes = deliveryTimes;
+		this.firstIndex = Request.reserveIndices(requestTimes.length);
+	}
+
+	/**
+	 * Returns whether the requests are ordered by their time
+	 * Only then can they be received one by one
+	 * @return true if no request comes before the previous one, false otherwise
+	 */
+	public boolean isTimeOrdered() {
+		for(int i = 1; i < requestTimes.length; i++) {
+			if(requestTimes[i] < requestTimes[i - 1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether there is any request not created yet
+	 * @return true if there is a next request, false otherwise
+	 */
+	public boolean hasNext() {
+		return cursor < requestTimes.length;
+	}
+
+	/**
+	 * Creates the next request and moves the cursor
+	 * @return next request
+	 * @throws IllegalStateException if there is no next request
+	 */
+	public Request next() {
+		if(!hasNext()) {
+			throw new IllegalStateException("No more requests in the source");
+		}
+		Request request = new Request(firstIndex + cursor, requestTimes[cursor], oasisIndices[cursor],
+				basketCounts[cursor], deliveryTimes[cursor]);
+		cursor++;
+		return request;
+	}
+
+	/**
+	 * Returns the number of the requests not created yet
+	 * @return number of the remaining requests
+	 */
+	public int getRemainingCount() {
+		return requestTimes.length - cursor;
+	}
+
+	/**
+	 * Returns the number of baskets of the requests not created yet
+	 * @return number of baskets of the remaining requests
+	 */
+	public int getRemainingBasketCount() {
+		int basketCount = 0;
+		for(int i = cursor; i < basketCounts.length; i++) {
+			basketCount += basketCounts[i];
+		}
+		return basketCount;
+	}
+
+	/**
+	 * Returns the number of all requests of the source
+	 * @return number of requests
+	 */
+	public int size() {
+		return requestTimes.length;
+	}
+
+}
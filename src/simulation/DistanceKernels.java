@@ -0,0 +1,126 @@
+package simulation;
+
+/**
+ * Batch air distance computations over coordinates stored as struct-of-arrays.
+ * This is the scalar implementation, the vector implementation is used instead
+ * when the jdk.incubator.vector module is present (run with --add-modules jdk.incubator.vector).
+ * Both compute the distances exactly as {@link Coordinates#airDistanceTo(Coordinates)}.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class DistanceKernels {
+
+	/** Name of the module with the Vector API */
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	/**
+	 * Creates the best available kernels.
+	 * @return Vector kernels, if the Vector API module is present, else scalar kernels.
+	 */
+	static DistanceKernels create() {
+		if(ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+			try {
+				return new VectorDistanceKernels();
+			} catch (LinkageError e) {
+				System.out.println("Vector API not usable, using scalar distance kernels: " + e);
+			}
+		}
+		return new DistanceKernels();
+	}
+
+	/**
+	 * Returns the name of the kernels.
+	 * @return Name of the kernels.
+	 */
+	String getName() {
+		return "scalar";
+	}
+
+	/**
+	 * Computes the distances from a point to a range of points.
+	 * @param x X coordinate of the point.
+	 * @param y Y coordinate of the point.
+	 * @param xs X coordinates.
+	 * @param ys Y coordinates.
+	 * @param from Index of the first point of the range.
+	 * @param count Number of points in the range.
+	 * @param out Distances, out[k] is the distance to point from + k.
+	 */
+	void distancesFrom(double x, double y, double[] xs, double[] ys, int from, int count, double[] out) {
+		for(int k = 0; k < count; k++) {
+			double dx = x - xs[from + k];
+			double dy = y - ys[from + k];
+			out[k] = Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+
+	/**
+	 * Computes the distances from a point to the points at the given indices.
+	 * @param x X coordinate of the point.
+	 * @param y Y coordinate of the point.
+	 * @param xs X coordinates.
+	 * @param ys Y coordinates.
+	 * @param indices Indices of the points.
+	 * @param count Number of indices used.
+	 * @param out Distances, out[k] is the distance to point indices[k].
+	 */
+	void distancesFrom(double x, double y, double[] xs, double[] ys, int[] indices, int count, double[] out) {
+		for(int k = 0; k < count; k++) {
+			double dx = x - xs[indices[k]];
+			double dy = y - ys[indices[k]];
+			out[k] = Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+
+	/**
+	 * Computes the distances between pairs of points.
+	 * @param xs X coordinates.
+	 * @param ys Y coordinates.
+	 * @param us Indices of the first points of the pairs.
+	 * @param vs Indices of the second points of the pairs.
+	 * @param count Number of pairs.
+	 * @param out Distances, out[k] is the distance between points us[k] and vs[k].
+	 */
+	void pairDistances(double[] xs, double[] ys, int[] us, int[] vs, int count, double[] out) {
+		for(int k = 0; k < count; k++) {
+			double dx = xs[us[k]] - xs[vs[k]];
+			double dy = ys[us[k]] - ys[vs[k]];
+			out[k] = Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+
+	/**
+	 * Returns the indices 0 .. count - 1 stably sorted by the keys.
+	 * @param keys Keys.
+	 * @param count Number of keys.
+	 * @return Indices sorted by the keys, equal keys keep their order.
+	 */
+	static int[] stableOrder(double[] keys, int count) {
+		int[] order = new int[count];
+		for(int k = 0; k < count; k++) {
+			order[k] = k;
+		}
+		int[] buffer = new int[count];
+		for(int width = 1; width < count; width *= 2) {
+			for(int from = 0; from < count - width; from += 2 * width) {
+				merge(keys, order, buffer, from, from + width, Math.min(from + 2 * width, count));
+			}
+		}
+		return order;
+	}
+
+	private static void merge(double[] keys, int[] order, int[] buffer, int from, int middle, int to) {
+		System.arraycopy(order, from, buffer, from, to - from);
+		int a = from;
+		int b = middle;
+		for(int k = from; k < to; k++) {
+			if(b >= to || (a < middle && keys[buffer[a]] <= keys[buffer[b]])) {
+				order[k] = buffer[a++];
+			} else {
+				order[k] = buffer[b++];
+			}
+		}
+	}
+
+}
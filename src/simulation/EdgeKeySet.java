@@ -0,0 +1,56 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Set of undirected edges between nodes, stored as packed (min, max) node index pairs
+ * in an open addressing table of longs, no object is allocated per edge.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class EdgeKeySet {
+
+	/** Key of an empty slot, no pair of node indices packs to it */
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	/** Multiplier of the Fibonacci hashing */
+	private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+	private final long[] keys;
+
+	/** Number of bits of a slot index */
+	private final int bits;
+
+	/**
+	 * Constructs an empty set for the given number of edges, it is never resized.
+	 * @param capacity Maximal number of edges.
+	 */
+	EdgeKeySet(int capacity) {
+		int slots = Integer.highestOneBit(Math.max(2, 2 * capacity - 1)) << 1; // at most half full
+		bits = Integer.numberOfTrailingZeros(slots);
+		keys = new long[slots];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Adds an edge, the order of its nodes does not matter.
+	 * @param u Index of one node.
+	 * @param v Index of the other node.
+	 * @return True, if the edge was not in the set yet, else false.
+	 */
+	boolean add(int u, int v) {
+		long key = ((long) Math.min(u, v) << 32) | (Math.max(u, v) & 0xFFFFFFFFL);
+		int mask = keys.length - 1;
+		for(int slot = (int) ((key * GOLDEN_RATIO) >>> (64 - bits)); ; slot = (slot + 1) & mask) {
+			if(keys[slot] == EMPTY) {
+				keys[slot] = key;
+				return true;
+			}
+			if(keys[slot] == key) {
+				return false;
+			}
+		}
+	}
+
+}
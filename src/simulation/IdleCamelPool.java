@@ -0,0 +1,212 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import camels.Camel;
+import camels.CamelFactory;
+import camels.CamelRegistry;
+import camels.CamelSet;
+import camels.CamelType;
+import events.EventManager;
+import path_calculation.PathDescriptor;
+import path_calculation.PathProfile;
+import requests.Request;
+
+/**
+ * Idle camels of a warehouse indexed by their type and speed.
+ * Camels of every type are kept in an array sorted by speed. For a path, the camels of a type
+ * slower than a lower bound cannot deliver in time, so the search for a feasible camel
+ * starts at the bound found by the binary search and the slowest feasible camel is taken,
+ * leaving the faster ones for more urgent requests.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class IdleCamelPool {
+
+	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
+	private static final CamelRegistry REGISTRY = CamelFactory.getInstance().getRegistry();
+
+	/** Relative tolerance of the speed lower bound, so rounding never excludes a feasible camel */
+	private static final double SPEED_BOUND_TOLERANCE = 1e-9;
+
+	/** Camels of the types in the order the types appeared */
+	private final java.util.Map<CamelType, TypePool> pools = new LinkedHashMap<>();
+
+	/** Number of idle camels */
+	private int size = 0;
+
+	/** Sum of the max loads of the idle camels */
+	private int capacity = 0;
+
+	/**
+	 * Adds an idle camel.
+	 * @param camel Camel.
+	 */
+	void add(Camel camel) {
+		pools.computeIfAbsent(camel.getType(), TypePool::new).add(camel.getIndex(), camel.getMovementSpeed());
+		size++;
+		capacity += camel.getMaxLoad();
+	}
+
+	/**
+	 * Removes and returns the camel to carry a part of the request through the path.
+	 * Of every type the slowest camel able to deliver in time is found,
+	 * the one carrying more baskets is taken, the slower one if they carry the same.
+	 * @param request Request.
+	 * @param pathDescriptor Descriptor of the path the camel follows.
+	 * @param basketAmount Number of baskets not distributed yet.
+	 * @param basketManipulationTime Time of manipulation with one basket in the warehouse.
+	 * @return Camel, null if no idle camel can deliver in time.
+	 */
+	Camel take(Request request, PathDescriptor pathDescriptor, int basketAmount, double basketManipulationTime) {
+		double remainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
+		PathProfile profile = pathDescriptor.getProfile();
+
+		TypePool bestPool = null;
+		int bestPosition = -1;
+		int bestLoad = 0;
+		for (TypePool pool : pools.values()) {
+			if (pool.size == 0 || !profile.isTraversable(pool.maxDistance)) {
+				continue;
+			}
+			int load = Math.min(pool.type.getMaxLoad(), basketAmount);
+			if (load < bestLoad) {
+				continue;
+			}
+			// the camels with the longest distance drink the least
+			double slack = remainingTime - 2 * load * basketManipulationTime
+					- profile.getDrinkCount(pool.maxDistance) * pool.type.getDrinkTime();
+			if (slack < 0) {
+				continue;
+			}
+			double minSpeed = profile.getLength() == 0 ? 0 : profile.getLength() / slack * (1 - SPEED_BOUND_TOLERANCE);
+
+			for (int position = pool.firstNotSlowerThan(minSpeed); position < pool.size; position++) {
+				if (load == bestLoad && pool.speeds[position] >= bestPool.speeds[bestPosition]) {
+					break;
+				}
+				if (Camel.canDeliverInTime(pool.speeds[position], REGISTRY.getDistance(pool.ids[position]), pool.type.getDrinkTime(),
+						load, basketManipulationTime, profile, remainingTime)) {
+					bestPool = pool;
+					bestPosition = position;
+					bestLoad = load;
+					break;
+				}
+			}
+		}
+
+		if (bestPool == null) {
+			return null;
+		}
+		int id = bestPool.remove(bestPosition);
+		size--;
+		capacity -= bestPool.type.getMaxLoad();
+		return REGISTRY.getCamel(id);
+	}
+
+	/**
+	 * Returns the number of idle camels.
+	 * @return Number of idle camels.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of baskets the idle camels can carry at once.
+	 * @return Sum of the max loads of the idle camels.
+	 */
+	int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Adds all the idle camels into the set.
+	 * @param camels Set of camels.
+	 */
+	void addAllTo(CamelSet camels) {
+		for (TypePool pool : pools.values()) {
+			for (int position = 0; position < pool.size; position++) {
+				camels.add(pool.ids[position]);
+			}
+		}
+	}
+
+	/**
+	 * Idle camels of one type sorted by speed, the camels of the same speed by id.
+	 * The speeds are kept next to the ids, so the search does not look into the registry.
+	 */
+	private static class TypePool {
+
+		private final CamelType type;
+
+		private int[] ids = new int[4];
+
+		private double[] speeds = new double[4];
+
+		private int size = 0;
+
+		/** Upper bound of the distances of the idle camels, never lowered */
+		private double maxDistance = 0;
+
+		private TypePool(CamelType type) {
+			this.type = type;
+		}
+
+		private void add(int id, double speed) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, 2 * size);
+				speeds = Arrays.copyOf(speeds, 2 * size);
+			}
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				int bySpeed = Double.compare(speeds[middle], speed);
+				if (bySpeed < 0 || bySpeed == 0 && ids[middle] < id) {
+					low = middle + 1;
+				}
+				else {
+					high = middle;
+				}
+			}
+			int position = low;
+			System.arraycopy(ids, position, ids, position + 1, size - position);
+			System.arraycopy(speeds, position, speeds, position + 1, size - position);
+			ids[position] = id;
+			speeds[position] = speed;
+			size++;
+			maxDistance = Math.max(maxDistance, REGISTRY.getDistance(id));
+		}
+
+		private int remove(int position) {
+			int id = ids[position];
+			System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+			System.arraycopy(speeds, position + 1, speeds, position, size - position - 1);
+			size--;
+			return id;
+		}
+
+		/**
+		 * Returns the position of the first camel not slower than the speed by the binary search.
+		 */
+		private int firstNotSlowerThan(double speed) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (speeds[middle] < speed) {
+					low = middle + 1;
+				}
+				else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+	}
+
+}
@@ -0,0 +1,188 @@
+package simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the time and memory allocation of the phases of loading the data.
+ * Allocation is summed over all live threads, so the parallel parsing
+ * and the decompression thread are included, except for what a thread allocates
+ * after the last phase end it was seen alive at.
+ * Prints a one-line report and writes a JSON summary into the statistics directory.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class LoadProfiler {
+
+	/** Whether the load phases should be measured */
+	private static final boolean PROFILE_LOAD = true;
+
+	private static final String STATISTICS_DIR = "statistics";
+
+	private static final String SUMMARY_FILE = STATISTICS_DIR + "/load_profile.json";
+
+	private static final LoadProfiler INSTANCE = new LoadProfiler();
+
+	private final com.sun.management.ThreadMXBean threadBean;
+
+	private final List<Phase> phases = new ArrayList<>();
+
+	/** Bytes allocated by the threads at the end of the previous phase by thread id */
+	private final java.util.Map<Long, Long> threadAllocated = new HashMap<>();
+
+	/** Name of the loaded file, null if no load is measured */
+	private String fileName;
+
+	private long startNanos;
+
+	private long markNanos;
+
+	private LoadProfiler() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			threadBean = null;
+		}
+	}
+
+	/**
+	 * Returns the singleton.
+	 * @return Singleton.
+	 */
+	public static LoadProfiler getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts measuring a load.
+	 * @param fileName Name of the loaded file.
+	 */
+	public void start(String fileName) {
+		if (!PROFILE_LOAD) {
+			return;
+		}
+		this.fileName = fileName;
+		phases.clear();
+		threadAllocated.clear();
+		allocatedBytes();
+		startNanos = markNanos = System.nanoTime();
+	}
+
+	/**
+	 * Ends a phase that began when the previous one ended.
+	 * Does nothing when no load is measured.
+	 * @param name Name of the phase.
+	 */
+	public void endPhase(String name) {
+		if (fileName == null) {
+			return;
+		}
+		long nanos = System.nanoTime();
+		phases.add(new Phase(name, nanos - markNanos, allocatedBytes()));
+		markNanos = nanos;
+	}
+
+	/**
+	 * Ends measuring the load, prints the report and writes the summary.
+	 */
+	public void finish() {
+		if (fileName == null) {
+			return;
+		}
+		long totalNanos = markNanos - startNanos;
+		long totalAllocated = threadBean == null ? -1 : phases.stream().mapToLong(phase -> phase.allocated).sum();
+		Runtime runtime = Runtime.getRuntime();
+		long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+		StringBuilder report = new StringBuilder("Load:");
+		for (Phase phase : phases) {
+			report.append(String.format(Locale.ROOT, " %s %.1f ms/%s,", phase.name, phase.nanos * 1e-6, megabytes(phase.allocated)));
+		}
+		report.append(String.format(Locale.ROOT, " total %.1f ms/%s, heap used %s", totalNanos * 1e-6, megabytes(totalAllocated), megabytes(heapUsed)));
+		System.out.println(report);
+
+		try {
+			if (!Files.exists(Paths.get(STATISTICS_DIR))) {
+				Files.createDirectory(Paths.get(STATISTICS_DIR));
+			}
+			try (BufferedWriter bfw = Files.newBufferedWriter(Paths.get(SUMMARY_FILE))) {
+				bfw.write(toJson(totalNanos, totalAllocated, heapUsed));
+				bfw.newLine();
+			}
+		}
+		catch (IOException e) {
+			System.out.println("Load profile could not be written: " + e.getMessage());
+		}
+		fileName = null;
+	}
+
+	private String toJson(long totalNanos, long totalAllocated, long heapUsed) {
+		StringBuilder json = new StringBuilder("{");
+		json.append("\"file\":\"").append(fileName.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",");
+		json.append(String.format(Locale.ROOT, "\"totalMillis\":%.3f,", totalNanos * 1e-6));
+		json.append("\"totalAllocatedBytes\":").append(totalAllocated).append(',');
+		json.append("\"heapUsedBytes\":").append(heapUsed).append(',');
+		json.append("\"phases\":[");
+		for (int i = 0; i < phases.size(); i++) {
+			Phase phase = phases.get(i);
+			json.append(i == 0 ? "" : ",");
+			json.append(String.format(Locale.ROOT, "{\"name\":\"%s\",\"millis\":%.3f,\"allocatedBytes\":%d}",
+					phase.name, phase.nanos * 1e-6, phase.allocated));
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String megabytes(long bytes) {
+		return bytes < 0 ? "?" : String.format(Locale.ROOT, "%.1f MB", bytes / 1048576.0);
+	}
+
+	/**
+	 * Returns the bytes allocated by the live threads since the previous call, -1 if it cannot be measured.
+	 */
+	private long allocatedBytes() {
+		if (threadBean == null) {
+			return -1;
+		}
+		long[] ids = threadBean.getAllThreadIds();
+		long[] allocated = threadBean.getThreadAllocatedBytes(ids);
+		long sum = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (allocated[i] >= 0) {
+				Long previous = threadAllocated.put(ids[i], allocated[i]);
+				sum += allocated[i] - (previous == null ? 0 : previous);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Measured phase.
+	 */
+	private static class Phase {
+
+		private final String name;
+
+		private final long nanos;
+
+		/** Allocated bytes, -1 if it cannot be measured */
+		private final long allocated;
+
+		private Phase(String name, long nanos, long allocated) {
+			this.name = name;
+			this.nanos = nanos;
+			this.allocated = allocated;
+		}
+
+	}
+
+}
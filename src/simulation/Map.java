@@ -1,20 +1,39 @@
 package simulation;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
 
 import camels.CamelFactory;
+import camels.CamelType;
 import events.EventManager;
 import path_calculation.APathCalculator;
 import path_calculation.AStarPathCalculator;
 import path_calculation.CentrePathCalculator;
+import path_calculation.DeltaSteppingPathCalculator;
 import path_calculation.DijkstraPathCalculator;
+import path_calculation.FastestPathRouter;
 import path_calculation.FloydWarshallPathCalculator;
+import path_calculation.HubLabelingPathCalculator;
+import path_calculation.IndexBuffers;
+import path_calculation.LandmarkPathCalculator;
 import path_calculation.Path;
+import path_calculation.PathCalculatorTuner;
 import path_calculation.PathDescriptor;
+import path_calculation.StorableIndex;
 import requests.Request;
 import requests.RequestManager;
 import requests.RequestState;
@@ -31,23 +50,59 @@ public class Map {
 	private static RequestManager REQUEST_MANAGER = RequestManager.getInstance();
 	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
 	private static final CamelFactory CAMEL_FACTORY = CamelFactory.getInstance();
+	private static final DistanceKernels DISTANCE_KERNELS = DistanceKernels.create();
+	private static final LoadProfiler LOAD_PROFILER = LoadProfiler.getInstance();
 	
-	/** Maximum matrix size for Floyd-Warshall to be able to get selected */
-	private static final int MAX_FLOYD_WARSHALL_MB = 1024; // 1 GB
-	/** Minimum graph density for Floyd-Warshall to be selected */
-	private static final double MIN_FLOYD_WARSHALL_DENSITY = 0.2; // 1 GB
+	/** Maximum size of both Floyd-Warshall matrices for it to be a candidate */
+	private static final int MAX_FLOYD_WARSHALL_MB = 1024;
+	/** Estimated time of one inner step of Floyd-Warshall */
+	private static final double FLOYD_WARSHALL_NANOS_PER_STEP = 1.0;
+	/** Maximum number of vertices for Floyd-Warshall to be selected without tuning, it is built in a few milliseconds then */
+	private static final int MAX_UNTUNED_FLOYD_WARSHALL_VERTICES = 128;
 	
 	/** Maximum number of warehouses to consider while processing a request */
 	private static final int MAX_WAREHOUSES_DURING_PROCESS = 10;
-	/** Whether A* should be selected insted of Dijkstra */
+	/** Whether A* should be a candidate insted of Dijkstra */
 	private static final boolean USE_ASTAR_INSTEAD_OF_DIJKSTRA = false;
+	/** Expected number of path queries per warehouse considered, counts the retries of unfinished requests */
+	private static final double QUERIES_PER_WAREHOUSE = 2.0;
+	/** Maximum number of requests whose queries are sampled by the tuner */
+	private static final int TUNER_SAMPLE_REQUESTS = 32;
+	/** Estimated speed of reading a stored path calculator index in bytes per millisecond */
+	private static final double STORED_INDEX_BYTES_PER_MILLI = 1e6;
+	/** Name of the cache entry with the preprocessed paths */
+	private static final String PATHS_ENTRY = "paths";
+	/** Name of the cache entry of the loaded paths with the endpoints of the paths kept by the preprocessing */
+	private static final String KEPT_PATHS_ENTRY = "kept_paths";
+	/** Name of the cache entry with the name of the path calculator selected by the tuner */
+	private static final String SELECTED_CALCULATOR_ENTRY = "selected_calculator";
+	/** Maximum number of kept shortest paths */
+	private static final int MAX_KEPT_SHORTEST_PATHS = 1 << 16;
+	/** Whether the fastest path of a camel type is looked for, when the shortest path is too slow */
+	private static final boolean USE_FASTEST_PATHS = true;
+	/** Maximal number of kept fastest paths of a camel type, all are dropped when it is reached */
+	private static final int MAX_KEPT_FASTEST_PATHS = 1 << 16;
 	
 	private Warehouse[] warehouses;
 	private Oasis[] oases;
 	private Node[] nodes;
+	/** X coordinates of the nodes by node index */
+	private double[] xs;
+	/** Y coordinates of the nodes by node index */
+	private double[] ys;
 	
 	/** Selected path calculator */
 	private APathCalculator pathCalculator;
+	/** Delta-stepping bucket width tuned from the edge lengths in preprocessPaths */
+	private double deltaSteppingBucketWidth;
+	/** Cache of the preprocessing of the current map keyed by the preprocessed paths, shared by the text and compiled scenarios */
+	private PreprocessingCache cache;
+	/** Shortest paths by their ends, so the profiles of the paths are reused by the later requests */
+	private final HashMap<Long, PathDescriptor> shortestPaths = new HashMap<>();
+	
+	private FastestPathRouter fastestPathRouter;
+	/** Fastest paths of the ideal camels by the camel type and the nodes, found on the first use */
+	private final java.util.Map<CamelType, java.util.Map<Long, FastestPath>> fastestPaths = new ConcurrentHashMap<>();
 	
 	/** The one and only instance of this class (singleton) */
 	private static final Map INSTANCE = new Map();
@@ -65,19 +120,53 @@ public class Map {
 	 * Sets the map data and path calculator.
 	 * @param warehouses Warehouses.
 	 * @param oases Oases.
-	 * @param paths Paths between nodes.
+	 * @param pathEndpoints Node indices of the path ends, path k connects nodes pathEndpoints[2k] and pathEndpoints[2k + 1].
+	 * @param pathsPreprocessed Whether the paths are already preprocessed by {@link #preprocessPathEndpoints(double[], double[], int[], double)}.
+	 * @param requestOasisIndices Oasis indices of the requests in input order, used to estimate the number and pattern of path queries.
 	 */
-	public void setMap(Warehouse[] warehouses, Oasis[] oases, Path[] paths) {
+	public void setMap(Warehouse[] warehouses, Oasis[] oases, int[] pathEndpoints, boolean pathsPreprocessed, int[] requestOasisIndices) {
 		this.warehouses = warehouses;
 		this.oases = oases;
 		
 		fillNodes();
-		Path[] preprocessedPaths = preprocessPaths(paths);
-		setPathCalculators(warehouses, oases, preprocessedPaths);
+		shortestPaths.clear();
+		System.out.println("Distance kernels: " + DISTANCE_KERNELS.getName());
+		LOAD_PROFILER.endPhase("nodes");
+		int[] keptPathEndpoints = pathsPreprocessed ? pathEndpoints : getKeptPathEndpoints(pathEndpoints);
+		cache = PreprocessingCache.open(xs, ys, keptPathEndpoints, true, CAMEL_FACTORY.getMaxCamelDistance());
+		Path[] preprocessedPaths = cache.load(PATHS_ENTRY, this::readPaths);
+		if(preprocessedPaths == null) {
+			Path[] paths = preprocessPaths(keptPathEndpoints);
+			cache.store(PATHS_ENTRY, 8 + 4 + 8L * paths.length, buffer -> writePaths(buffer, paths));
+			preprocessedPaths = paths;
+		}
+		LOAD_PROFILER.endPhase("preprocess paths");
+		setPathCalculators(warehouses, oases, preprocessedPaths, requestOasisIndices);
+		LOAD_PROFILER.endPhase("path calculator");
 		
 		REQUEST_MANAGER = RequestManager.getInstance();
 	}
 	
+	/**
+	 * Returns the endpoints of the loaded paths kept by {@link #preprocessPathEndpoints(double[], double[], int[], double)},
+	 * they are stored in the cache of the loaded paths, so the preprocessing is skipped when the map is loaded again.
+	 * @param pathEndpoints Node indices of the path ends as loaded.
+	 * @return Node indices of the ends of the kept paths, two per path.
+	 */
+	private int[] getKeptPathEndpoints(int[] pathEndpoints) {
+		double maxCamelDistance = CAMEL_FACTORY.getMaxCamelDistance();
+		PreprocessingCache loadedPathsCache = PreprocessingCache.open(xs, ys, pathEndpoints, false, maxCamelDistance);
+		int[] stored = loadedPathsCache.load(KEPT_PATHS_ENTRY,
+				buffer -> IndexBuffers.getNodeIndices(buffer, buffer.remaining() / 4, nodes.length, false));
+		if(stored != null) {
+			return stored;
+		}
+		
+		int[] kept = preprocessPathEndpoints(xs, ys, pathEndpoints, maxCamelDistance);
+		loadedPathsCache.store(KEPT_PATHS_ENTRY, 4L * kept.length, buffer -> IndexBuffers.putInts(buffer, kept));
+		return kept;
+	}
+	
 	/**
 	 * Returns the warehouses.
 	 * @return Warehouses.
@@ -87,7 +176,7 @@ public class Map {
 	}
 	
 	
-	private void setPathCalculators(Warehouse[] warehouses, Oasis[] oases, Path[] paths) {
+	private void setPathCalculators(Warehouse[] warehouses, Oasis[] oases, Path[] paths, int[] requestOasisIndices) {
 		int vertices = warehouses.length + oases.length;
 		int edges = 2 * paths.length;
 		double density = edges / (vertices*(vertices-1.0));
@@ -99,22 +188,141 @@ public class Map {
 		System.out.println("Matrix size: " + matricesMiB + " MB");
 		System.out.println("Density: " + density);
 		
+		fastestPathRouter = new FastestPathRouter(nodes, paths);
+		fastestPaths.clear();
+		
 		int centreNodeIndex = CentrePathCalculator.isApplicable(nodes, paths);
 		if (centreNodeIndex >= 0) {
 			System.out.println("%%%%%%%%%%%%%%%%%%%%%  CENTRE  %%%%%%%%%%%%%%%%%%%%%%%%");
 			pathCalculator = new CentrePathCalculator(nodes, centreNodeIndex);
 			sortWarehousesForCentre();
-			
-		} else if (matricesMiB <= MAX_FLOYD_WARSHALL_MB && density >= MIN_FLOYD_WARSHALL_DENSITY) {
-			System.out.println("%%%%%%%%%%%%%%%%  FLOYD WARSHALL  %%%%%%%%%%%%%%%%%%%%%");
-			pathCalculator = new FloydWarshallPathCalculator(nodes, paths);
-		} else if (USE_ASTAR_INSTEAD_OF_DIJKSTRA) {
-			System.out.println("%%%%%%%%%%%%%%%%%%%%%%  A*  %%%%%%%%%%%%%%%%%%%%%%%%%%%");
-			pathCalculator = new AStarPathCalculator(nodes, paths);
-		} else {
-			System.out.println("%%%%%%%%%%%%%%%%%%%  DIJKSTRA  %%%%%%%%%%%%%%%%%%%%%%%%");
-			pathCalculator = new DijkstraPathCalculator(nodes, paths);
+			return;
+		}
+		
+		Supplier<APathCalculator> floydWarshall = () -> loadOrBuild(FloydWarshallPathCalculator.INDEX_NAME,
+				index -> new FloydWarshallPathCalculator(nodes, index), () -> new FloydWarshallPathCalculator(nodes, paths));
+		if (vertices <= MAX_UNTUNED_FLOYD_WARSHALL_VERTICES) {
+			System.out.println("%%%%%%%%%%%%%%%%%%%  FLOYD-WARSHALL  %%%%%%%%%%%%%%%%%%%%");
+			setPathCalculator(floydWarshall.get());
+			return;
+		}
+		
+		String graphSearchName = USE_ASTAR_INSTEAD_OF_DIJKSTRA ? "A*" : "Dijkstra";
+		java.util.Map<String, Supplier<APathCalculator>> factories = new LinkedHashMap<>();
+		factories.put(graphSearchName, USE_ASTAR_INSTEAD_OF_DIJKSTRA ? () -> new AStarPathCalculator(nodes, paths)
+				: () -> new DijkstraPathCalculator(nodes, paths));
+		factories.put("Delta stepping", () -> new DeltaSteppingPathCalculator(nodes, paths, deltaSteppingBucketWidth));
+		factories.put("ALT", () -> loadOrBuild(LandmarkPathCalculator.INDEX_NAME,
+				index -> new LandmarkPathCalculator(nodes, paths, index), () -> new LandmarkPathCalculator(nodes, paths)));
+		factories.put("Hub labeling", () -> loadOrBuild(HubLabelingPathCalculator.INDEX_NAME,
+				index -> new HubLabelingPathCalculator(nodes, index), () -> new HubLabelingPathCalculator(nodes, paths)));
+		if (matricesMiB <= MAX_FLOYD_WARSHALL_MB) {
+			factories.put("Floyd-Warshall", floydWarshall);
+		}
+		
+		//The selection of the tuner is stored for the map, so the map loaded again is not tuned again
+		String selectedName = cache.load(SELECTED_CALCULATOR_ENTRY, buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
+		if (selectedName != null && factories.containsKey(selectedName)) {
+			System.out.println("%%%%%%%%%%%%%%%%%%%%%  STORED  %%%%%%%%%%%%%%%%%%%%%%%%");
+			System.out.println("Stored tuner selection: " + selectedName);
+			setPathCalculator(factories.get(selectedName).get());
+			return;
+		}
+		
+		System.out.println("%%%%%%%%%%%%%%%%%%%%%  TUNER  %%%%%%%%%%%%%%%%%%%%%%%%%");
+		long expectedQueries = (long) Math.ceil(requestOasisIndices.length * Math.min(warehouses.length, MAX_WAREHOUSES_DURING_PROCESS) * QUERIES_PER_WAREHOUSE);
+		PathCalculatorTuner tuner = createTuner(paths, requestOasisIndices, expectedQueries);
+		double treeMillis = tuner.getShortestPathTreeMillis();
+		double graphMillis = tuner.getGraphMillis();
+		
+		tuner.addCandidate(graphSearchName, graphMillis, factories.get(graphSearchName));
+		tuner.addCandidate("Delta stepping", graphMillis, factories.get("Delta stepping"));
+		tuner.addCandidate("ALT", getBuildMillis(LandmarkPathCalculator.INDEX_NAME, LandmarkPathCalculator.LANDMARK_COUNT * treeMillis),
+				cache.size(LandmarkPathCalculator.INDEX_NAME) >= 0, factories.get("ALT"));
+		tuner.addCandidate("Hub labeling", getBuildMillis(HubLabelingPathCalculator.INDEX_NAME, vertices * treeMillis),
+				cache.size(HubLabelingPathCalculator.INDEX_NAME) >= 0, factories.get("Hub labeling"));
+		if (matricesMiB <= MAX_FLOYD_WARSHALL_MB) {
+			double floydWarshallMillis = FLOYD_WARSHALL_NANOS_PER_STEP * vertices * vertices * (double) vertices * 1e-6;
+			// tried first if stored or if building it is estimated cheaper than a shortest path tree for every query
+			boolean floydWarshallFirst = cache.size(FloydWarshallPathCalculator.INDEX_NAME) >= 0 || floydWarshallMillis < treeMillis * expectedQueries;
+			tuner.addCandidate("Floyd-Warshall", getBuildMillis(FloydWarshallPathCalculator.INDEX_NAME, floydWarshallMillis), floydWarshallFirst, floydWarshall);
 		}
+		
+		setPathCalculator(tuner.select());
+		byte[] name = tuner.getSelectedName().getBytes(StandardCharsets.UTF_8);
+		cache.store(SELECTED_CALCULATOR_ENTRY, name.length, buffer -> buffer.put(name));
+	}
+	
+	/**
+	 * Sets the path calculator and stores its index, if it has one.
+	 * @param calculator Selected path calculator.
+	 */
+	private void setPathCalculator(APathCalculator calculator) {
+		pathCalculator = calculator;
+		if (pathCalculator instanceof StorableIndex) {
+			StorableIndex index = (StorableIndex) pathCalculator;
+			cache.store(index.getIndexName(), index.getIndexSize(), index::writeIndex);
+		}
+	}
+	
+	/**
+	 * Returns the estimated build time of a path calculator, the time of reading its index if it is stored.
+	 * @param indexName Name of the index of the calculator.
+	 * @param buildMillis Estimated time of building the calculator in milliseconds.
+	 * @return Estimated build time in milliseconds.
+	 */
+	private double getBuildMillis(String indexName, double buildMillis) {
+		long size = cache.size(indexName);
+		return size < 0 ? buildMillis : size / STORED_INDEX_BYTES_PER_MILLI;
+	}
+	
+	/**
+	 * Creates a path calculator from its stored index or builds it if there is none.
+	 * Only the selected calculator is stored, so the tuner does not count the storing into the build time.
+	 * @param indexName Name of the index of the calculator.
+	 * @param loader Creates the calculator from its index.
+	 * @param builder Builds the calculator.
+	 * @return Path calculator.
+	 */
+	private APathCalculator loadOrBuild(String indexName, Function<ByteBuffer, APathCalculator> loader, Supplier<APathCalculator> builder) {
+		APathCalculator calculator = cache.load(indexName, loader);
+		return calculator != null ? calculator : builder.get();
+	}
+	
+	/**
+	 * Creates the tuner with the sample queries the way processRequest asks them,
+	 * from the nearest warehouses to the oases of requests spread over the whole input.
+	 * @param paths Paths between nodes.
+	 * @param requestOasisIndices Oasis indices of the requests.
+	 * @param expectedQueries Expected number of path queries.
+	 * @return Path calculator tuner.
+	 */
+	private PathCalculatorTuner createTuner(Path[] paths, int[] requestOasisIndices, long expectedQueries) {
+		int sampleRequests = Math.min(TUNER_SAMPLE_REQUESTS, requestOasisIndices.length);
+		int warehousesPerRequest = Math.min(warehouses.length, MAX_WAREHOUSES_DURING_PROCESS);
+		int[] sources = new int[sampleRequests * warehousesPerRequest];
+		int[] targets = new int[sources.length];
+		
+		int q = 0;
+		for (int r = 0; r < sampleRequests; r++) {
+			int oasisNodeIndex = oasisToNodeIndex(requestOasisIndices[(int) ((long) r * requestOasisIndices.length / sampleRequests)]);
+			Warehouse[] warehousesSorted = getWarehousesByDistance(oasisNodeIndex);
+			for (int w = 0; w < warehousesPerRequest; w++) {
+				sources[q] = warehousesSorted[w].getIndex();
+				targets[q] = oasisNodeIndex;
+				q++;
+			}
+		}
+		
+		return new PathCalculatorTuner(nodes, paths, sources, targets, expectedQueries);
+	}
+
+	/**
+	 * Returns the report on the work of the selected path calculator.
+	 * @return Report on the work of the selected path calculator.
+	 */
+	public String getPathCalculatorReport() {
+		return pathCalculator.getReport();
 	}
 
 	/**
@@ -129,47 +337,422 @@ public class Map {
 	public void processRequest(Request request) {
 
 		int oasisNodeIndex = oasisToNodeIndex(request.getOasisIndex());
+		double remainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
 		
-		Warehouse[] warehousesSorted = warehouses;
-		if(!(pathCalculator instanceof CentrePathCalculator)) {
-			warehousesSorted = warehouses.clone();
-			Arrays.sort(warehousesSorted, new Comparator<Warehouse>() {
-				@Override
-				public int compare(Warehouse o1, Warehouse o2) {
-					return (int)Math.signum(o1.getCoords().airDistanceTo(nodes[oasisNodeIndex].getCoords()) - o2.getCoords().airDistanceTo(nodes[oasisNodeIndex].getCoords())); 
-				}
-
-			});
-			
-		}
+		//Distributing from a warehouse does not change the others, so the candidates are known beforehand
+		Warehouse[] candidates = getCandidates(oasisNodeIndex, Warehouse::getBasketCount);
+		int candidateCount = candidates.length;
 		
-		int warehouseCounter = 0;
-		for (int w = 0; w < warehousesSorted.length; w++) {
-			Warehouse warehouse = warehousesSorted[w];
-			
-			if (warehouse.getBasketCount() == 0) {
+		PathDescriptor[] pathDescriptors = new PathDescriptor[candidateCount];
+		int evaluatedCount = 0;
+		for (int c = 0; c < candidateCount; c++) {
+			if (c == evaluatedCount) {
+				evaluatedCount = getWaveEnd(candidates, c, candidateCount, request.getBasketsRemaining(), Warehouse::getBasketCount);
+				findDeliverablePaths(candidates, c, evaluatedCount, oasisNodeIndex, remainingTime, pathDescriptors);
+			}
+			if (pathDescriptors[c] == null) {
 				continue;
 			}
 			
-			if(warehouseCounter++ == MAX_WAREHOUSES_DURING_PROCESS) {
-				break;	
+			Warehouse warehouse = candidates[c];
+			distribute(warehouse, request, Math.min(warehouse.getBasketCount(), request.getBasketsRemaining()), pathDescriptors[c], true);
+			if(request.getBasketsRemaining() == 0) {
+				return;
+			}
+		}
+		
+		addToUnfinished(request);
+	}
+	
+	/**
+	 * Tries to process the requests received at the same time together.
+	 * The requests with the same oasis and time left are grouped, they can use the same paths.
+	 * The paths from the candidate warehouses are found once for each oasis, until the warehouses with a path
+	 * through which a basket can be delivered in time have enough baskets for all the requests of the oasis.
+	 * The baskets counted for an oasis are not counted for the next ones, so no path is found for an oasis
+	 * the warehouses have no baskets left for.
+	 * The baskets of the warehouses are assigned to the groups as a transportation problem,
+	 * so that the most baskets are distributed along the shortest paths in total.
+	 * The assigned baskets are given to the idle camels of all the routes first, only then new camels are created.
+	 * It does not dispatch fewer camels than processing the requests one by one, which reuses a camel
+	 * that returns between two requests received at the same time, the camels are shared by the requests
+	 * to the same oasis only when the shipments are consolidated.
+	 * The requests not fully distributed are added to the unfinished requests.
+	 * @param requests Requests in the order they were received.
+	 */
+	public void processRequests(List<Request> requests) {
+		if(requests.size() <= 1) {
+			requests.forEach(this::processRequest);
+			return;
+		}
+		
+		java.util.Map<Integer, List<RequestGroup>> groupsByOasis = new LinkedHashMap<>();
+		List<RequestGroup> groups = new ArrayList<>();
+		for(Request request : requests) {
+			int oasisNodeIndex = oasisToNodeIndex(request.getOasisIndex());
+			double remainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
+			List<RequestGroup> oasisGroups = groupsByOasis.computeIfAbsent(oasisNodeIndex, o -> new ArrayList<>());
+			RequestGroup group = null;
+			for(RequestGroup oasisGroup : oasisGroups) {
+				if(oasisGroup.remainingTime == remainingTime) {
+					group = oasisGroup;
+					break;
+				}
 			}
+			if(group == null) {
+				group = new RequestGroup(groups.size(), oasisNodeIndex, remainingTime);
+				oasisGroups.add(group);
+				groups.add(group);
+			}
+			group.requests.add(request);
+			group.basketCount += request.getBasketsRemaining();
+		}
+		
+		int[] unclaimedBaskets = new int[warehouses.length];
+		for(Warehouse warehouse : warehouses) {
+			unclaimedBaskets[warehouse.getIndex()] = warehouse.getBasketCount();
+		}
+		ToIntFunction<Warehouse> unclaimedBasketCount = warehouse -> unclaimedBaskets[warehouse.getIndex()];
+		int[] sources = new int[warehouses.length];
+		Arrays.fill(sources, -1);
+		List<Warehouse> sourceWarehouses = new ArrayList<>();
+		List<int[]> routes = new ArrayList<>(); // warehouse index, group index
+		List<PathDescriptor> routePaths = new ArrayList<>();
+		for(List<RequestGroup> oasisGroups : groupsByOasis.values()) {
+			int oasisNodeIndex = oasisGroups.get(0).oasisNodeIndex;
+			double maxRemainingTime = oasisGroups.stream().mapToDouble(g -> g.remainingTime).max().getAsDouble();
+			int basketCount = oasisGroups.stream().mapToInt(g -> g.basketCount).sum();
 			
-			PathDescriptor pathDescriptor = pathCalculator.getShortestPath(warehouse.getIndex(), oasisNodeIndex);
+			Warehouse[] candidates = getCandidates(oasisNodeIndex, unclaimedBasketCount);
+			PathDescriptor[] pathDescriptors = new PathDescriptor[candidates.length];
+			int evaluatedCount = 0;
+			int deliverableBasketCount = 0;
+			while(evaluatedCount < candidates.length && deliverableBasketCount < basketCount) {
+				int from = evaluatedCount;
+				evaluatedCount = getWaveEnd(candidates, from, candidates.length, basketCount - deliverableBasketCount, unclaimedBasketCount);
+				findDeliverablePaths(candidates, from, evaluatedCount, oasisNodeIndex, maxRemainingTime, pathDescriptors);
+				for(int c = from; c < evaluatedCount; c++) {
+					if(pathDescriptors[c] != null) {
+						int claimedCount = Math.min(unclaimedBaskets[candidates[c].getIndex()], basketCount - deliverableBasketCount);
+						unclaimedBaskets[candidates[c].getIndex()] -= claimedCount;
+						deliverableBasketCount += claimedCount;
+					}
+				}
+			}
 			
-			int basketAmount = Math.min(warehouse.getBasketCount(), request.getBasketsRemaining());
-
-			if (pathDescriptor.distance != Double.POSITIVE_INFINITY && warehouse.isDeliverable(request, pathDescriptor)) {
-				warehouse.distribute(request, basketAmount, pathDescriptor);
-				REQUEST_MANAGER.changeRequestState(request, RequestState.Active);
-				request.reduceBasketsRemaining(basketAmount);
-				if(request.getBasketsRemaining() == 0) {
-					return;
+			for(RequestGroup group : oasisGroups) {
+				for(int c = 0; c < evaluatedCount; c++) {
+					if(pathDescriptors[c] == null || (group.remainingTime < maxRemainingTime
+							&& !candidates[c].isDeliverable(pathDescriptors[c], group.remainingTime))) {
+						continue;
+					}
+					int warehouseIndex = candidates[c].getIndex();
+					if(sources[warehouseIndex] < 0) {
+						sources[warehouseIndex] = sourceWarehouses.size();
+						sourceWarehouses.add(candidates[c]);
+					}
+					routes.add(new int[] {warehouseIndex, group.index});
+					routePaths.add(pathDescriptors[c]);
 				}
 			}
 		}
 		
-		addToUnfinished(request);
+		TransportationProblem problem = new TransportationProblem(
+				sourceWarehouses.stream().mapToInt(Warehouse::getBasketCount).toArray(),
+				groups.stream().mapToInt(g -> g.basketCount).toArray());
+		for(int r = 0; r < routes.size(); r++) {
+			problem.addRoute(sources[routes.get(r)[0]], routes.get(r)[1], routePaths.get(r).distance);
+		}
+		int[] flows = problem.solve();
+		
+		//The idle camels of all the routes are used before any new camel is created
+		for(boolean newCamels : new boolean[] {false, true}) {
+			for(int r = 0; r < routes.size(); r++) {
+				for(Request request : groups.get(routes.get(r)[1]).requests) {
+					if(flows[r] == 0) {
+						break;
+					}
+					int requestAmount = Math.min(flows[r], request.getBasketsRemaining());
+					if(requestAmount > 0) {
+						//The baskets no camel can deliver for the request are offered to the next one
+						flows[r] -= distribute(sourceWarehouses.get(sources[routes.get(r)[0]]), request, requestAmount, routePaths.get(r), newCamels);
+					}
+				}
+			}
+		}
+		
+		for(Request request : requests) {
+			if(request.getBasketsRemaining() > 0) {
+				addToUnfinished(request);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the candidate warehouses to distribute a request to an oasis from,
+	 * the nearest warehouses with baskets, nearer first.
+	 * @param oasisNodeIndex Node index of the oasis.
+	 * @param availableBaskets Number of baskets of a warehouse available for the request.
+	 * @return Candidate warehouses.
+	 */
+	private Warehouse[] getCandidates(int oasisNodeIndex, ToIntFunction<Warehouse> availableBaskets) {
+		Warehouse[] warehousesSorted = warehouses;
+		if(!(pathCalculator instanceof CentrePathCalculator)) {
+			warehousesSorted = getWarehousesByDistance(oasisNodeIndex);
+		}
+		
+		Warehouse[] candidates = new Warehouse[Math.min(MAX_WAREHOUSES_DURING_PROCESS, warehousesSorted.length)];
+		int candidateCount = 0;
+		for (int w = 0; w < warehousesSorted.length && candidateCount < candidates.length; w++) {
+			if (availableBaskets.applyAsInt(warehousesSorted[w]) > 0) {
+				candidates[candidateCount++] = warehousesSorted[w];
+			}
+		}
+		return Arrays.copyOf(candidates, candidateCount);
+	}
+	
+	/**
+	 * Distributes baskets of a request from a warehouse and activates the request, if any basket is distributed.
+	 * @param warehouse Warehouse.
+	 * @param request Request.
+	 * @param basketAmount Number of baskets to distribute.
+	 * @param pathDescriptor Descriptor of the path from the warehouse to the oasis.
+	 * @param newCamels Whether new camels are created when the idle camels are not enough.
+	 * @return Number of distributed baskets, less than the basket amount if no camel can deliver in time.
+	 */
+	private int distribute(Warehouse warehouse, Request request, int basketAmount, PathDescriptor pathDescriptor, boolean newCamels) {
+		basketAmount = newCamels ? warehouse.distribute(request, basketAmount, pathDescriptor)
+				: warehouse.distributeToIdleCamels(request, basketAmount, pathDescriptor);
+		if(basketAmount > 0) {
+			REQUEST_MANAGER.changeRequestState(request, RequestState.Active);
+			request.reduceBasketsRemaining(basketAmount);
+		}
+		return basketAmount;
+	}
+	
+	/**
+	 * Returns the end of the next wave of the candidate warehouses to evaluate at once.
+	 * A wave has just enough baskets for the rest of the request, so the paths of the warehouses
+	 * that are not needed are rarely found. The waves have one warehouse, if the path calculator
+	 * does not support parallel queries, so no path is found in vain.
+	 * @param candidates Candidate warehouses.
+	 * @param from Beginning of the wave.
+	 * @param candidateCount Number of the candidate warehouses.
+	 * @param basketsRemaining Number of baskets not distributed yet.
+	 * @param availableBaskets Number of baskets of a warehouse available for the request.
+	 * @return End of the wave (exclusive).
+	 */
+	private int getWaveEnd(Warehouse[] candidates, int from, int candidateCount, int basketsRemaining,
+			ToIntFunction<Warehouse> availableBaskets) {
+		if(!pathCalculator.supportsParallelQueries()) {
+			return from + 1;
+		}
+		int to = from;
+		int basketCount = 0;
+		while(to < candidateCount && basketCount < basketsRemaining) {
+			basketCount += availableBaskets.applyAsInt(candidates[to++]);
+		}
+		return Math.max(to, from + 1);
+	}
+	
+	/**
+	 * Finds the paths from the candidate warehouses to the oasis, through which a basket can be delivered in time,
+	 * in parallel, if the path calculator supports it. Every warehouse is evaluated by one thread
+	 * and the evaluation changes only its own path, the kept paths are looked up and the new ones kept
+	 * in the order of the warehouses, so the result does not depend on the scheduling of the threads.
+	 * @param candidates Candidate warehouses.
+	 * @param from First warehouse to evaluate.
+	 * @param to End of the warehouses to evaluate (exclusive).
+	 * @param oasisNodeIndex Node index of the oasis.
+	 * @param remainingTime Time left for the delivery.
+	 * @param pathDescriptors Paths by the warehouse position to fill, null if a basket cannot be delivered in time.
+	 */
+	private void findDeliverablePaths(Warehouse[] candidates, int from, int to, int oasisNodeIndex, double remainingTime,
+			PathDescriptor[] pathDescriptors) {
+		PathDescriptor[] found = new PathDescriptor[to - from];
+		for(int c = from; c < to; c++) {
+			pathDescriptors[c] = getKeptShortestPath(candidates[c].getIndex(), oasisNodeIndex);
+		}
+		
+		IntStream positions = IntStream.range(from, to);
+		(to - from > 1 && pathCalculator.supportsParallelQueries() ? positions.parallel() : positions).forEach(c -> {
+			int warehouseIndex = candidates[c].getIndex();
+			if(!isReachableInTime(remainingTime, warehouseIndex, oasisNodeIndex)) {
+				pathDescriptors[c] = null;
+				return;
+			}
+			PathDescriptor pathDescriptor = pathDescriptors[c];
+			if(pathDescriptor == null) {
+				pathDescriptor = pathCalculator.getShortestPath(warehouseIndex, oasisNodeIndex);
+				found[c - from] = pathDescriptor;
+			}
+			pathDescriptors[c] = getDeliverablePath(candidates[c], oasisNodeIndex, pathDescriptor, remainingTime);
+		});
+		
+		for(int c = from; c < to; c++) {
+			if(found[c - from] != null) {
+				keepShortestPath(candidates[c].getIndex(), oasisNodeIndex, found[c - from]);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the path through which a basket is deliverable from the warehouse in time,
+	 * the shortest path, if it is fast enough, else the fastest path of a camel type, if they are used.
+	 * @param warehouse Warehouse.
+	 * @param oasisNodeIndex Node index of the oasis.
+	 * @param shortestPath Descriptor of the shortest path between the warehouse and the oasis.
+	 * @param remainingTime Time left for the delivery.
+	 * @return Descriptor of the path, null if a basket cannot be delivered in time.
+	 */
+	private PathDescriptor getDeliverablePath(Warehouse warehouse, int oasisNodeIndex, PathDescriptor shortestPath, double remainingTime) {
+		if(shortestPath.distance == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		if(warehouse.isDeliverable(shortestPath, remainingTime)) {
+			return shortestPath;
+		}
+		return USE_FASTEST_PATHS ? getFastestDeliverablePath(warehouse, oasisNodeIndex, shortestPath, remainingTime) : null;
+	}
+	
+	/**
+	 * Returns the fastest path of the ideal camel of a camel type, through which it delivers a basket in time.
+	 * The shortest path may be too slow because of the drinks or an edge the camel cannot cover,
+	 * a longer path with the oases placed better can be faster. The fastest path of a type is looked for
+	 * only if the type could make it through a path as long as the shortest one with the fewest possible drinks
+	 * and the shortest path does not have that few drinks already.
+	 * @param warehouse Warehouse.
+	 * @param oasisNodeIndex Node index of the oasis.
+	 * @param shortestPath Descriptor of the shortest path between the warehouse and the oasis.
+	 * @param remainingTime Time left for the delivery.
+	 * @return Descriptor of the fastest path of the first type delivering in time, null if no type can.
+	 */
+	private PathDescriptor getFastestDeliverablePath(Warehouse warehouse, int oasisNodeIndex, PathDescriptor shortestPath, double remainingTime) {
+		double walkTime = remainingTime - 2 * warehouse.getBasketManipulationTime();
+		for(CamelType cT : CAMEL_FACTORY.getCamelTypes()) {
+			double speed = CAMEL_FACTORY.getIdealMovementSpeed(cT);
+			double distance = CAMEL_FACTORY.getIdealDistance(cT);
+			//Every part between two drinks is at most the distance long
+			double minDrinkCount = Math.max(0, Math.ceil(shortestPath.distance / distance) - 1);
+			if(shortestPath.distance / speed + minDrinkCount * cT.getDrinkTime() > walkTime) {
+				continue;
+			}
+			if(shortestPath.getProfile().isTraversable(distance) && shortestPath.getProfile().getDrinkCount(distance) <= minDrinkCount) {
+				continue; //The shortest path is the fastest one
+			}
+			
+			PathDescriptor fastestPath = getFastestPath(cT, warehouse.getIndex(), oasisNodeIndex, walkTime);
+			if(fastestPath != null && warehouse.isDeliverable(fastestPath, remainingTime)) {
+				return fastestPath;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the fastest path between i and j of the ideal camel of the camel type, the path is kept
+	 * for the next requests between the same nodes. If no path is fast enough, the time looked for is kept,
+	 * the path is looked for again only for more time.
+	 * Can be used from several threads, each with other nodes.
+	 * @param cT Camel type.
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @param maxTime Time the camel has to reach j in.
+	 * @return Descriptor of the fastest path between i and j, null if the camel cannot reach j in time.
+	 */
+	private PathDescriptor getFastestPath(CamelType cT, int i, int j, double maxTime) {
+		java.util.Map<Long, FastestPath> typePaths = fastestPaths.computeIfAbsent(cT, type -> new ConcurrentHashMap<>());
+		long key = (long) i * nodes.length + j;
+		FastestPath kept = typePaths.get(key);
+		if(kept != null && (kept.pathDescriptor != null || kept.maxTime >= maxTime)) {
+			return kept.pathDescriptor;
+		}
+		
+		PathDescriptor pathDescriptor = fastestPathRouter.getFastestPath(i, j, CAMEL_FACTORY.getIdealMovementSpeed(cT),
+				CAMEL_FACTORY.getIdealDistance(cT), cT.getDrinkTime(), maxTime);
+		if(typePaths.size() >= MAX_KEPT_FASTEST_PATHS) {
+			typePaths.clear();
+		}
+		typePaths.put(key, new FastestPath(pathDescriptor, maxTime));
+		return pathDescriptor;
+	}
+	
+	/**
+	 * Returns the warehouses sorted by the air distance from a node,
+	 * warehouses in the same distance keep their order.
+	 * @param nodeIndex Node index.
+	 * @return Warehouses sorted by the air distance from the node.
+	 */
+	private Warehouse[] getWarehousesByDistance(int nodeIndex) {
+		//Distances by node index, the warehouses are the first nodes
+		double[] distances = new double[warehouses.length];
+		DISTANCE_KERNELS.distancesFrom(xs[nodeIndex], ys[nodeIndex], xs, ys, 0, warehouses.length, distances);
+		double[] keys = new double[warehouses.length];
+		for(int w = 0; w < warehouses.length; w++) {
+			keys[w] = distances[warehouses[w].getIndex()];
+		}
+		
+		int[] order = DistanceKernels.stableOrder(keys, warehouses.length);
+		Warehouse[] warehousesSorted = new Warehouse[warehouses.length];
+		for(int w = 0; w < warehouses.length; w++) {
+			warehousesSorted[w] = warehouses[order[w]];
+		}
+		return warehousesSorted;
+	}
+	
+	/**
+	 * Returns the shortest path between i and j, the path is kept for the next requests between the same nodes.
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Descriptor of the shortest path between i and j.
+	 */
+	private PathDescriptor getShortestPath(int i, int j) {
+		PathDescriptor pathDescriptor = getKeptShortestPath(i, j);
+		if(pathDescriptor == null) {
+			pathDescriptor = pathCalculator.getShortestPath(i, j);
+			keepShortestPath(i, j, pathDescriptor);
+		}
+		return pathDescriptor;
+	}
+	
+	/**
+	 * Returns the kept shortest path between i and j.
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return Descriptor of the shortest path between i and j, null if it is not kept.
+	 */
+	private PathDescriptor getKeptShortestPath(int i, int j) {
+		return shortestPaths.get((long) i * nodes.length + j);
+	}
+	
+	/**
+	 * Keeps the shortest path between i and j for the next requests between the same nodes.
+	 * All the kept paths are dropped when there are too many of them.
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @param pathDescriptor Descriptor of the shortest path between i and j.
+	 */
+	private void keepShortestPath(int i, int j, PathDescriptor pathDescriptor) {
+		if(shortestPaths.size() == MAX_KEPT_SHORTEST_PATHS) {
+			shortestPaths.clear();
+		}
+		shortestPaths.put((long) i * nodes.length + j, pathDescriptor);
+	}
+	
+	/**
+	 * Checks by the path length only whether the fastest camel could make it in time.
+	 * Used to skip the path queries when the calculator tells the distance cheaply.
+	 * @param remainingTime Time left for the delivery.
+	 * @param i Node i.
+	 * @param j Node j.
+	 * @return False, if the request surely cannot be delivered between the nodes in time, else true.
+	 */
+	private boolean isReachableInTime(double remainingTime, int i, int j) {
+		if(!pathCalculator.hasCheapDistance()) {
+			return true;
+		}
+		double distance = pathCalculator.getShortestDistance(i, j);
+		return distance != Double.POSITIVE_INFINITY && distance / CAMEL_FACTORY.getMaxCamelMovementSpeed() <= remainingTime;
 	}
 	
 	private void addToUnfinished(Request request) {
@@ -193,8 +776,19 @@ public class Map {
 			return;
 		}
 		
+		//Air distances to the oases of all unfinished requests in one batch, in the iteration order
+		int[] oasisNodeIndices = new int[unfinishedRequests.size()];
+		int count = 0;
+		for (Request request : unfinishedRequests) {
+			oasisNodeIndices[count++] = oasisToNodeIndex(request.getOasisIndex());
+		}
+		double[] oasisDistances = new double[count];
+		int warehouseIndex = warehouse.getIndex();
+		DISTANCE_KERNELS.distancesFrom(xs[warehouseIndex], ys[warehouseIndex], xs, ys, oasisNodeIndices, count, oasisDistances);
+		
 		//System.out.println("Unfinished requests: " + unfinishedRequests.size());
-		for (Iterator<Request> iterator = unfinishedRequests.iterator(); iterator.hasNext();) {
+		int k = 0;
+		for (Iterator<Request> iterator = unfinishedRequests.iterator(); iterator.hasNext(); k++) {
 			Request request = iterator.next();
 			
 			//If you run out of baskets simply skip the rest
@@ -203,9 +797,8 @@ public class Map {
 			}
 			
 			//Skip if warehouse is too far away from the oasis
-			Oasis oasis = oases[request.getOasisIndex()];
 			double maxDistance = CamelFactory.getInstance().getMaxCamelMovementSpeed() * (request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime());
-			if(oasis.getCoords().airDistanceTo(warehouse.getCoords()) > maxDistance) {
+			if(oasisDistances[k] > maxDistance) {
 				continue;
 			}
 			
@@ -215,12 +808,20 @@ public class Map {
 			int oasisNodeIndex = oasisToNodeIndex(request.getOasisIndex());
 			int warehouseNodeIndex = warehouse.getIndex();
 
-			PathDescriptor pathDescriptor = pathCalculator.getShortestPath(oasisNodeIndex, warehouseNodeIndex);
+			double remainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
+			//An unreachable warehouse delivers nothing, but the request state is still updated below
+			PathDescriptor pathDescriptor = null;
+			if(isReachableInTime(remainingTime, oasisNodeIndex, warehouseNodeIndex)) {
+				pathDescriptor = getDeliverablePath(warehouse, oasisNodeIndex,
+						getShortestPath(oasisNodeIndex, warehouseNodeIndex), remainingTime);
+			}
 			
-			if(pathDescriptor.distance != Double.POSITIVE_INFINITY && warehouse.isDeliverable(request, pathDescriptor)) {
-				warehouse.distribute(request, basketAmount, pathDescriptor);
-				REQUEST_MANAGER.changeRequestState(request, RequestState.Active);
-				request.reduceBasketsRemaining(basketAmount);
+			if(pathDescriptor != null) {
+				basketAmount = warehouse.distribute(request, basketAmount, pathDescriptor);
+				if(basketAmount > 0) {
+					REQUEST_MANAGER.changeRequestState(request, RequestState.Active);
+					request.reduceBasketsRemaining(basketAmount);
+				}
 				if(request.getBasketsRemaining() == 0) { //Request is done
 					iterator.remove();
 					continue;
@@ -242,36 +843,131 @@ public class Map {
 		for(int i = 0; i < oases.length; i++) {
 			nodes[i + warehouses.length] = oases[i];
 		}
+		
+		xs = new double[nodes.length];
+		ys = new double[nodes.length];
+		for(int i = 0; i < nodes.length; i++) {
+			xs[i] = nodes[i].getCoords().x;
+			ys[i] = nodes[i].getCoords().y;
+		}
 	}
 	
 	/**
 	 * Removes all duplicit paths, paths from i to i and paths that are too long for any camel use
-	 * @param paths paths to preprocess
-	 * @return preprocessed paths
+	 * @param xs x coordinates of the nodes by node index
+	 * @param ys y coordinates of the nodes by node index
+	 * @param pathEndpoints node indices of the path ends, two per path
+	 * @param maxCamelDistance distance the least thirsty camel can cover without drinking
+	 * @return node indices of the ends of the kept paths, two per path
 	 */
-	private Path[] preprocessPaths(Path[] paths) {
-		Set<Path> preprocessed = new HashSet<Path>();
+	public static int[] preprocessPathEndpoints(double[] xs, double[] ys, int[] pathEndpoints, double maxCamelDistance) {
+		int pathCount = pathEndpoints.length / 2;
+		int[] us = new int[pathCount];
+		int[] vs = new int[pathCount];
+		for(int i = 0; i < pathCount; i++) {
+			us[i] = pathEndpoints[2 * i];
+			vs[i] = pathEndpoints[2 * i + 1];
+		}
+		double[] lengths = new double[pathCount];
+		DISTANCE_KERNELS.pairDistances(xs, ys, us, vs, pathCount, lengths);
 		
-		for(Path path : paths) {
-			if((path.u == path.v)
-					|| (nodes[path.u].getCoords().airDistanceTo(nodes[path.v].getCoords()) >= CAMEL_FACTORY.getMaxCamelDistance())
-					|| (preprocessed.contains(path) || preprocessed.contains(path.inverse()))) {
+		//Kept paths are written straight into the result in the input order, the first of the duplicit paths is kept
+		EdgeKeySet preprocessed = new EdgeKeySet(pathCount);
+		int[] kept = new int[2 * pathCount];
+		int keptCount = 0;
+		for(int i = 0; i < pathCount; i++) {
+			if((us[i] == vs[i])
+					|| (lengths[i] >= maxCamelDistance)
+					|| !preprocessed.add(us[i], vs[i])) {
 				continue;
 			}
-		
 			
-			preprocessed.add(path);
+			kept[2 * keptCount] = us[i];
+			kept[2 * keptCount + 1] = vs[i];
+			keptCount++;
+		}
+		
+		return Arrays.copyOf(kept, 2 * keptCount);
+	}
+	
+	/**
+	 * Creates the preprocessed paths
+	 * Also tunes the delta-stepping bucket width from the lengths of the paths
+	 * @param pathEndpoints node indices of the ends of the preprocessed paths, two per path
+	 * @return preprocessed paths
+	 */
+	private Path[] preprocessPaths(int[] pathEndpoints) {
+		int pathCount = pathEndpoints.length / 2;
+		int[] us = new int[pathCount];
+		int[] vs = new int[pathCount];
+		Path[] arr = new Path[pathCount];
+		for(int i = 0; i < pathCount; i++) {
+			us[i] = pathEndpoints[2 * i];
+			vs[i] = pathEndpoints[2 * i + 1];
+			arr[i] = new Path(us[i], vs[i]);
 		}
+		double[] lengths = new double[pathCount];
+		DISTANCE_KERNELS.pairDistances(xs, ys, us, vs, pathCount, lengths);
 		
-		Path[] arr = new Path[preprocessed.size()];
-		int i = 0;
-		for (Iterator<Path> iterator = preprocessed.iterator(); iterator.hasNext();) {
-			arr[i++] = iterator.next();
+		double maxLength = 0;
+		double sumLength = 0;
+		for(double length : lengths) {
+			maxLength = Math.max(maxLength, length);
+			sumLength += length;
 		}
+		deltaSteppingBucketWidth = getDeltaSteppingBucketWidth(pathCount, maxLength, sumLength);
 		
 		return arr;
 	}
 	
+	/**
+	 * Writes the cache entry with the preprocessed paths:
+	 * delta-stepping bucket width (double), path count (int), endpoints (two ints per path).
+	 * @param buffer Buffer of the entry.
+	 * @param paths Preprocessed paths.
+	 */
+	private void writePaths(ByteBuffer buffer, Path[] paths) {
+		buffer.putDouble(deltaSteppingBucketWidth);
+		buffer.putInt(paths.length);
+		for(Path path : paths) {
+			buffer.putInt(path.u);
+			buffer.putInt(path.v);
+		}
+	}
+	
+	/**
+	 * Reads the cache entry with the preprocessed paths written by {@link #writePaths(ByteBuffer, Path[])}.
+	 * @param buffer Buffer of the entry.
+	 * @return Preprocessed paths.
+	 */
+	private Path[] readPaths(ByteBuffer buffer) {
+		deltaSteppingBucketWidth = buffer.getDouble();
+		Path[] paths = new Path[buffer.getInt()];
+		for(int i = 0; i < paths.length; i++) {
+			paths[i] = new Path(Objects.checkIndex(buffer.getInt(), nodes.length), Objects.checkIndex(buffer.getInt(), nodes.length));
+		}
+		return paths;
+	}
+	
+	/**
+	 * Returns the delta-stepping bucket width for the edge length distribution.
+	 * Width of the max length divided by the average degree keeps the number of light edge
+	 * re-relaxations low, it is not allowed to drop below the half of the mean length,
+	 * otherwise dense graphs with short edges would end up with too many nearly empty buckets.
+	 * @param edgeCount Number of edges.
+	 * @param maxLength Length of the longest edge.
+	 * @param sumLength Sum of the edge lengths.
+	 * @return Delta-stepping bucket width.
+	 */
+	private double getDeltaSteppingBucketWidth(int edgeCount, double maxLength, double sumLength) {
+		if(edgeCount == 0 || maxLength == 0) {
+			return 1;
+		}
+		double averageDegree = 2.0 * edgeCount / nodes.length;
+		double meanLength = sumLength / edgeCount;
+		return Math.max(maxLength / Math.max(1, averageDegree), meanLength / 2);
+	}
+	
 	/**
 	 * Sorts warehouses by distance from centre node when using centrePathCalculator
 	 * Used during preprocessing
@@ -332,4 +1028,42 @@ public class Map {
 	public int getOasisCount() {
 		return oases.length;
 	}
+	
+	/**
+	 * Requests received at the same time with the same oasis and time left.
+	 */
+	private static class RequestGroup {
+		
+		/** Index of the group in the batch */
+		private final int index;
+		private final int oasisNodeIndex;
+		private final double remainingTime;
+		private final List<Request> requests = new ArrayList<>();
+		/** Number of baskets of the requests not distributed yet */
+		private int basketCount = 0;
+		
+		private RequestGroup(int index, int oasisNodeIndex, double remainingTime) {
+			this.index = index;
+			this.oasisNodeIndex = oasisNodeIndex;
+			this.remainingTime = remainingTime;
+		}
+		
+	}
+	
+	/**
+	 * Kept fastest path of a camel type, or the time no path was fast enough for.
+	 */
+	private static class FastestPath {
+		
+		/** Descriptor of the fastest path, null if none was fast enough */
+		private final PathDescriptor pathDescriptor;
+		/** Time the path was looked for */
+		private final double maxTime;
+		
+		private FastestPath(PathDescriptor pathDescriptor, double maxTime) {
+			this.pathDescriptor = pathDescriptor;
+			this.maxTime = maxTime;
+		}
+		
+	}
 }
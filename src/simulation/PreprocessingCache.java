@@ -0,0 +1,343 @@
+package simulation;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the map preprocessing keyed by a 128-bit hash of the nodes and paths,
+ * so a map loaded again, e.g. with other requests, reuses its preprocessed paths,
+ * the path calculator selected for it and the index of the calculator.
+ * The map keys the calculators by the preprocessed paths, so a compiled scenario shares them with its text.
+ * Every entry is one file in the cache directory named by the key and the entry name,
+ * it is little endian and starts with the magic "CWPC", the format version and the node count (ints)
+ * followed by the hash of the entry data (long), so a damaged entry is never read.
+ * The entries are read and written whole, no file stays mapped, so an entry can always be removed or replaced.
+ * The least recently used entries are removed when the cache directory grows over its maximal size,
+ * the cache directory can be deleted at any time.
+ * The cache is used only after its directory is set, writing the indices of a large map takes
+ * a noticeable time and space on the first load.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class PreprocessingCache {
+
+	/** Directory of the cache, null if the preprocessing is not cached */
+	private static Path cacheDir = null;
+
+	/** Maximal total size of the entries in the cache directory in bytes */
+	private static final long MAX_CACHE_SIZE = 1L << 30;
+
+	/** Magic number at the beginning of an entry, "CWPC" */
+	private static final int MAGIC = 0x43505743;
+
+	/** Version of the format, must change whenever the stored data change their meaning */
+	private static final int VERSION = 2;
+
+	/** Position of the hash of the entry data in the header */
+	private static final int PAYLOAD_HASH_POSITION = 3 * 4;
+
+	private static final int HEADER_SIZE = PAYLOAD_HASH_POSITION + 8;
+
+	/** Seeds and multipliers of the two 64-bit lanes of the key hash */
+	private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+	private static final long SEED_2 = 0x632BE59BD9B4E019L;
+	private static final long PRIME_1 = 0x87C37B91114253D5L;
+	private static final long PRIME_2 = 0x4CF5AD432745937FL;
+	private static final long PRIME_3 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_4 = 0x165667B19E3779F9L;
+
+	/** Key of the map, null if the cache is not used */
+	private final String key;
+
+	private final int nodeCount;
+
+	/** Directory of the entries, the one set when the cache was opened */
+	private final Path directory;
+
+	private PreprocessingCache(String key, int nodeCount, Path directory) {
+		this.key = key;
+		this.nodeCount = nodeCount;
+		this.directory = directory;
+	}
+
+	/**
+	 * Sets the directory of the cache used by the maps loaded next.
+	 * @param directory Directory of the cache, null if the preprocessing should not be cached.
+	 */
+	public static void setDirectory(String directory) {
+		cacheDir = directory != null ? Paths.get(directory) : null;
+	}
+
+	/**
+	 * Returns the directory of the cache.
+	 * @return Directory of the cache, null if the preprocessing is not cached.
+	 */
+	public static String getDirectory() {
+		return cacheDir != null ? cacheDir.toString() : null;
+	}
+
+	/**
+	 * Returns the cache of a map.
+	 * The maximal camel distance is a part of the key only when the paths are not preprocessed yet.
+	 * @param xs X coordinates of the nodes.
+	 * @param ys Y coordinates of the nodes.
+	 * @param pathEndpoints Node indices of the path ends as loaded.
+	 * @param pathsPreprocessed Whether the paths are already preprocessed.
+	 * @param maxCamelDistance Maximal distance any camel can go without drinking.
+	 * @return Cache of the map, it neither loads nor stores anything if caching is disabled.
+	 */
+	static PreprocessingCache open(double[] xs, double[] ys, int[] pathEndpoints, boolean pathsPreprocessed, double maxCamelDistance) {
+		if (cacheDir == null) {
+			return new PreprocessingCache(null, xs.length, null);
+		}
+
+		long[] lanes = {SEED_1, SEED_2};
+		mix(lanes, VERSION);
+		mix(lanes, ((long) xs.length << 32) | (pathEndpoints.length / 2));
+		mix(lanes, Double.doubleToLongBits(pathsPreprocessed ? -1 : maxCamelDistance));
+		for (int i = 0; i < xs.length; i++) {
+			mix(lanes, Double.doubleToRawLongBits(xs[i]));
+			mix(lanes, Double.doubleToRawLongBits(ys[i]));
+		}
+		for (int i = 0; i + 1 < pathEndpoints.length; i += 2) {
+			mix(lanes, ((long) pathEndpoints[i] << 32) | (pathEndpoints[i + 1] & 0xFFFFFFFFL));
+		}
+
+		String key = String.format("%016x%016x", finish(lanes[0]), finish(lanes[1]));
+		return new PreprocessingCache(key, xs.length, cacheDir);
+	}
+
+	/**
+	 * Adds a value into both lanes of the key hash, the lanes differ in their multipliers.
+	 */
+	private static void mix(long[] lanes, long value) {
+		lanes[0] = Long.rotateLeft(lanes[0] ^ (value * PRIME_1), 31) * PRIME_2;
+		lanes[1] = Long.rotateLeft(lanes[1] ^ (value * PRIME_3), 27) * PRIME_4;
+	}
+
+	/**
+	 * Returns the hash of the entry data following the header, the position of the buffer is not changed.
+	 */
+	private static long hashPayload(ByteBuffer buffer) {
+		ByteBuffer payload = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_SIZE);
+		long[] lanes = {SEED_1, SEED_2};
+		mix(lanes, payload.remaining());
+		while (payload.remaining() >= 8) {
+			mix(lanes, payload.getLong());
+		}
+		while (payload.hasRemaining()) {
+			mix(lanes, payload.get());
+		}
+		return finish(lanes[0]) ^ finish(lanes[1]);
+	}
+
+	/**
+	 * Spreads the bits of a lane, the finalizer of MurmurHash3.
+	 */
+	private static long finish(long lane) {
+		lane ^= lane >>> 33;
+		lane *= 0xFF51AFD7ED558CCDL;
+		lane ^= lane >>> 33;
+		lane *= 0xC4CEB9FE1A85EC53L;
+		return lane ^ (lane >>> 33);
+	}
+
+	/**
+	 * Returns the size of a stored entry.
+	 * @param entry Name of the entry.
+	 * @return Size of the entry data in bytes, -1 if the entry is not stored.
+	 */
+	long size(String entry) {
+		if (key == null) {
+			return -1;
+		}
+		try {
+			return Files.size(getFile(entry)) - HEADER_SIZE;
+		}
+		catch (IOException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads a stored entry and marks it as recently used.
+	 * An entry that cannot be read is reported and removed.
+	 * @param <T> Type of the read value.
+	 * @param entry Name of the entry.
+	 * @param reader Reader of the entry data, it has to read all of them.
+	 * @return Read value, null if the entry is not stored or cannot be read.
+	 */
+	<T> T load(String entry, Function<ByteBuffer, T> reader) {
+		if (key == null || !Files.exists(getFile(entry))) {
+			return null;
+		}
+
+		Path file = getFile(entry);
+		try {
+			ByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				if (channel.size() > Integer.MAX_VALUE) {
+					throw new IOException("File too large to be read");
+				}
+				buffer = ByteBuffer.allocate((int) channel.size());
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0) {
+						throw new IOException("File shorter than its size");
+					}
+				}
+			}
+			buffer.flip();
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != nodeCount) {
+				throw new IOException("Not an entry of this version and map");
+			}
+			if (buffer.getLong() != hashPayload(buffer)) {
+				throw new IOException("Entry data damaged");
+			}
+
+			T value = reader.apply(buffer);
+			if (buffer.hasRemaining()) {
+				throw new IOException(buffer.remaining() + " B left unread");
+			}
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			return value;
+		}
+		catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			System.out.println("Preprocessing cache entry " + file + " ignored: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+			try {
+				Files.deleteIfExists(file); // stored again once it is built
+			}
+			catch (IOException e2) {
+				// it stays ignored
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Stores an entry unless it is stored already.
+	 * The entry is written into a temporary file first, so a reader never sees it incomplete.
+	 * The least recently used entries are removed then if the cache directory is too large.
+	 * An entry that cannot be written is reported and skipped.
+	 * @param entry Name of the entry.
+	 * @param size Size of the entry data in bytes.
+	 * @param writer Writer of exactly size bytes of the entry data.
+	 */
+	void store(String entry, long size, Consumer<ByteBuffer> writer) {
+		if (key == null || Files.exists(getFile(entry))) {
+			return;
+		}
+
+		Path file = getFile(entry);
+		Path temporary = null;
+		try {
+			if (HEADER_SIZE + size > Integer.MAX_VALUE) {
+				throw new IOException("Entry too large: " + size + " B");
+			}
+			Files.createDirectories(file.getParent());
+			temporary = Files.createTempFile(file.getParent(), key, ".tmp");
+			ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_SIZE + size));
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(nodeCount);
+			buffer.putLong(0);
+			writer.accept(buffer);
+			if (buffer.hasRemaining()) {
+				throw new IllegalStateException("Entry " + entry + " has " + buffer.remaining() + " B unwritten");
+			}
+			buffer.putLong(PAYLOAD_HASH_POSITION, hashPayload(buffer));
+			buffer.flip();
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			}
+			Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			evict(file);
+		}
+		catch (IOException e) {
+			System.out.println("Preprocessing cache entry " + file + " could not be written: " + e.getMessage());
+			try {
+				if (temporary != null) {
+					Files.deleteIfExists(temporary);
+				}
+			}
+			catch (IOException e2) {
+				// the temporary file stays, it is never read
+			}
+		}
+	}
+
+	/**
+	 * Removes the least recently used entries until the cache directory fits into its maximal size.
+	 * @param kept Entry that is never removed, the one just stored.
+	 */
+	private static void evict(Path kept) {
+		List<Path> files;
+		try (Stream<Path> list = Files.list(kept.getParent())) {
+			files = list.filter(file -> file.getFileName().toString().endsWith(".bin")).collect(Collectors.toList());
+		}
+		catch (IOException e) {
+			return; // the cache stays larger
+		}
+		java.util.Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+		long totalSize = 0;
+		for (Path file : files) {
+			try {
+				BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+				attributes.put(file, fileAttributes);
+				totalSize += fileAttributes.size();
+			}
+			catch (IOException e) {
+				// removed meanwhile
+			}
+		}
+		if (totalSize <= MAX_CACHE_SIZE) {
+			return;
+		}
+
+		List<Path> leastRecentlyUsed = new ArrayList<>(attributes.keySet());
+		leastRecentlyUsed.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+		for (Path file : leastRecentlyUsed) {
+			if (totalSize <= MAX_CACHE_SIZE) {
+				break;
+			}
+			if (file.equals(kept)) {
+				continue;
+			}
+			try {
+				Files.deleteIfExists(file);
+				totalSize -= attributes.get(file).size();
+			}
+			catch (IOException e) {
+				// it stays until the next eviction
+			}
+		}
+	}
+
+	private Path getFile(String entry) {
+		return directory.resolve(key + "_" + entry + ".bin");
+	}
+
+}
@@ -0,0 +1,94 @@
+package simulation;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+/**
+ * Source of the random streams derived from one master seed.
+ * A stream is derived only from the seed, its purpose and its index, never from the order
+ * the streams are requested in, so the draws of one warehouse do not depend on the draws of the others
+ * and a run with the same seed is reproducible even when the warehouses are processed in parallel.
+ * Without a seed set, one is chosen randomly at startup and can be read back to repeat the run.
+ * Singleton pattern is used
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+public class RandomStreams {
+
+	/** Purpose of the streams generating the camels of the warehouses */
+	public static final String CAMELS = "camels";
+
+	/** Purpose of the streams of the data generator sections */
+	public static final String DATA_GENERATOR = "data_generator";
+
+	/** Increment of the Weyl sequence of the SplitMix64 generator */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private static final RandomStreams INSTANCE = new RandomStreams();
+
+	private long seed = new SplittableRandom().nextLong();
+
+	/** Number of the sets of streams taken by purpose since the master seed was set */
+	private final java.util.Map<String, Integer> streamSets = new HashMap<>();
+
+	private RandomStreams() {}
+
+	/**
+	 * Returns the singleton.
+	 * @return Singleton.
+	 */
+	public static RandomStreams getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the master seed.
+	 * @return Master seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the master seed, the streams derived before keep their draws.
+	 * The sets of streams are counted from zero again.
+	 * @param seed Master seed.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		streamSets.clear();
+	}
+
+	/**
+	 * Returns the number of the next set of streams of a purpose used repeatedly, e.g. generating another data set.
+	 * The sets are counted since the master seed was set, so the same seed gives the same sequence of sets.
+	 * @param purpose Purpose of the streams.
+	 * @return Number of the set, 0 for the first set since the master seed was set.
+	 */
+	public int nextStreamSet(String purpose) {
+		return streamSets.merge(purpose, 1, Integer::sum) - 1;
+	}
+
+	/**
+	 * Returns a new stream, the same purpose and index always give the same stream for the same master seed.
+	 * @param purpose Purpose of the stream.
+	 * @param index Index of the stream among the streams of the purpose.
+	 * @return New random stream.
+	 */
+	public SplittableRandom getStream(String purpose, int index) {
+		long streamSeed = mix(seed + GOLDEN_GAMMA * purpose.hashCode());
+		streamSeed = mix(streamSeed + GOLDEN_GAMMA * (index + 1L));
+		return new SplittableRandom(streamSeed);
+	}
+
+	/**
+	 * Returns the SplitMix64 finalizer of the value, a bijection spreading every input bit over all output bits.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
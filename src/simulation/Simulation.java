@@ -1,14 +1,15 @@
 package simulation;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
-import java.util.Iterator;
 
 import camels.CamelFactory;
 import loader.Loader;
 import loader.Parser;
-import path_calculation.Path;
-import requests.Request;
+import loader.Scenario;
+import loader.ScenarioFile;
+import loader.Tokenizer;
 import requests.RequestManager;
 import ui.UserInterface;
 
@@ -23,6 +24,8 @@ public class Simulation {
 	
 	private static Map MAP = Map.getInstance();
 	
+	private static final LoadProfiler LOAD_PROFILER = LoadProfiler.getInstance();
+	
 	/** Number of delivered baskets. */
 	public static int basketsDelivered = 0;
 	/** Number of fulfilled requests. */
@@ -45,35 +48,73 @@ public class Simulation {
 	
 	/**
 	 * Loads the data into simulation.
+	 * Files with the compiled scenario extension are read as compiled scenarios, other files as text.
 	 * @param filename Name of the file from which to load the data.
 	 * @throws IOException If there is any problem regarding files.
 	 */
 	public static void loadData(String filename) throws IOException {
 		try {
-			Iterator<String> iter = Parser.parse(filename).iterator();
+			LOAD_PROFILER.start(filename);
+			Scenario scenario;
+			if (filename.endsWith(ScenarioFile.EXTENSION)) {
+				scenario = ScenarioFile.read(filename);
+				LOAD_PROFILER.endPhase("read");
+			} else {
+				Parser parser = Parser.parse(filename);
+				LOAD_PROFILER.endPhase("read");
+				try (Tokenizer tokenizer = parser.tokenizer()) {
+					scenario = Loader.loadScenario(tokenizer);
+				}
+			}
 			
-			Warehouse[] warehouses = Loader.loadWarehouses(iter);
+			Warehouse[] warehouses = scenario.createWarehouses();
+			Oasis[] oases = scenario.createOases();
+			CamelFactory.getInstance().setCamelTypes(scenario.camelTypes);
+			LOAD_PROFILER.endPhase("objects");
 			
-			Oasis[] oases = Loader.loadOases(iter);
-			Path[] paths = Loader.loadPaths(iter);
-			CamelFactory.getInstance().setCamelTypes(Loader.loadCamelTypes(iter));
 			MAP.setMap(
 					warehouses,
 					oases,
-					paths
+					scenario.pathEndpoints,
+					scenario.pathsPreprocessed,
+					scenario.requestOasisIndices
 			);
-			
-			Request[] requests = Loader.loadRequests(iter);
 
-			for (Request request : requests) {
-				REQUEST_MANAGER.addRequest(request);
-			}
+			REQUEST_MANAGER.setRequestSource(scenario.createRequestSource());
+			LOAD_PROFILER.endPhase("schedule requests");
+			LOAD_PROFILER.finish();
 			
-			System.out.println("Request count: " + requests.length);
-			System.out.println("Sum baskets: " + Arrays.stream(requests).mapToInt(r -> r.getBasketCount()).sum());
+			System.out.println("Request count: " + scenario.requestTimes.length);
+			System.out.println("Sum baskets: " + Arrays.stream(scenario.requestBasketCounts).sum());
+			System.out.println("Seed: " + RandomStreams.getInstance().getSeed());
 		}
 		catch (IOException e) {
 			throw e;
 		}
+		catch (UncheckedIOException e) { // from the decompression of a streamed input
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Converts a text scenario into the compiled binary format with preprocessed paths.
+	 * The simulation itself is not affected.
+	 * @param textFilename Name of the text file.
+	 * @param compiledFilename Name of the compiled file to write.
+	 * @throws IOException If there is any problem regarding files.
+	 */
+	public static void compileData(String textFilename, String compiledFilename) throws IOException {
+		Scenario scenario;
+		try (Tokenizer tokenizer = Parser.parse(textFilename).tokenizer()) {
+			scenario = Loader.loadScenario(tokenizer);
+		}
+		catch (UncheckedIOException e) { // from the decompression of a streamed input
+			throw e.getCause();
+		}
+		int[] pathEndpoints = Map.preprocessPathEndpoints(scenario.getNodeXs(), scenario.getNodeYs(),
+				scenario.pathEndpoints, CamelFactory.getMaxCamelDistance(scenario.camelTypes));
+		ScenarioFile.write(scenario.withPaths(pathEndpoints, true), compiledFilename);
+		
+		System.out.println("Paths: " + scenario.pathEndpoints.length / 2 + " -> " + pathEndpoints.length / 2);
 	}
 }
@@ -6,7 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
@@ -15,6 +15,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import camels.Camel;
+import camels.Shipment;
 import events.EventManager;
 import requests.Request;
 import requests.RequestManager;
@@ -38,12 +39,13 @@ public class Statistics {
 	private static EventManager EVENT_MANAGER = EventManager.getInstance();
 	private static RequestManager REQUEST_MANAGER = RequestManager.getInstance();
 	
-	private final Map<Camel, Collection<CamelDelivery>> deliveries;
+	/** Delivery records by camel index, null for a camel without deliveries */
+	private final List<List<CamelDelivery>> deliveries;
 	
 	private final Map<Warehouse, List<WarehouseRefill>> refills;
 	
 	private Statistics() {
-		this.deliveries = new HashMap<>();
+		this.deliveries = new ArrayList<>();
 		this.refills = new HashMap<>();
 	}
 	
@@ -58,20 +60,22 @@ public class Statistics {
 	/**
 	 * Adds a camel delivery record.
 	 * @param camel Camel.
-	 * @param request Request.
-	 * @param load Number of carried baskets.
+	 * @param shipment Shipment, the carried baskets of the requests.
 	 * @param timeDepart Time of departure.
 	 * @param timeDeliver Time of delivery.
 	 * @param timeReturn Time of return to home warehouse.
 	 * @param path Path the camel follows.
 	 * @param drinking Camel drinking records.
 	 */
-	public void addCamelDelivery(Camel camel, Request request, int load, double timeDepart, double timeDeliver, double timeReturn, List<Integer> path, List<Drinking> drinking) {
+	public void addCamelDelivery(Camel camel, Shipment shipment, double timeDepart, double timeDeliver, double timeReturn, List<Integer> path, List<Drinking> drinking) {
 		if(GENERATE_STATISTICS) {
-			if (!deliveries.containsKey(camel)) {
-				deliveries.put(camel, new ArrayList<>());
+			while (deliveries.size() <= camel.getIndex()) {
+				deliveries.add(null);
 			}
-			deliveries.get(camel).add(new CamelDelivery(request, load, timeDepart, timeDeliver, timeReturn, path, drinking));
+			if (deliveries.get(camel.getIndex()) == null) {
+				deliveries.set(camel.getIndex(), new ArrayList<>());
+			}
+			deliveries.get(camel.getIndex()).add(new CamelDelivery(shipment, timeDepart, timeDeliver, timeReturn, path, drinking));
 		}
 	}
 	
@@ -141,9 +145,7 @@ public class Statistics {
 		try (BufferedWriter bfw = Files.newBufferedWriter(Paths.get(STATISTICS_DIR + "/camels.txt"))) {
 			Warehouse[] warehouses = MAP.getWarehouses();
 			for (Warehouse warehouse : warehouses) {
-				List<Camel> warehouseCamels = new ArrayList<>(warehouse.getOwnedCamels());
-				warehouseCamels.sort((c1, c2) -> c1.getIndex() - c2.getIndex());
-				for (Camel camel : warehouseCamels) {
+				for (Camel camel : warehouse.getOwnedCamels()) {
 					printCamel(bfw, camel);
 					bfw.newLine();
 				}
@@ -160,12 +162,11 @@ public class Statistics {
 		bfw.newLine();
 		bfw.write(String.format("- max_vzdalenost: %.2f", c.getDistance()));
 		bfw.newLine();
-		bfw.write(String.format("- trasy: %d", (deliveries.containsKey(c) ? deliveries.get(c).size() : 0)));
+		List<CamelDelivery> camelDeliveries = getDeliveries(c);
+		bfw.write(String.format("- trasy: %d", camelDeliveries.size()));
 		bfw.newLine();
-		if (deliveries.containsKey(c)) {
-			for (CamelDelivery cd : deliveries.get(c)) {
-				printCamelDelivery(bfw, cd);
-			}
+		for (CamelDelivery cd : camelDeliveries) {
+			printCamelDelivery(bfw, cd);
 		}
 		bfw.write(String.format("- cas_odpocinku: %.2f", getCamelRestTime(c)));
 		bfw.newLine();
@@ -180,8 +181,12 @@ public class Statistics {
 		bfw.newLine();
 		bfw.write(String.format("    - cesta: %s", getCamelDeliveryPathString(cd)));
 		bfw.newLine();
-		bfw.write(String.format("    - naklad: %d", cd.load));
+		bfw.write(String.format("    - naklad: %d", cd.shipment.getTotalLoad()));
 		bfw.newLine();
+		if (cd.shipment.getRequestCount() > 1) {
+			bfw.write(String.format("    - naklad_pozadavky: %s", getCamelDeliveryLoadsString(cd)));
+			bfw.newLine();
+		}
 		bfw.write(String.format("    - napojeni: %d", cd.drinking.size()));
 		bfw.newLine();
 		int d_index = 1;
@@ -200,7 +205,7 @@ public class Statistics {
 			d_index++;
 			
 		}
-		bfw.write(String.format("    - id_oazy: %d", cd.request.getOasisIndexPlusOne()));
+		bfw.write(String.format("    - id_oazy: %d", cd.shipment.getOasisIndexPlusOne()));
 		bfw.newLine();
 		bfw.write(String.format("    - cas_doruceni: %.2f", cd.timeDeliver));
 		bfw.newLine();
@@ -220,28 +225,36 @@ public class Statistics {
 			   .collect(Collectors.joining(", "));
 	}
 	
+	private String getCamelDeliveryLoadsString(CamelDelivery cd) {
+		List<String> loads = new ArrayList<>(cd.shipment.getRequestCount());
+		for (int i = 0; i < cd.shipment.getRequestCount(); i++) {
+			loads.add(String.format("pozadavek_%d %d", cd.shipment.getRequest(i).getIndex() + 1, cd.shipment.getLoad(i)));
+		}
+		return String.join(", ", loads);
+	}
+	
+	private List<CamelDelivery> getDeliveries(Camel c) {
+		List<CamelDelivery> camelDeliveries = c.getIndex() < deliveries.size() ? deliveries.get(c.getIndex()) : null;
+		return camelDeliveries != null ? camelDeliveries : Collections.emptyList();
+	}
+	
 	private double getCamelRestTime(Camel c) {
-		return (deliveries.containsKey(c)) ?
-				 EVENT_MANAGER.getSimulationTime()
+		return EVENT_MANAGER.getSimulationTime()
 				 - c.getGenerationTime()
-					 - deliveries.get(c).stream()
-					 .mapToDouble(cd -> cd.timeReturn - cd.timeDepart)
-				 	 .sum()
-				 : EVENT_MANAGER.getSimulationTime()
-				 - c.getGenerationTime();
+				 - getDeliveries(c).stream()
+				 .mapToDouble(cd -> cd.timeReturn - cd.timeDepart)
+				 .sum();
 	}
 	
 	private double getCamelTotalWalkedDistance(Camel c) {
 		double distance = 0;
-		if (deliveries.containsKey(c)) {
-			for (CamelDelivery cd : deliveries.get(c)) {
-				Iterator<Integer> pathIterator = cd.path.iterator();
-				int i = pathIterator.next();
-				while (pathIterator.hasNext()) {
-					int j = pathIterator.next();
-					distance += MAP.getNodeAtIndex(i).getCoords().airDistanceTo(MAP.getNodeAtIndex(j).getCoords());
-					j = i;
-				}
+		for (CamelDelivery cd : getDeliveries(c)) {
+			Iterator<Integer> pathIterator = cd.path.iterator();
+			int i = pathIterator.next();
+			while (pathIterator.hasNext()) {
+				int j = pathIterator.next();
+				distance += MAP.getNodeAtIndex(i).getCoords().airDistanceTo(MAP.getNodeAtIndex(j).getCoords());
+				j = i;
 			}
 		}
 		return distance;
@@ -249,6 +262,7 @@ public class Statistics {
 
 	private void generateOasesStatistics() throws IOException {
 		try (BufferedWriter bfw = Files.newBufferedWriter(Paths.get(STATISTICS_DIR + "/oases.txt"))) {
+			//Only the queued requests, the requests of the input not queued yet are counted in simulation.txt
 			Map<Integer, List<Request>> oasisRequests = new TreeMap<>(
 					REQUEST_MANAGER.getAllRequests().keySet()
 					.stream().collect(Collectors.groupingBy(r -> r.getOasisIndexPlusOne()))
@@ -323,6 +337,12 @@ public class Statistics {
 		try (BufferedWriter bfw = Files.newBufferedWriter(Paths.get(STATISTICS_DIR + "/simulation.txt"))) {
 			bfw.write(String.format("trvani: %.2f", EVENT_MANAGER.getSimulationTime()));
 			bfw.newLine();
+			bfw.write(String.format("seminko: %d", RandomStreams.getInstance().getSeed()));
+			bfw.newLine();
+			bfw.write(String.format("pozadavky_zarazene: %d", REQUEST_MANAGER.getAllRequests().size()));
+			bfw.newLine();
+			bfw.write(String.format("pozadavky_nezarazene: %d", REQUEST_MANAGER.getUnqueuedRequestCount()));
+			bfw.newLine();
 			List<Camel> camels = new ArrayList<>();
 			for (Warehouse w : MAP.getWarehouses()) {
 				camels.addAll(w.getOwnedCamels());
@@ -352,18 +372,16 @@ public class Statistics {
 		private static int instanceCounter = 0;
 		
 		private final int id;
-		private final Request request;
-		private final int load;
+		private final Shipment shipment;
 		private final double timeDepart;
 		private final double timeDeliver;
 		private final double timeReturn;
 		private final List<Integer> path;
 		private final List<Drinking> drinking;
 		
-		private CamelDelivery(Request request, int load, double timeDepart, double timeDeliver, double timeReturn, List<Integer> path, List<Drinking> drinking) {
+		private CamelDelivery(Shipment shipment, double timeDepart, double timeDeliver, double timeReturn, List<Integer> path, List<Drinking> drinking) {
 			this.id = ++instanceCounter;
-			this.request = request;
-			this.load = load;
+			this.shipment = shipment;
 			this.timeDepart = timeDepart;
 			this.timeDeliver = timeDeliver;
 			this.timeReturn = timeReturn;
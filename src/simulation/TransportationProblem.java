@@ -0,0 +1,307 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Transportation problem, moves as many units as possible from the sources to the sinks along the routes
+ * and among those flows the cheapest one. Solved as a min-cost flow by the successive shortest paths
+ * with Dijkstra on the reduced costs. Every sink first takes its cheapest route, when its source is not
+ * wanted by more than it supplies, so the shortest paths only resolve the contended sources.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class TransportationProblem {
+
+	private final int[] supplies;
+
+	private final int[] demands;
+
+	private int routeCount = 0;
+
+	private int[] routeSources = new int[16];
+
+	private int[] routeSinks = new int[16];
+
+	private double[] routeCosts = new double[16];
+
+	/** Units moved along the routes */
+	private int[] flows;
+
+	private int[] supplyLeft;
+
+	private int[] demandLeft;
+
+	/** Routes ordered by the source and the beginnings of the routes of the sources in them */
+	private int[] sourceRoutes;
+	private int[] sourceStarts;
+
+	/** Routes ordered by the sink and the beginnings of the routes of the sinks in them */
+	private int[] sinkRoutes;
+	private int[] sinkStarts;
+
+	/** Potentials of the nodes, the sources are the nodes 0 ... sourceCount - 1 and the sinks the following ones */
+	private double[] potentials;
+
+	/** Reduced distances of the nodes in the last search */
+	private double[] distances;
+
+	/** Routes the nodes were reached by in the last search, -1 for a source reached from the super source */
+	private int[] predecessors;
+
+	private boolean[] settled;
+
+	/** Potential of the super sink, which takes the units of the sinks */
+	private double sinkPotential;
+
+	/** Reduced distance of the super sink in the last search so far */
+	private double targetDistance;
+
+	/** Sink with a deficit on the shortest path to the super sink in the last search so far */
+	private int target;
+
+	/**
+	 * Constructs a problem without routes.
+	 * @param supplies Numbers of units of the sources.
+	 * @param demands Numbers of units of the sinks.
+	 */
+	TransportationProblem(int[] supplies, int[] demands) {
+		this.supplies = supplies;
+		this.demands = demands;
+	}
+
+	/**
+	 * Adds a route, its capacity is not limited.
+	 * @param source Index of the source.
+	 * @param sink Index of the sink.
+	 * @param cost Cost of moving one unit.
+	 * @return Index of the route.
+	 */
+	int addRoute(int source, int sink, double cost) {
+		if(routeCount == routeSources.length) {
+			routeSources = Arrays.copyOf(routeSources, 2 * routeCount);
+			routeSinks = Arrays.copyOf(routeSinks, 2 * routeCount);
+			routeCosts = Arrays.copyOf(routeCosts, 2 * routeCount);
+		}
+		routeSources[routeCount] = source;
+		routeSinks[routeCount] = sink;
+		routeCosts[routeCount] = cost;
+		return routeCount++;
+	}
+
+	/**
+	 * Solves the problem.
+	 * @return Numbers of units moved along the routes by the route index.
+	 */
+	int[] solve() {
+		int sourceCount = supplies.length;
+		int nodeCount = sourceCount + demands.length;
+		flows = new int[routeCount];
+		supplyLeft = supplies.clone();
+		demandLeft = demands.clone();
+		sourceRoutes = groupRoutes(routeSources, sourceCount);
+		sourceStarts = groupStarts(routeSources, sourceCount);
+		sinkRoutes = groupRoutes(routeSinks, demands.length);
+		sinkStarts = groupStarts(routeSinks, demands.length);
+		potentials = new double[nodeCount];
+		distances = new double[nodeCount];
+		predecessors = new int[nodeCount];
+		settled = new boolean[nodeCount];
+
+		takeCheapestRoutes();
+		while(findNearestDeficit() >= 0) {
+			for(int v = 0; v < nodeCount; v++) {
+				potentials[v] += Math.min(distances[v], targetDistance);
+			}
+			sinkPotential += targetDistance;
+			augment();
+		}
+		return flows;
+	}
+
+	/**
+	 * Moves the whole demand of the sinks along their cheapest routes, whose sources have enough for all the sinks
+	 * wanting them, unless a sink with a contended cheapest route is cheaper. Sets the potentials of the sinks
+	 * to the costs of their cheapest routes and the potential of the super sink between the served sinks
+	 * and the others, so the reduced costs of all the residual arcs are not negative.
+	 */
+	private void takeCheapestRoutes() {
+		int sourceCount = supplies.length;
+		int[] cheapestRoutes = new int[demands.length];
+		int[] wanted = new int[sourceCount];
+		for(int j = 0; j < demands.length; j++) {
+			cheapestRoutes[j] = -1;
+			for(int k = sinkStarts[j]; k < sinkStarts[j + 1]; k++) {
+				int r = sinkRoutes[k];
+				if(cheapestRoutes[j] < 0 || routeCosts[r] < routeCosts[cheapestRoutes[j]]) {
+					cheapestRoutes[j] = r;
+				}
+			}
+			if(cheapestRoutes[j] >= 0) {
+				potentials[sourceCount + j] = routeCosts[cheapestRoutes[j]];
+				wanted[routeSources[cheapestRoutes[j]]] += demandLeft[j];
+			}
+		}
+		double contendedCost = Double.POSITIVE_INFINITY;
+		for(int j = 0; j < demands.length; j++) {
+			int r = cheapestRoutes[j];
+			if(r >= 0 && wanted[routeSources[r]] > supplies[routeSources[r]]) {
+				contendedCost = Math.min(contendedCost, routeCosts[r]);
+			}
+		}
+		double servedCost = 0;
+		for(int j = 0; j < demands.length; j++) {
+			int r = cheapestRoutes[j];
+			if(r >= 0 && wanted[routeSources[r]] <= supplies[routeSources[r]] && routeCosts[r] <= contendedCost) {
+				flows[r] = demandLeft[j];
+				supplyLeft[routeSources[r]] -= demandLeft[j];
+				demandLeft[j] = 0;
+				servedCost = Math.max(servedCost, routeCosts[r]);
+			}
+		}
+		sinkPotential = contendedCost == Double.POSITIVE_INFINITY ? servedCost : contendedCost;
+	}
+
+	/**
+	 * Finds the shortest residual path from a source with some supply left to a sink with a deficit
+	 * and on to the super sink. The super sink is not a node, its arcs from the sinks with a deficit
+	 * are relaxed with the sinks. The nodes not nearer than the super sink reached so far are not queued.
+	 * @return Node of the sink with a deficit on the path, -1 if no such sink can be reached.
+	 */
+	private int findNearestDeficit() {
+		int sourceCount = supplies.length;
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		Arrays.fill(settled, false);
+		targetDistance = Double.POSITIVE_INFINITY;
+		target = -1;
+		PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+		for(int i = 0; i < sourceCount; i++) {
+			if(supplyLeft[i] > 0) {
+				distances[i] = Math.max(0, -potentials[i]); // from the super source with the potential 0
+				predecessors[i] = -1;
+				queue.add(new double[] {distances[i], i});
+			}
+		}
+
+		while(!queue.isEmpty() && queue.peek()[0] < targetDistance) {
+			double[] entry = queue.poll();
+			int v = (int) entry[1];
+			if(settled[v] || entry[0] > distances[v]) {
+				continue;
+			}
+			settled[v] = true;
+			if(v < sourceCount) {
+				for(int k = sourceStarts[v]; k < sourceStarts[v + 1]; k++) {
+					int r = sourceRoutes[k];
+					int u = sourceCount + routeSinks[r];
+					relax(queue, v, u, r, routeCosts[r] + potentials[v] - potentials[u]);
+				}
+				continue;
+			}
+			// back along the routes with a flow into the sink
+			int j = v - sourceCount;
+			for(int k = sinkStarts[j]; k < sinkStarts[j + 1]; k++) {
+				int r = sinkRoutes[k];
+				int u = routeSources[r];
+				if(flows[r] > 0) {
+					relax(queue, v, u, r, -routeCosts[r] + potentials[v] - potentials[u]);
+				}
+			}
+		}
+		return target;
+	}
+
+	private void relax(PriorityQueue<double[]> queue, int from, int to, int route, double reducedCost) {
+		double distance = distances[from] + Math.max(0, reducedCost); // negative only by rounding
+		if(settled[to] || distance >= distances[to] || distance >= targetDistance) {
+			return;
+		}
+		distances[to] = distance;
+		predecessors[to] = route;
+		if(to >= supplies.length) {
+			int j = to - supplies.length;
+			double sinkDistance = distance + Math.max(0, potentials[to] - sinkPotential);
+			if(demandLeft[j] > 0 && sinkDistance < targetDistance) {
+				targetDistance = sinkDistance;
+				target = to;
+			}
+			if(!hasUnsettledFlowSource(j)) {
+				return; // nowhere to continue, the distance is kept for the potential
+			}
+		}
+		queue.add(new double[] {distance, to});
+	}
+
+	/**
+	 * Returns whether a flow goes into the sink from a source not settled in the search yet.
+	 */
+	private boolean hasUnsettledFlowSource(int j) {
+		for(int k = sinkStarts[j]; k < sinkStarts[j + 1]; k++) {
+			int r = sinkRoutes[k];
+			if(flows[r] > 0 && !settled[routeSources[r]]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves as much as possible along the found path to the sink with a deficit.
+	 */
+	private void augment() {
+		int sourceCount = supplies.length;
+		int amount = demandLeft[target - sourceCount];
+		int v = target;
+		while(predecessors[v] >= 0) {
+			int r = predecessors[v];
+			if(v < sourceCount) {
+				amount = Math.min(amount, flows[r]);
+				v = sourceCount + routeSinks[r];
+			} else {
+				v = routeSources[r];
+			}
+		}
+		amount = Math.min(amount, supplyLeft[v]);
+		supplyLeft[v] -= amount;
+		demandLeft[target - sourceCount] -= amount;
+		v = target;
+		while(predecessors[v] >= 0) {
+			int r = predecessors[v];
+			if(v < sourceCount) {
+				flows[r] -= amount;
+				v = sourceCount + routeSinks[r];
+			} else {
+				flows[r] += amount;
+				v = routeSources[r];
+			}
+		}
+	}
+
+	/**
+	 * Returns the route indices ordered by the node, the routes of a node keep their order.
+	 */
+	private int[] groupRoutes(int[] routeNodes, int nodeCount) {
+		int[] starts = groupStarts(routeNodes, nodeCount);
+		int[] routes = new int[routeCount];
+		for(int r = 0; r < routeCount; r++) {
+			routes[starts[routeNodes[r]]++] = r;
+		}
+		return routes;
+	}
+
+	/**
+	 * Returns the beginnings of the routes of the nodes in the routes ordered by the node, with the end at the end.
+	 */
+	private int[] groupStarts(int[] routeNodes, int nodeCount) {
+		int[] starts = new int[nodeCount + 1];
+		for(int r = 0; r < routeCount; r++) {
+			starts[routeNodes[r] + 1]++;
+		}
+		for(int i = 0; i < nodeCount; i++) {
+			starts[i + 1] += starts[i];
+		}
+		return starts;
+	}
+
+}
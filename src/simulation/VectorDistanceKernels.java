@@ -0,0 +1,72 @@
+package simulation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch air distance computations using the Vector API.
+ * Squares are multiplied and added separately (no fused multiply-add),
+ * so the results are bit-identical to the scalar kernels.
+ *
+ * @author Stanislav Kafara, Jakub Krizanovsky
+ * @version 1 18-10-26
+ */
+class VectorDistanceKernels extends DistanceKernels {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	String getName() {
+		return "vector (" + SPECIES.length() + " lanes)";
+	}
+
+	@Override
+	void distancesFrom(double x, double y, double[] xs, double[] ys, int from, int count, double[] out) {
+		int bound = SPECIES.loopBound(count);
+		int k = 0;
+		for(; k < bound; k += SPECIES.length()) {
+			DoubleVector dx = DoubleVector.broadcast(SPECIES, x).sub(DoubleVector.fromArray(SPECIES, xs, from + k));
+			DoubleVector dy = DoubleVector.broadcast(SPECIES, y).sub(DoubleVector.fromArray(SPECIES, ys, from + k));
+			dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT).intoArray(out, k);
+		}
+		for(; k < count; k++) {
+			double dx = x - xs[from + k];
+			double dy = y - ys[from + k];
+			out[k] = Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+
+	@Override
+	void distancesFrom(double x, double y, double[] xs, double[] ys, int[] indices, int count, double[] out) {
+		int bound = SPECIES.loopBound(count);
+		int k = 0;
+		for(; k < bound; k += SPECIES.length()) {
+			DoubleVector dx = DoubleVector.broadcast(SPECIES, x).sub(DoubleVector.fromArray(SPECIES, xs, 0, indices, k));
+			DoubleVector dy = DoubleVector.broadcast(SPECIES, y).sub(DoubleVector.fromArray(SPECIES, ys, 0, indices, k));
+			dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT).intoArray(out, k);
+		}
+		for(; k < count; k++) {
+			double dx = x - xs[indices[k]];
+			double dy = y - ys[indices[k]];
+			out[k] = Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+
+	@Override
+	void pairDistances(double[] xs, double[] ys, int[] us, int[] vs, int count, double[] out) {
+		int bound = SPECIES.loopBound(count);
+		int k = 0;
+		for(; k < bound; k += SPECIES.length()) {
+			DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, 0, us, k).sub(DoubleVector.fromArray(SPECIES, xs, 0, vs, k));
+			DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, 0, us, k).sub(DoubleVector.fromArray(SPECIES, ys, 0, vs, k));
+			dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT).intoArray(out, k);
+		}
+		for(; k < count; k++) {
+			double dx = xs[us[k]] - xs[vs[k]];
+			double dy = ys[us[k]] - ys[vs[k]];
+			out[k] = Math.sqrt(dx*dx + dy*dy);
+		}
+	}
+
+}
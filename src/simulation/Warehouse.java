@@ -1,11 +1,15 @@
 package simulation;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
 import camels.Camel;
 import camels.CamelFactory;
+import camels.CamelRegistry;
+import camels.CamelSet;
+import camels.DeliveryOdds;
+import camels.Shipment;
 import events.BasketRefillEvent;
 import events.CamelPrepareEvent;
 import events.EventManager;
@@ -25,11 +29,28 @@ public class Warehouse extends Node {
 
 	private int basketCount;
 	
-	private final Set<Camel> camelsInWarehouse = new HashSet<Camel>();
-	private final Set<Camel> camelsDelivering = new HashSet<>();
+	private final IdleCamelPool camelsInWarehouse = new IdleCamelPool();
+	private final CamelSet camelsDelivering = new CamelSet();
+	/** Delivery odds of the paths from the warehouse, computed on the first use */
+	private final java.util.Map<PathDescriptor, DeliveryOdds> deliveryOdds = new HashMap<>();
+	/** Shipments prepared at the time of the open shipments with room for more baskets, by the oasis index */
+	private final java.util.Map<Integer, OpenShipment> openShipments = new HashMap<>();
+	private double openShipmentsTime = Double.NaN;
 	
 	private static int instanceCouter = 0;
 	
+	/**
+	 * Whether the baskets for the requests to the same oasis distributed at the same time should share the camels.
+	 * A shipment closes when its CamelPrepareEvent runs, which is before the next RequestReceiveEvent at the same time,
+	 * so the requests received one by one never share a camel. The camels are shared only when several requests
+	 * are distributed in one event, on a basket refill, or on receiving in the batch admission,
+	 * that is why both are switched together by the batch command.
+	 */
+	private static boolean consolidateShipments = false;
+	
+	/** Maximal number of kept delivery odds, all are dropped when it is reached */
+	private static final int MAX_KEPT_DELIVERY_ODDS = 1 << 10;
+	
 	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
 	private static final CamelFactory CAMEL_FACTORY = CamelFactory.getInstance();
 	
@@ -53,60 +74,134 @@ public class Warehouse extends Node {
 	}
 	
 	/**
-	 * Distributes the baskests.
+	 * Sets whether the baskets for the requests to the same oasis distributed at the same time should share the camels.
+	 * @param consolidate Whether the shipments should be consolidated.
+	 */
+	public static void setConsolidateShipments(boolean consolidate) {
+		consolidateShipments = consolidate;
+	}
+	
+	/**
+	 * Distributes the baskests, first to the idle camels, then to new camels able to deliver in time.
 	 * @param request Request.
 	 * @param basketCount Basket count.
 	 * @param pathDescriptor Path descriptor.
+	 * @return Number of distributed baskets, less than the basket count if no new camel can deliver in time.
 	 */
-	public void distribute(Request request, int basketCount, PathDescriptor pathDescriptor) {
+	public int distribute(Request request, int basketCount, PathDescriptor pathDescriptor) {
+		int basketAmount = distributeToIdleCamels(request, basketCount, pathDescriptor);
+		return basketAmount + distributeToNewCamels(request, basketCount - basketAmount, pathDescriptor);
+	}
+	
+	/**
+	 * Distributes the baskets to the idle camels able to deliver in time.
+	 * If the shipments are consolidated, the baskets are first added to a camel prepared at the same time
+	 * for another request to the same oasis, as far as it has room and can still deliver all its baskets in time.
+	 * @param request Request.
+	 * @param basketCount Basket count.
+	 * @param pathDescriptor Path descriptor.
+	 * @return Number of distributed baskets.
+	 */
+	public int distributeToIdleCamels(Request request, int basketCount, PathDescriptor pathDescriptor) {
 		int basketAmount = basketCount;
-		//Try use camels in warehouse
-		Iterator<Camel> iterator = camelsInWarehouse.iterator();
-		while(basketAmount > 0 && iterator.hasNext()) {
-			Camel camel = iterator.next();
-			int load = Math.min(camel.getMaxLoad(), basketAmount);
-			if(camel.canDeliverInTime(request, pathDescriptor, load)) {
-				EVENT_MANAGER.addEvent(new CamelPrepareEvent(EVENT_MANAGER.getSimulationTime(), camel, request, load, pathDescriptor));
-				basketAmount -= load;
-				deductDistributedBaskets(load);
-				camelsDelivering.add(camel);
-				iterator.remove();
-			}
+		if(consolidateShipments) {
+			basketAmount -= addToOpenShipment(request, basketAmount);
 		}
 		
-		//Generate new camels
-		while(basketAmount > 0) {
-			Camel camel = CAMEL_FACTORY.getCamel();
-			camel.setHome(this);
-			
-			int load = Math.min(camel.getMaxLoad(), basketAmount);
-			if(camel.canDeliverInTime(request, pathDescriptor, load)) {
-				EVENT_MANAGER.addEvent(new CamelPrepareEvent(EVENT_MANAGER.getSimulationTime(), camel, request, load, pathDescriptor));
-				basketAmount -= load;
-				deductDistributedBaskets(load);
-				camelsDelivering.add(camel);
-			} else {
-				camelsInWarehouse.add(camel);
-			}
+		Camel camel;
+		while(basketAmount > 0
+				&& (camel = camelsInWarehouse.take(request, pathDescriptor, basketAmount, basketManipulationTime)) != null) {
+			basketAmount -= prepareShipment(camel, request, basketAmount, pathDescriptor);
 		}
-	} 
+		
+		return basketCount - basketAmount;
+	}
 	
 	/**
-	 * Returns whether request is deliverable from the warehouse through the provided path with ideal camels.
+	 * Distributes the baskets to new camels, every one of them can deliver in time.
 	 * @param request Request.
-	 * @param pathDescriptor Descriptor of the path the camels follow.
-	 * @return True, if request is deliverable through the provided path with ideal camels.
-	 */
-	public boolean isDeliverable(Request request, PathDescriptor pathDescriptor) {
-		Camel[] idealCamels = CAMEL_FACTORY.getIdealCamels();
-		for(Camel idealCamel : idealCamels) {
-			idealCamel.setHome(this);
-			if(idealCamel.canDeliverInTime(request, pathDescriptor, 1)) {
-				return true;
-			}
+	 * @param basketCount Basket count.
+	 * @param pathDescriptor Path descriptor.
+	 * @return Number of distributed baskets, less than the basket count if no new camel can deliver in time.
+	 */
+	public int distributeToNewCamels(Request request, int basketCount, PathDescriptor pathDescriptor) {
+		int basketAmount = basketCount;
+		Camel camel;
+		while(basketAmount > 0
+				&& (camel = CAMEL_FACTORY.getCamel(request, pathDescriptor, this, basketAmount)) != null) {
+			camel.setHome(this);
+			basketAmount -= prepareShipment(camel, request, basketAmount, pathDescriptor);
+		}
+		
+		return basketCount - basketAmount;
+	}
+	
+	/**
+	 * Loads the camel with the baskets of the request it can carry and prepares it for departure.
+	 * @return Number of loaded baskets.
+	 */
+	private int prepareShipment(Camel camel, Request request, int basketAmount, PathDescriptor pathDescriptor) {
+		int load = Math.min(camel.getMaxLoad(), basketAmount);
+		Shipment shipment = new Shipment(request, load);
+		EVENT_MANAGER.addEvent(new CamelPrepareEvent(EVENT_MANAGER.getSimulationTime(), camel, shipment, pathDescriptor));
+		deductDistributedBaskets(load);
+		camelsDelivering.add(camel.getIndex());
+		if(consolidateShipments && load < camel.getMaxLoad()) {
+			openShipments.put(request.getOasisIndex(), new OpenShipment(camel, shipment, pathDescriptor));
+		}
+		return load;
+	}
+	
+	/**
+	 * Adds the baskets of the request to the open shipment to its oasis, as many as the camel can carry
+	 * and deliver in time for all the requests of the shipment.
+	 * @return Number of added baskets.
+	 */
+	private int addToOpenShipment(Request request, int basketAmount) {
+		if(openShipmentsTime != EVENT_MANAGER.getSimulationTime()) { //The camels prepared before have departed
+			openShipments.clear();
+			openShipmentsTime = EVENT_MANAGER.getSimulationTime();
+		}
+		OpenShipment open = openShipments.get(request.getOasisIndex());
+		if(open == null) {
+			return 0;
+		}
+		if(!open.shipment.isOpen()) {
+			openShipments.remove(request.getOasisIndex());
+			return 0;
 		}
 		
-		return false;
+		Request mostUrgent = open.shipment.getMostUrgentRequest();
+		if(request.getRequestTime() + request.getDeliveryTime() < mostUrgent.getRequestTime() + mostUrgent.getDeliveryTime()) {
+			mostUrgent = request;
+		}
+		int load = Math.min(open.camel.getMaxLoad() - open.shipment.getTotalLoad(), basketAmount);
+		//More baskets take longer to load and unload
+		while(load > 0 && !open.camel.canDeliverInTime(mostUrgent, open.pathDescriptor, open.shipment.getTotalLoad() + load)) {
+			load--;
+		}
+		if(load == 0) {
+			return 0;
+		}
+		
+		open.shipment.add(request, load);
+		deductDistributedBaskets(load);
+		if(open.shipment.getTotalLoad() == open.camel.getMaxLoad()) {
+			openShipments.remove(request.getOasisIndex());
+		}
+		return load;
+	}
+	
+	/**
+	 * Returns whether a basket is deliverable from the warehouse through the provided path with ideal camels in time.
+	 * Changes neither the warehouse nor the ideal camels, so the paths can be checked from several threads,
+	 * every path by one thread.
+	 * @param pathDescriptor Descriptor of the path the camels follow.
+	 * @param remainingTime Time left for the delivery.
+	 * @return True, if a basket is deliverable through the provided path with ideal camels in time.
+	 */
+	public boolean isDeliverable(PathDescriptor pathDescriptor, double remainingTime) {
+		return CAMEL_FACTORY.canIdealCamelDeliverInTime(basketManipulationTime, pathDescriptor.getProfile(), remainingTime);
 	}
 	
 	private void deductDistributedBaskets(int basketCount) {
@@ -177,51 +272,60 @@ public class Warehouse extends Node {
 	 * @param camel Camel.
 	 */
 	public void returnCamel(Camel camel) {
-		camelsDelivering.remove(camel);
+		camelsDelivering.remove(camel.getIndex());
 		camelsInWarehouse.add(camel);
 	}
 	
 	/**
 	 * Returns all the camel possessed by the warehouse.
-	 * @return All the camels possessed by the warehouse.
+	 * @return All the camels possessed by the warehouse in the order of their indices.
 	 */
-	public Set<Camel> getOwnedCamels() {
-		Set<Camel> ownedCamels = new HashSet<>();
-		ownedCamels.addAll(camelsInWarehouse);
-		ownedCamels.addAll(camelsDelivering);
-		return ownedCamels;
+	public List<Camel> getOwnedCamels() {
+		CamelSet ownedCamels = new CamelSet();
+		camelsInWarehouse.addAllTo(ownedCamels);
+		for(int id : camelsDelivering.toArray()) {
+			ownedCamels.add(id);
+		}
+		CamelRegistry registry = CAMEL_FACTORY.getRegistry();
+		List<Camel> camels = new ArrayList<>(ownedCamels.size());
+		for(int id : ownedCamels.toArray()) {
+			camels.add(registry.getCamel(id));
+		}
+		return camels;
 	}
 
 
 	/**
 	 * Returns the probable number of camels missing to fulfill the request.
+	 * The idle camels are assumed to carry their max loads, the rest of the baskets is carried
+	 * by the generated camels, every one of them able to deliver in time carries its max load.
+	 * The number of generated camels is the missing baskets divided by the expected load of a generated camel
+	 * (Wald's identity), the odds of the path are computed on the first use and kept.
 	 * @param request Request.
 	 * @param pathDescriptor Descriptor of the path the camels to follow.
-	 * @return Probable number of camels missing to fulfill the request.
+	 * @return Probable number of camels missing to fulfill the request, Integer.MAX_VALUE if no camel can deliver in time.
 	 */
 	public int getMissingCamelCount(Request request, PathDescriptor pathDescriptor) {
-		
-		int missingBasketsCount = request.getBasketCount();
-		int missingCamelCount = 0;
-		
-		for (Camel camel : camelsInWarehouse) {
-			missingBasketsCount -= camel.getType().getMaxLoad();
-		}
-		if (missingBasketsCount < 0) {
+		int missingBasketsCount = request.getBasketCount() - camelsInWarehouse.getCapacity();
+		if (missingBasketsCount <= 0) {
 			return 0;
 		}
 		
-		while (missingBasketsCount > 0) {
-			// generate a camel, inc missing camelCount and if can deliver, decrease missing basketsCount
-			Camel camel = CAMEL_FACTORY.getAnonymousCamel();
-			camel.setHome(this);
-			if (camel.canDeliverInTime(request, pathDescriptor, camel.getType().getMaxLoad())) {
-				missingBasketsCount -= camel.getType().getMaxLoad();
+		DeliveryOdds odds = deliveryOdds.get(pathDescriptor);
+		if (odds == null) {
+			if (deliveryOdds.size() == MAX_KEPT_DELIVERY_ODDS) {
+				deliveryOdds.clear();
 			}
-			missingCamelCount++;
+			odds = CAMEL_FACTORY.getDeliveryOdds(pathDescriptor.getProfile());
+			deliveryOdds.put(pathDescriptor, odds);
 		}
 		
-		return missingCamelCount;
+		double remainingTime = request.getRequestTime() + request.getDeliveryTime() - EVENT_MANAGER.getSimulationTime();
+		double expectedLoad = odds.getExpectedLoad(remainingTime, basketManipulationTime);
+		if (!(expectedLoad > 0)) {
+			return Integer.MAX_VALUE;
+		}
+		return (int) Math.min(Math.ceil(missingBasketsCount / expectedLoad), Integer.MAX_VALUE);
 	}
 	
 	/**
@@ -244,5 +348,22 @@ public class Warehouse extends Node {
 		}
 		return this.index == ((Warehouse) obj).index;
 	}
+	
+	/**
+	 * Shipment prepared for departure with room for more baskets, with its camel and path.
+	 */
+	private static class OpenShipment {
+		
+		private final Camel camel;
+		private final Shipment shipment;
+		private final PathDescriptor pathDescriptor;
+		
+		private OpenShipment(Camel camel, Shipment shipment, PathDescriptor pathDescriptor) {
+			this.camel = camel;
+			this.shipment = shipment;
+			this.pathDescriptor = pathDescriptor;
+		}
+		
+	}
 
 }
@@ -8,6 +8,7 @@ import java.util.Set;
 import camels.Camel;
 import events.EventManager;
 import requests.Request;
+import requests.RequestFeed;
 import requests.RequestManager;
 import requests.RequestState;
 
@@ -23,6 +24,10 @@ public class UIRequestControls {
 	private static final RequestManager REQUEST_MANAGER = RequestManager.getInstance();
 	private static final EventManager EVENT_MANAGER = EventManager.getInstance();
 	private static final simulation.Map MAP = simulation.Map.getInstance();
+	/** Default simulation time between two batches of fed requests */
+	private static final double DEFAULT_FEED_INTERVAL = 1;
+	/** Default maximal number of read requests waiting to be added from a feed */
+	private static final int DEFAULT_FEED_CAPACITY = 1024;
 	private final UserInterface ui;
 	
 	/**
@@ -240,6 +245,68 @@ public class UIRequestControls {
 		System.out.println("Request succesfully added.");
 	}
 	
+	/**
+	 * Starts a feed of requests from a file or named pipe
+	 * @param commandArr array of user input (0 - command, 1 - file name, [2 - batch interval, [3 - capacity]])
+	 */
+	public void startFeed(String[] commandArr) {
+		if(commandArr.length < 2 || commandArr.length > 4) {
+			System.out.println("Invalid arguments");
+			return;
+		}
+		
+		if(!ui.isDataLoaded()) {
+			System.out.println("No data loaded");
+			return;
+		}
+		
+		if(REQUEST_MANAGER.hasRunningRequestFeed()) {
+			System.out.println("A request feed is already running");
+			return;
+		}
+		
+		double interval = DEFAULT_FEED_INTERVAL;
+		int capacity = DEFAULT_FEED_CAPACITY;
+		try {
+			if(commandArr.length > 2) {
+				interval = Double.parseDouble(commandArr[2]);
+			}
+			if(commandArr.length > 3) {
+				capacity = Integer.parseInt(commandArr[3]);
+			}
+		} catch(NumberFormatException e) {
+			System.out.println("Batch interval or capacity not formatted correctly");
+			return;
+		}
+		
+		if(interval <= 0 || capacity <= 0) {
+			System.out.println("Batch interval and capacity must be positive");
+			return;
+		}
+		
+		REQUEST_MANAGER.startRequestFeed(new RequestFeed(commandArr[1], capacity), interval);
+		System.out.println("Request feed from " + commandArr[1] + " started.");
+	}
+	
+	/**
+	 * Stops the feed of requests
+	 * @param commandArr array of user input (0 - command)
+	 */
+	public void stopFeed(String[] commandArr) {
+		if(commandArr.length != 1) {
+			System.out.println("Invalid arguments");
+			return;
+		}
+		
+		if(!REQUEST_MANAGER.hasRunningRequestFeed()) {
+			System.out.println("No request feed is running");
+			return;
+		}
+		
+		REQUEST_MANAGER.stopRequestFeed();
+		System.out.println("Request feed stopped.");
+	}
+	
 	private int getBasketCount(String[] commandArr) {
 		int basketCount = -1;
 		try {
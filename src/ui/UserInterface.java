@@ -10,10 +10,16 @@ import events.AEvent;
 import events.BasketRefillEvent;
 import events.CamelWalkEvent;
 import events.EventManager;
+import events.RequestBatchEvent;
+import events.RequestFeedEvent;
 import events.RequestFulfilledEvent;
 import events.RequestReceiveEvent;
+import loader.ScenarioFile;
 import requests.RequestManager;
+import simulation.PreprocessingCache;
+import simulation.RandomStreams;
 import simulation.Simulation;
+import simulation.Warehouse;
 
 /**
  * This class represents an user interface that is used or controlling the simulation
@@ -28,6 +34,9 @@ public class UserInterface {
 	
 	private static final Scanner IN = new Scanner(System.in);
 	
+	/** Extensions of the compressed text data files */
+	private static final String[] COMPRESSED_EXTENSIONS = {".gz"};
+	
 	private final UIRequestControls requestControls;
 	
 	private boolean dataLoaded = false;
@@ -100,6 +109,12 @@ public class UserInterface {
 			case "cancel_request":
 				requestControls.cancelRequest(commandArr);
 				break;
+			case "feed":
+				requestControls.startFeed(commandArr);
+				break;
+			case "stop_feed":
+				requestControls.stopFeed(commandArr);
+				break;
 			case "schedule_pause":
 				schedulePause(commandArr);
 				break;
@@ -109,6 +124,18 @@ public class UserInterface {
 			case "generate":
 				generateData(commandArr);
 				break;
+			case "compile":
+				compileData(commandArr);
+				break;
+			case "seed":
+				seed(commandArr);
+				break;
+			case "batch":
+				batch(commandArr);
+				break;
+			case "cache":
+				cache(commandArr);
+				break;
 			case "generate_and_start":
 				String filename = generateData(commandArr);
 				if(filename == null) {
@@ -157,6 +184,76 @@ public class UserInterface {
 		return filename.substring(5);
 	}
 
+	/**
+	 * Sets the master seed of the random streams or prints it
+	 * @param commandArr array of user input (0 - command, [1 - seed])
+	 */
+	private void seed(String[] commandArr) {
+		if(commandArr.length > 2) {
+			System.out.println("Invalid arguments");
+			return;
+		}
+		
+		if(commandArr.length == 1) {
+			System.out.println("Seed: " + RandomStreams.getInstance().getSeed());
+			return;
+		}
+		
+		if(dataLoaded) {
+			System.out.println("Data already loaded");
+			return;
+		}
+		
+		try {
+			RandomStreams.getInstance().setSeed(Long.parseLong(commandArr[1]));
+		} catch(NumberFormatException e) {
+			System.out.println("Seed not formatted correctly.");
+			return;
+		}
+		System.out.println("Seed set to: " + commandArr[1]);
+	}
+
+	/**
+	 * Switches the batch admission of the requests received at the same time together with the shipments
+	 * shared by the requests to the same oasis, prints whether it is on without an argument
+	 * @param commandArr array of user input (0 - command, [1 - on/off])
+	 */
+	private void batch(String[] commandArr) {
+		if(commandArr.length > 2) {
+			System.out.println("Invalid arguments");
+			return;
+		}
+		
+		if(commandArr.length == 2) {
+			if(!commandArr[1].equals("on") && !commandArr[1].equals("off")) {
+				System.out.println("Invalid arguments");
+				return;
+			}
+			boolean batch = commandArr[1].equals("on");
+			RequestReceiveEvent.setBatchAdmission(batch);
+			Warehouse.setConsolidateShipments(batch);
+		}
+		System.out.println("Batch admission: " + (RequestReceiveEvent.isBatchAdmission() ? "on" : "off"));
+	}
+
+	/**
+	 * Sets the directory of the preprocessing cache of the maps loaded next or disables the cache with off,
+	 * prints the directory without an argument
+	 * @param commandArr array of user input (0 - command, [1 - directory or off])
+	 */
+	private void cache(String[] commandArr) {
+		if(commandArr.length > 2) {
+			System.out.println("Invalid arguments");
+			return;
+		}
+		
+		if(commandArr.length == 2) {
+			PreprocessingCache.setDirectory(commandArr[1].equals("off") ? null : commandArr[1]);
+		}
+		String directory = PreprocessingCache.getDirectory();
+		System.out.println("Preprocessing cache: " + (directory != null ? directory : "off"));
+	}
+
 	/**
 	 * Prints the current simulation time
 	 * @param commandArr array of user input (0 - command)
@@ -225,7 +322,7 @@ public class UserInterface {
 		}
 		
 		String filename = commandArr[1];
-		if(!filename.endsWith(".txt")) {
+		if(!filename.endsWith(".txt") && !filename.endsWith(ScenarioFile.EXTENSION) && getCompressedExtension(filename) == null) {
 			filename += ".txt";
 		}
 		filename = "data/" + filename;
@@ -243,6 +340,51 @@ public class UserInterface {
 		}
 	}
 	
+	/**
+	 * Compiles a text data file into the binary format next to it
+	 * @param commandArr array of user input (0 - command, 1 - name of the text file)
+	 */
+	private void compileData(String[] commandArr) {
+		if(commandArr.length != 2) {
+			System.out.println("Invalid arguments");
+			return;
+		}
+		
+		String filename = commandArr[1];
+		String compressedExtension = getCompressedExtension(filename);
+		if(!filename.endsWith(".txt") && compressedExtension == null) {
+			filename += ".txt";
+		}
+		filename = "data/" + filename;
+		String compiledFilename = compressedExtension == null ? filename
+				: filename.substring(0, filename.length() - compressedExtension.length());
+		if(compiledFilename.endsWith(".txt")) {
+			compiledFilename = compiledFilename.substring(0, compiledFilename.length() - ".txt".length());
+		}
+		compiledFilename += ScenarioFile.EXTENSION;
+		
+		System.out.println("Compiling " + filename.substring(5) + "...");
+		try {
+			long start = System.nanoTime();
+			Simulation.compileData(filename, compiledFilename);
+			System.out.printf("Compiled into %s in %.1f ms%n", compiledFilename.substring(5), (System.nanoTime() - start) * 1e-6);
+		} catch (NoSuchFileException e) {
+			System.out.println("File: " + filename + " does not exist");
+		} catch (IOException e) {
+			System.out.println("Failed to compile the data.");
+			e.printStackTrace();
+		}
+	}
+	
+	private static String getCompressedExtension(String filename) {
+		for(String extension : COMPRESSED_EXTENSIONS) {
+			if(filename.endsWith(extension)) {
+				return extension;
+			}
+		}
+		return null;
+	}
+	
 	/**
 	 * Starts the simulation
 	 * @param commandArr array of user input (0 - command)
@@ -282,7 +424,8 @@ public class UserInterface {
 		String format = " %-40s %s\n";
 		System.out.println("Available commands: ");
 		System.out.printf(format, "help", "displays this help page");
-		System.out.printf(format, "load <filename>", "load data into the simulation");
+		System.out.printf(format, "load <filename>", "load data into the simulation (text, gzip compressed .gz text or compiled " + ScenarioFile.EXTENSION + ")");
+		System.out.printf(format, "compile <filename>", "compiles text data (also .gz) into the binary " + ScenarioFile.EXTENSION + " format");
 		System.out.printf(format, "start", "starts the simulation");
 		System.out.printf(format, "load_and_start <filename>", "loads the simulation and starts it");
 		System.out.printf(format, "step [<steps>]", "steps the simulation by 1/<steps> steps");
@@ -290,8 +433,13 @@ public class UserInterface {
 		System.out.printf(format, "list_requests [<state>]", "prints all requests (with state <state>) and their indices");
 		System.out.printf(format, "add_request <request_time> <oasis_index> <basket_count> <delivery_time>\n", "\tadds a request");
 		System.out.printf(format, "cancel_request <request_index>", "cancels request with index <request_index>");
+		System.out.printf(format, "feed <filename> [<interval> [<capacity>]]\n", "\tadds requests appended to a file or named pipe every <interval>, at most <capacity> waiting");
+		System.out.printf(format, "stop_feed", "stops the request feed");
 		System.out.printf(format, "request_info <request_index>", "prints information about request with index <request_index>"); 
 		System.out.printf(format, "schedule_pause <pause_time>", "schedules a pause for time <pause_time>");
+		System.out.printf(format, "seed [<seed>]", "sets the seed of the generated data and camels (before loading), prints it without <seed>");
+		System.out.printf(format, "batch [on|off]", "processes the requests received at the same time together, sharing camels to the same oasis");
+		System.out.printf(format, "cache [<directory>|off]", "caches the preprocessing of the maps loaded next in <directory>, off by default");
 		System.out.printf(format, "generate", "generates a new dataset");
 		System.out.printf(format, "generate_and_start", "generates a new dataset, loads it and starts it");
 		System.out.printf(format, "quit/exit", "ends the app");
@@ -341,7 +489,9 @@ public class UserInterface {
 			while((e instanceof BasketRefillEvent)
 					|| (e instanceof CamelWalkEvent && !((CamelWalkEvent)e).isLog())
 					|| (e instanceof RequestFulfilledEvent)
-					|| (e instanceof RequestReceiveEvent)) {
+					|| (e instanceof RequestReceiveEvent)
+					|| (e instanceof RequestBatchEvent)
+					|| (e instanceof RequestFeedEvent)) {
 				e = EVENT_MANAGER.nextEvent();
 			}
 		}